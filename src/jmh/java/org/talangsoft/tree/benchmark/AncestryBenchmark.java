@@ -0,0 +1,75 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.ancestry.AncestryIndex;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ancestor tests and lowest common ancestors of random node pairs, with the index and by walking getParent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AncestryBenchmark {
+    private static final int PAIRS = 1 << 10;
+
+    @Param({"DEEP_CHAIN", "BALANCED", "RANDOM"})
+    private TreeShape shape;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private AncestryIndex<Integer> index;
+    private Tree<Integer>[] firsts;
+    private Tree<Integer>[] seconds;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Tree<Integer> tree = shape.tree(size);
+        index = AncestryIndex.of(tree);
+        List<Tree<Integer>> nodes = tree.nodes(Traversal.PRE_ORDER).collect(Collectors.toList());
+        Random random = new Random(size);
+        firsts = new Tree[PAIRS];
+        seconds = new Tree[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            firsts[i] = nodes.get(random.nextInt(size));
+            seconds[i] = nodes.get(random.nextInt(size));
+        }
+    }
+
+    @Benchmark
+    public boolean isAncestorIndexed() {
+        int pair = next++ & (PAIRS - 1);
+        return index.isAncestor(firsts[pair], seconds[pair]);
+    }
+
+    @Benchmark
+    public boolean isAncestorByParentWalk() {
+        int pair = next++ & (PAIRS - 1);
+        for (Optional<Tree<Integer>> current = seconds[pair].getParent(); current.isPresent(); current = current.get().getParent()) {
+            if (current.get() == firsts[pair]) return true;
+        }
+        return false;
+    }
+
+    @Benchmark
+    public Tree<Integer> lowestCommonAncestorIndexed() {
+        int pair = next++ & (PAIRS - 1);
+        return index.lowestCommonAncestor(firsts[pair], seconds[pair]);
+    }
+}
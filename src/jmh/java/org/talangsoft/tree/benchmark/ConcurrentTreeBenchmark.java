@@ -0,0 +1,140 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.concurrent.ConcurrentTree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mixed reads and writes, three reader threads for every writer, on a ConcurrentTree
+ * and on a plain Tree guarded by a single lock. Run with -t to scale the thread count, e.g. -t 8.
+ * Writers add a leaf under a random node and remove it again, so the tree keeps its size.
+ * In the move-heavy groups three threads move random nodes under random new parents for every reader,
+ * a move that would build a cycle is rejected.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ConcurrentTreeBenchmark {
+
+    @Param({"RANDOM", "WIDE_STAR"})
+    private TreeShape shape;
+
+    @Param({"100000"})
+    private int size;
+
+    private List<ConcurrentTree<Integer>> concurrentNodes;
+    private List<Tree<Integer>> lockedNodes;
+    private final Object globalLock = new Object();
+
+    @Setup
+    public void setUp() {
+        int[] parents = shape.parents(size);
+        concurrentNodes = new ArrayList<>(size);
+        concurrentNodes.add(new ConcurrentTree<>(0));
+        Tree<Integer> root = new Tree<>(0);
+        lockedNodes = new ArrayList<>(size);
+        lockedNodes.add(root);
+        for (int node = 1; node < size; node++) {
+            concurrentNodes.add(concurrentNodes.get(parents[node]).insertNode(node));
+            Tree<Integer> parent = lockedNodes.get(parents[node]);
+            parent.insert(node);
+            lockedNodes.add(parent.getChildNodes().get(parent.getChildNodes().size() - 1));
+        }
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(3)
+    public int concurrentRead() {
+        ConcurrentTree<Integer> node = concurrentNodes.get(ThreadLocalRandom.current().nextInt(size));
+        return node.getParent().map(parent -> parent.getChildNodes().size()).orElse(0);
+    }
+
+    @Benchmark
+    @Group("concurrent")
+    @GroupThreads(1)
+    public boolean concurrentWrite() {
+        ConcurrentTree<Integer> node = concurrentNodes.get(ThreadLocalRandom.current().nextInt(size));
+        return node.remove(node.insertNode(-1));
+    }
+
+    @Benchmark
+    @Group("globalLock")
+    @GroupThreads(3)
+    public int globalLockRead() {
+        Tree<Integer> node = lockedNodes.get(ThreadLocalRandom.current().nextInt(size));
+        synchronized (globalLock) {
+            return node.getParent().map(parent -> parent.getChildren().size()).orElse(0);
+        }
+    }
+
+    @Benchmark
+    @Group("globalLock")
+    @GroupThreads(1)
+    public boolean globalLockWrite() {
+        Tree<Integer> node = lockedNodes.get(ThreadLocalRandom.current().nextInt(size));
+        synchronized (globalLock) {
+            node.insert(-1);
+            return node.remove(node.getChildNodes().get(node.getChildNodes().size() - 1));
+        }
+    }
+
+    @Benchmark
+    @Group("concurrentMoves")
+    @GroupThreads(3)
+    public boolean concurrentMove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ConcurrentTree<Integer> node = concurrentNodes.get(1 + random.nextInt(size - 1));
+        try {
+            ConcurrentTree.move(node, concurrentNodes.get(random.nextInt(size)));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    @Group("concurrentMoves")
+    @GroupThreads(1)
+    public int concurrentReadWhileMoving() {
+        return concurrentRead();
+    }
+
+    @Benchmark
+    @Group("globalLockMoves")
+    @GroupThreads(3)
+    public boolean globalLockMove() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Tree<Integer> node = lockedNodes.get(1 + random.nextInt(size - 1));
+        Tree<Integer> newParent = lockedNodes.get(random.nextInt(size));
+        synchronized (globalLock) {
+            try {
+                newParent.insert(node);
+                return true;
+            } catch (IllegalArgumentException e) {
+                return false;
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("globalLockMoves")
+    @GroupThreads(1)
+    public int globalLockReadWhileMoving() {
+        return globalLockRead();
+    }
+}
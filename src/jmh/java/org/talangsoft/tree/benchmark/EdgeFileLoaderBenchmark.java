@@ -0,0 +1,72 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.edgefile.EdgeFileLoader;
+import org.talangsoft.tree.exportimport.edgefile.KeyDecoders;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loading an edge file with long keys, streaming the bytes into the tree against splitting lines into a pair list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class EdgeFileLoaderBenchmark {
+
+    @Param({"RANDOM"})
+    private TreeShape shape;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("edges", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (ParentChildPair<Integer> pair : shape.pairs(size)) {
+                writer.write(pair.getParent() + "," + pair.getChild() + "\n");
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public Tree<Long> streamingLoader() throws IOException {
+        return new EdgeFileLoader<>(KeyDecoders.longs()).load(file);
+    }
+
+    @Benchmark
+    public Tree<Long> splitLinesIntoPairs() throws IOException {
+        try (Stream<String> lines = Files.lines(file)) {
+            List<ParentChildPair<Long>> pairs = lines.map(line -> line.split(","))
+                    .map(keys -> new ParentChildPair<>(Long.parseLong(keys[0]), Long.parseLong(keys[1])))
+                    .collect(Collectors.toList());
+            return TreeFromPairBuilder.buildFromParentChildPairs(pairs);
+        }
+    }
+}
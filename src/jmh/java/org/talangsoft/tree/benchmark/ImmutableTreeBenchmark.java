@@ -0,0 +1,62 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.persistent.ImmutableTree;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Updating the children of a wide node of an immutable tree, and building the wide node one insert at a time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ImmutableTreeBenchmark {
+    private static final int WIDE = -2;
+
+    @Param({"1000", "100000"})
+    private int width;
+
+    private ImmutableTree<Integer> tree;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tree = wideTree(width);
+    }
+
+    @Benchmark
+    public ImmutableTree<Integer> insertUnderWideNode() {
+        return tree.insert(WIDE, width);
+    }
+
+    @Benchmark
+    public ImmutableTree<Integer> removeFromWideNode() {
+        next = (next + 1) % width;
+        return tree.remove(next);
+    }
+
+    @Benchmark
+    public ImmutableTree<Integer> moveOutOfWideNode() {
+        next = (next + 1) % width;
+        return tree.move(next, -1);
+    }
+
+    @Benchmark
+    public ImmutableTree<Integer> buildWideNode() {
+        return wideTree(width);
+    }
+
+    private static ImmutableTree<Integer> wideTree(int width) {
+        ImmutableTree<Integer> tree = ImmutableTree.of(-1).insert(-1, WIDE);
+        for (int child = 0; child < width; child++) tree = tree.insert(WIDE, child);
+        return tree;
+    }
+}
@@ -0,0 +1,70 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.search.LabelIndex;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Search as you type for a random element, through the label index against scanning every element,
+ * and the first keystroke, a single digit matching about a tenth of the elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LabelIndexBenchmark {
+    private static final int QUERIES = 1 << 10;
+    private static final int LIMIT = 20;
+
+    @Param({"RANDOM"})
+    private TreeShape shape;
+
+    @Param({"100000", "1000000"})
+    private int size;
+
+    private Tree<Integer> tree;
+    private LabelIndex<Integer> index;
+    private String[] queries;
+    private String[] firstKeystrokes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tree = shape.tree(size);
+        index = LabelIndex.of(tree, String::valueOf);
+        Random random = new Random(size);
+        queries = new String[QUERIES];
+        firstKeystrokes = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            queries[i] = String.valueOf(random.nextInt(size)).substring(1);
+            firstKeystrokes[i] = queries[i].substring(0, 1);
+        }
+    }
+
+    @Benchmark
+    public List<LabelIndex.Match<Integer>> indexSearch() {
+        return index.search(queries[next++ & (QUERIES - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public List<LabelIndex.Match<Integer>> indexSearchFirstKeystroke() {
+        return index.search(firstKeystrokes[next++ & (QUERIES - 1)], LIMIT);
+    }
+
+    @Benchmark
+    public List<Integer> scanAllElements() {
+        String query = queries[next++ & (QUERIES - 1)];
+        return tree.allElements().stream().filter(element -> element.toString().contains(query)).limit(LIMIT).collect(Collectors.toList());
+    }
+}
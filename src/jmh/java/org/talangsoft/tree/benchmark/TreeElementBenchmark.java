@@ -0,0 +1,63 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.treeelement.TreeElement;
+import org.talangsoft.tree.exportimport.treeelement.TreeFromTreeElementBuilder;
+import org.talangsoft.tree.exportimport.treeelement.TreeToTreeElementExporter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Exporting trees to parent referring tree elements and importing them back, sequentially and in parallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeElementBenchmark {
+    private static final Function<Integer, Integer> ID = Function.identity();
+
+    @Param({"DEEP_CHAIN", "WIDE_STAR", "BALANCED", "RANDOM"})
+    private TreeShape shape;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Tree<Integer> tree;
+    private List<TreeElement<Integer, Integer>> elements;
+
+    @Setup
+    public void setUp() {
+        tree = shape.tree(size);
+        elements = TreeToTreeElementExporter.exportTree(tree, ID, TreeElement::buildFromElementAndParentOption);
+    }
+
+    @Benchmark
+    public List<TreeElement<Integer, Integer>> exportTree() {
+        return TreeToTreeElementExporter.exportTree(tree, ID, TreeElement::buildFromElementAndParentOption);
+    }
+
+    @Benchmark
+    public List<TreeElement<Integer, Integer>> exportTreeInParallel() {
+        return TreeToTreeElementExporter.exportTreeInParallel(tree, ID, TreeElement::buildFromElementAndParentOption);
+    }
+
+    @Benchmark
+    public Tree<Integer> importTree() {
+        return TreeFromTreeElementBuilder.importTree(elements, ID);
+    }
+
+    @Benchmark
+    public Tree<Integer> importTreeInParallel() {
+        return TreeFromTreeElementBuilder.importTreeInParallel(elements, ID);
+    }
+}
@@ -0,0 +1,74 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building trees from shuffled parent-child pairs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeFromPairBuilderBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class DirectPairs {
+        @Param({"DEEP_CHAIN", "WIDE_STAR", "BALANCED", "RANDOM"})
+        private TreeShape shape;
+
+        @Param({"1000", "100000"})
+        private int size;
+
+        private List<ParentChildPair<Integer>> pairs;
+
+        @Setup
+        public void setUp() {
+            pairs = shape.pairs(size);
+        }
+    }
+
+    /**
+     * The ancestor-descendant pairs of a deep chain grow quadratically, so the sizes stay small here.
+     */
+    @State(Scope.Benchmark)
+    public static class RepeatedPairs {
+        @Param({"DEEP_CHAIN", "WIDE_STAR", "BALANCED", "RANDOM"})
+        private TreeShape shape;
+
+        @Param({"1000", "4000"})
+        private int size;
+
+        private List<ParentChildPair<Integer>> pairs;
+
+        @Setup
+        public void setUp() {
+            pairs = shape.ancestorDescendantPairs(size);
+        }
+    }
+
+    @Benchmark
+    public Tree<Integer> buildFromParentChildPairs(DirectPairs input) {
+        return TreeFromPairBuilder.buildFromParentChildPairs(input.pairs);
+    }
+
+    @Benchmark
+    public Tree<Integer> buildFromParentChildPairsInParallel(DirectPairs input) {
+        return TreeFromPairBuilder.buildFromParentChildPairsInParallel(input.pairs);
+    }
+
+    @Benchmark
+    public Tree<Integer> buildFromRepeatedParentChildPairs(RepeatedPairs input) {
+        return TreeFromPairBuilder.buildFromRepeatedParentChildPairs(input.pairs);
+    }
+}
@@ -0,0 +1,111 @@
+package org.talangsoft.tree.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.web.TreeHttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Local load test of the tree server: random children pages fetched from scratch and revalidated with their ETag.
+ * Run with -t to change the number of client threads. Also an insert and a remove under the root through the server,
+ * the root having a million children in the wide star.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class TreeHttpServerBenchmark {
+
+    @Param({"RANDOM", "WIDE_STAR"})
+    private TreeShape shape;
+
+    @Param({"1000000"})
+    private int size;
+
+    private TreeHttpServer<Integer, Integer> server;
+    private Tree<Integer> root;
+    private List<Integer> nodes;
+    private String[] etags;
+
+    @Setup
+    public void setUp() throws IOException {
+        // read once when the first server is created, see TreeHttpServer
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        Tree<Integer> tree = shape.tree(size);
+        root = tree;
+        nodes = tree.elements(Traversal.PRE_ORDER).collect(Collectors.toList());
+        server = new TreeHttpServer<>(tree, Function.identity(), new ObjectMapper(), new InetSocketAddress("localhost", 0));
+        server.start();
+        etags = new String[size];
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public int fetchChildren() throws IOException {
+        int node = nodes.get(ThreadLocalRandom.current().nextInt(size));
+        HttpURLConnection connection = connection(node, null);
+        etags[node] = connection.getHeaderField("ETag");
+        return drain(connection);
+    }
+
+    @Benchmark
+    public int revalidateChildren() throws IOException {
+        int node = nodes.get(ThreadLocalRandom.current().nextInt(size));
+        return drain(connection(node, etags[node]));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void insertAndRemoveUnderTheRoot() {
+        // the size is not read, it would squeeze the removed slot out of a million children
+        Tree<Integer> leaf = new Tree<>(-1);
+        server.update(() -> root.insert(leaf));
+        server.update(() -> root.remove(leaf));
+    }
+
+    private HttpURLConnection connection(int node, String etag) throws IOException {
+        InetSocketAddress address = server.getAddress();
+        URL url = new URL("http", address.getHostString(), address.getPort(), "/children?limit=100&node=" + node);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (etag != null) connection.setRequestProperty("If-None-Match", etag);
+        connection.getResponseCode();
+        return connection;
+    }
+
+    private static int drain(HttpURLConnection connection) throws IOException {
+        if (connection.getResponseCode() != 200) return connection.getResponseCode();
+        int length = 0;
+        byte[] buffer = new byte[8192];
+        try (InputStream in = connection.getInputStream()) {
+            for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
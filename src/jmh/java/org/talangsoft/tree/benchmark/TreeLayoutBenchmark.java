@@ -0,0 +1,70 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.layout.TreeLayout;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Laying a whole tree out against collapsing and expanding a random inner node of a laid out tree,
+ * and fetching the nodes of a viewport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TreeLayoutBenchmark {
+    private static final int NODES = 1 << 10;
+
+    @Param({"BALANCED", "RANDOM"})
+    private TreeShape shape;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private Tree<Integer> tree;
+    private TreeLayout<Integer> layout;
+    private Tree<Integer>[] innerNodes;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tree = shape.tree(size);
+        layout = TreeLayout.of(tree);
+        List<Tree<Integer>> inner = tree.nodes(Traversal.PRE_ORDER).filter(node -> !node.getChildNodes().isEmpty()).collect(Collectors.toList());
+        Random random = new Random(size);
+        innerNodes = new Tree[NODES];
+        for (int i = 0; i < NODES; i++) {
+            innerNodes[i] = inner.get(random.nextInt(inner.size()));
+        }
+    }
+
+    @Benchmark
+    public TreeLayout<Integer> fullLayout() {
+        return TreeLayout.of(tree);
+    }
+
+    @Benchmark
+    public TreeLayout<Integer> collapseAndExpand() {
+        Tree<Integer> node = innerNodes[next++ & (NODES - 1)];
+        layout.collapse(node);
+        layout.expand(node);
+        return layout;
+    }
+
+    @Benchmark
+    public List<TreeLayout.Placement<Integer>> viewport() {
+        return layout.visible(-20, 20, 0, 10);
+    }
+}
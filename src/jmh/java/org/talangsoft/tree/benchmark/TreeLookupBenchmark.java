@@ -0,0 +1,54 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tree.lookup of random elements, scanning and with the index enabled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeLookupBenchmark {
+    private static final int TARGETS = 1 << 10;
+
+    @Param({"DEEP_CHAIN", "WIDE_STAR", "BALANCED", "RANDOM"})
+    private TreeShape shape;
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"false", "true"})
+    private boolean indexed;
+
+    private Tree<Integer> tree;
+    private Integer[] targets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tree = shape.tree(size);
+        if (indexed) tree.withIndex();
+        Random random = new Random(size);
+        targets = new Integer[TARGETS];
+        for (int i = 0; i < TARGETS; i++) {
+            targets[i] = random.nextInt(size);
+        }
+    }
+
+    @Benchmark
+    public Optional<Tree<Integer>> lookup() {
+        return tree.lookup(targets[next++ & (TARGETS - 1)]);
+    }
+}
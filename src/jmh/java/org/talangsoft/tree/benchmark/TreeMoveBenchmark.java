@@ -0,0 +1,64 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Aggregate;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moving every child of a wide node to its sibling and back, one insert at a time and in one batch,
+ * with an aggregate that has no inverse and is recombined from the child values of the ancestors on detach.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeMoveBenchmark {
+
+    @Param({"1000", "100000"})
+    private int width;
+
+    @Param({"false", "true"})
+    private boolean aggregated;
+
+    private Tree<Integer> from;
+    private Tree<Integer> to;
+
+    @Setup
+    public void setUp() {
+        Tree<Integer> root = new Tree<>(-1);
+        root.insert(-2).insert(-3);
+        from = root.getChildNodes().get(0);
+        to = root.getChildNodes().get(1);
+        for (int child = 0; child < width; child++) from.insert(child);
+        if (aggregated) root.withAggregate(Aggregate.max(Integer::longValue));
+    }
+
+    @Benchmark
+    public Tree<Integer> moveOneByOne() {
+        for (Tree<Integer> child : new ArrayList<>(from.getChildNodes())) to.insert(child);
+        return swap();
+    }
+
+    @Benchmark
+    public Tree<Integer> moveAll() {
+        Tree.moveAll(new ArrayList<>(from.getChildNodes()), to);
+        return swap();
+    }
+
+    private Tree<Integer> swap() {
+        Tree<Integer> moved = to;
+        to = from;
+        from = moved;
+        return moved;
+    }
+}
@@ -0,0 +1,105 @@
+package org.talangsoft.tree.benchmark;
+
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The tree shapes the benchmarks run on. Nodes are the integers 0..size-1 with 0 as the root,
+ * every other node is attached below a node with a smaller number, so the trees are generated in one pass.
+ * <pre>
+ * DEEP_CHAIN  WIDE_STAR      BALANCED        RANDOM
+ *   0            0              0               0
+ *   |         / /|\ \         /   \           / | \
+ *   1        1 2 3 4 5       1     2         1  3  6
+ *   |                       / \   / \        |     |
+ *   2                      3   4 5   6       2     4 ...
+ * </pre>
+ */
+public enum TreeShape {
+    DEEP_CHAIN {
+        @Override
+        int parentOf(int node, Random random) {
+            return node - 1;
+        }
+    },
+    WIDE_STAR {
+        @Override
+        int parentOf(int node, Random random) {
+            return 0;
+        }
+    },
+    BALANCED {
+        @Override
+        int parentOf(int node, Random random) {
+            return (node - 1) / 2;
+        }
+    },
+    RANDOM {
+        @Override
+        int parentOf(int node, Random random) {
+            return random.nextInt(node);
+        }
+    };
+
+    private static final long SEED = 42;
+
+    abstract int parentOf(int node, Random random);
+
+    /**
+     * The parent of every node, -1 for the root. The same for every call with the same size.
+     */
+    public int[] parents(int size) {
+        Random random = new Random(SEED);
+        int[] parents = new int[size];
+        parents[0] = -1;
+        for (int node = 1; node < size; node++) {
+            parents[node] = parentOf(node, random);
+        }
+        return parents;
+    }
+
+    public Tree<Integer> tree(int size) {
+        int[] parents = parents(size);
+        List<Tree<Integer>> nodes = new ArrayList<>(size);
+        nodes.add(new Tree<>(0));
+        for (int node = 1; node < size; node++) {
+            List<Tree<Integer>> siblings = nodes.get(parents[node]).insert(node).getChildNodes();
+            nodes.add(siblings.get(siblings.size() - 1));
+        }
+        return nodes.get(0);
+    }
+
+    /**
+     * One pair per edge, shuffled so the builders cannot profit from the generation order.
+     */
+    public List<ParentChildPair<Integer>> pairs(int size) {
+        int[] parents = parents(size);
+        List<ParentChildPair<Integer>> pairs = new ArrayList<>(size - 1);
+        for (int node = 1; node < size; node++) {
+            pairs.add(new ParentChildPair<>(parents[node], node));
+        }
+        Collections.shuffle(pairs, new Random(SEED));
+        return pairs;
+    }
+
+    /**
+     * One pair per ancestor-descendant relation, the input of buildFromRepeatedParentChildPairs.
+     * The count grows with size times depth, quadratic for the deep chain.
+     */
+    public List<ParentChildPair<Integer>> ancestorDescendantPairs(int size) {
+        int[] parents = parents(size);
+        List<ParentChildPair<Integer>> pairs = new ArrayList<>();
+        for (int node = 1; node < size; node++) {
+            for (int ancestor = parents[node]; ancestor >= 0; ancestor = parents[ancestor]) {
+                pairs.add(new ParentChildPair<>(ancestor, node));
+            }
+        }
+        Collections.shuffle(pairs, new Random(SEED));
+        return pairs;
+    }
+}
@@ -0,0 +1,74 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.view.TreeView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Filtering the tree after a change and opening the first two levels, through a view against building
+ * a filtered copy of the tree, with a few and with half of the elements matching.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeViewBenchmark {
+    @Param({"RANDOM", "BALANCED"})
+    private TreeShape shape;
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"1", "50"})
+    private int matchingPercent;
+
+    private Tree<Integer> tree;
+    private TreeView<Integer> view;
+    private Predicate<Integer> predicate;
+
+    @Setup
+    public void setUp() {
+        tree = shape.tree(size);
+        predicate = element -> element % 100 < matchingPercent;
+        view = TreeView.of(tree, predicate);
+    }
+
+    @Benchmark
+    public int view() {
+        // a sort keeping the order changes the version without changing the tree
+        tree.getChildNodes().sort((first, second) -> 0);
+        int opened = 0;
+        Optional<TreeView.Node<Integer>> root = view.root();
+        if (!root.isPresent()) return opened;
+        for (TreeView.Node<Integer> child : root.get().getChildNodes()) opened += child.getChildCount();
+        return opened;
+    }
+
+    @Benchmark
+    public int filteredCopy() {
+        Optional<Tree<Integer>> root = copy(tree);
+        int opened = 0;
+        if (!root.isPresent()) return opened;
+        for (Tree<Integer> child : root.get().getChildNodes()) opened += child.getChildNodes().size();
+        return opened;
+    }
+
+    private Optional<Tree<Integer>> copy(Tree<Integer> node) {
+        List<Tree<Integer>> children = new ArrayList<>();
+        for (Tree<Integer> child : node.getChildNodes()) copy(child).ifPresent(children::add);
+        if (children.isEmpty() && !predicate.test(node.getData())) return Optional.empty();
+        return Optional.of(new Tree<>(node.getData(), children));
+    }
+}
@@ -0,0 +1,52 @@
+package org.talangsoft.tree.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.view.TreeView;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Paging through the children of a wide node of a view, half of them kept, as a viewer scrolling down the node does,
+ * and counting them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TreeViewPagingBenchmark {
+    private static final int PAGE = 100;
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private TreeView.Node<Integer> root;
+
+    @Setup
+    public void setUp() {
+        Tree<Integer> tree = TreeShape.WIDE_STAR.tree(size);
+        root = TreeView.of(tree, element -> element % 2 == 0).root().get();
+    }
+
+    @Benchmark
+    public int pageThroughTheChildren() {
+        int paged = 0;
+        for (int offset = 0; ; offset += PAGE) {
+            List<TreeView.Node<Integer>> page = root.getChildNodes(offset, PAGE);
+            paged += page.size();
+            if (page.size() < PAGE) return paged;
+        }
+    }
+
+    @Benchmark
+    public int countTheChildren() {
+        return root.getChildCount();
+    }
+}
@@ -0,0 +1,77 @@
+package org.talangsoft.tree;
+
+import java.util.Optional;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * A value rolled up over subtrees: every node contributes the value of its element, and the values are combined
+ * with an associative and commutative operation, the identity being the value of no nodes at all.
+ * <p>
+ * Registered on a tree with {@link Tree#withAggregate}, the value of every subtree is cached in its root
+ * and kept up to date along the ancestor path when nodes are inserted, moved or removed.
+ * When an inverse is given, detaching a subtree subtracts its value from the ancestors. Otherwise, like for min and max,
+ * every node also keeps the values of its children in a segment tree, so an ancestor is recombined from its children
+ * in O(log fanout): a change costs O(depth log fanout), at the price of about two more values per child.
+ */
+public final class Aggregate<T, A> {
+    private final Function<T, A> valueOf;
+    private final A identity;
+    private final BinaryOperator<A> combine;
+    private final UnaryOperator<A> inverse;
+
+    private Aggregate(Function<T, A> valueOf, A identity, BinaryOperator<A> combine, UnaryOperator<A> inverse) {
+        this.valueOf = valueOf;
+        this.identity = identity;
+        this.combine = combine;
+        this.inverse = inverse;
+    }
+
+    public static <T, A> Aggregate<T, A> of(Function<T, A> valueOf, A identity, BinaryOperator<A> combine) {
+        return new Aggregate<>(valueOf, identity, combine, null);
+    }
+
+    /**
+     * An aggregate whose values can be subtracted: combining a value with its inverse gives the identity.
+     */
+    public static <T, A> Aggregate<T, A> of(Function<T, A> valueOf, A identity, BinaryOperator<A> combine, UnaryOperator<A> inverse) {
+        return new Aggregate<>(valueOf, identity, combine, inverse);
+    }
+
+    /**
+     * The number of nodes in the subtree.
+     */
+    public static <T> Aggregate<T, Long> count() {
+        return of(element -> 1L, 0L, Long::sum, value -> -value);
+    }
+
+    public static <T> Aggregate<T, Long> sum(ToLongFunction<T> field) {
+        return of(field::applyAsLong, 0L, Long::sum, value -> -value);
+    }
+
+    public static <T> Aggregate<T, Long> min(ToLongFunction<T> field) {
+        return of(field::applyAsLong, Long.MAX_VALUE, Math::min);
+    }
+
+    public static <T> Aggregate<T, Long> max(ToLongFunction<T> field) {
+        return of(field::applyAsLong, Long.MIN_VALUE, Math::max);
+    }
+
+    A valueOf(T element) {
+        return valueOf.apply(element);
+    }
+
+    A identity() {
+        return identity;
+    }
+
+    A combine(A first, A second) {
+        return combine.apply(first, second);
+    }
+
+    Optional<UnaryOperator<A>> inverse() {
+        return Optional.ofNullable(inverse);
+    }
+}
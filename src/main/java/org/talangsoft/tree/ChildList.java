@@ -0,0 +1,169 @@
+package org.talangsoft.tree;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The children of a node. Every child knows its slot in the array, so finding a child and detaching it takes
+ * constant time: the slot is cleared, and cleared slots are squeezed out by the next read, in a single pass
+ * however many children were detached since.
+ * <p>
+ * Reads can run in parallel like on an {@link java.util.ArrayList} as long as nothing changes the list: the squeezing
+ * runs under the lock of the list, and the cleared count is published last, so readers that see no cleared slots
+ * see the squeezed array.
+ */
+final class ChildList<T> extends AbstractList<Tree<T>> implements RandomAccess {
+    private static final Tree[] NO_SLOTS = new Tree[0];
+
+    private Tree<T>[] slots = NO_SLOTS;
+    // the slots in use, cleared ones included
+    private int end;
+    private volatile int cleared;
+    // the change counter of the tree, null unless the tree is versioned
+    TreeVersion version;
+
+    @Override
+    public int size() {
+        compact();
+        return end;
+    }
+
+    @Override
+    public Tree<T> get(int index) {
+        compact();
+        checkIndex(index, end);
+        return slots[index];
+    }
+
+    @Override
+    public Tree<T> set(int index, Tree<T> child) {
+        compact();
+        checkIndex(index, end);
+        Tree<T> replaced = slots[index];
+        slots[index] = child;
+        child.slot = index;
+        if (version != null) version.changed();
+        return replaced;
+    }
+
+    @Override
+    public boolean add(Tree<T> child) {
+        if (end == slots.length) makeRoom();
+        slots[end] = child;
+        child.slot = end++;
+        changed();
+        return true;
+    }
+
+    @Override
+    public void add(int index, Tree<T> child) {
+        compact();
+        checkIndex(index, end + 1);
+        if (index == end) {
+            add(child);
+            return;
+        }
+        if (end == slots.length) makeRoom();
+        System.arraycopy(slots, index, slots, index + 1, end - index);
+        slots[index] = child;
+        end++;
+        renumber(index);
+        changed();
+    }
+
+    @Override
+    public Tree<T> remove(int index) {
+        compact();
+        checkIndex(index, end);
+        Tree<T> removed = slots[index];
+        System.arraycopy(slots, index + 1, slots, index, end - index - 1);
+        slots[--end] = null;
+        renumber(index);
+        changed();
+        return removed;
+    }
+
+    /**
+     * Detaches the child in constant time, unless the node was put into the children of several nodes.
+     */
+    @Override
+    public boolean remove(Object child) {
+        int slot = slotOf(child);
+        if (slot < 0) return false;
+        slots[slot] = null;
+        cleared++;
+        changed();
+        return true;
+    }
+
+    @Override
+    public int indexOf(Object child) {
+        compact();
+        return slotOf(child);
+    }
+
+    @Override
+    public boolean contains(Object child) {
+        compact();
+        return slotOf(child) >= 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(slots, 0, end, null);
+        end = 0;
+        cleared = 0;
+        changed();
+    }
+
+    private void changed() {
+        modCount++;
+        if (version != null) version.changed();
+    }
+
+    private int slotOf(Object child) {
+        if (!(child instanceof Tree)) return -1;
+        int slot = ((Tree<?>) child).slot;
+        if (slot < end && slots[slot] == child) return slot;
+        // the slot belongs to another list when the constructors put the node into the children of several nodes
+        for (int i = 0; i < end; i++) {
+            if (slots[i] == child) return i;
+        }
+        return -1;
+    }
+
+    private void compact() {
+        if (cleared != 0) squeeze();
+    }
+
+    private synchronized void squeeze() {
+        if (cleared == 0) return;
+        int kept = 0;
+        for (int i = 0; i < end; i++) {
+            if (slots[i] != null) {
+                slots[kept] = slots[i];
+                slots[kept].slot = kept++;
+            }
+        }
+        Arrays.fill(slots, kept, end, null);
+        end = kept;
+        cleared = 0;
+    }
+
+    private void makeRoom() {
+        if (cleared > 0 && cleared * 2 >= end) {
+            compact();
+        } else {
+            slots = Arrays.copyOf(slots, Math.max(4, slots.length * 2));
+        }
+    }
+
+    private void renumber(int from) {
+        for (int i = from; i < end; i++) slots[i].slot = i;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size));
+    }
+}
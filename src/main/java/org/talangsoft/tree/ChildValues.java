@@ -0,0 +1,109 @@
+package org.talangsoft.tree;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The values of the children of a node for the aggregates without an inverse. For each of them the values are kept
+ * in a segment tree, every inner slot combining the two below it, so replacing or clearing the value of a child
+ * recombines log(fanout) slots instead of all the children. The aggregates are commutative, so a child can take
+ * any position: it keeps the one it got when it was attached, and the position of a detached child is reused.
+ */
+final class ChildValues<T> {
+    private final List<Aggregate<T, ?>> aggregates;
+    // per aggregate, null for the ones with an inverse: the leaves from capacity up, slot 1 combines them all
+    private Object[][] trees;
+    private int capacity = 1;
+    // the positions handed out, the free ones included
+    private int end;
+    private int[] free = new int[4];
+    private int freeCount;
+
+    ChildValues(List<Aggregate<T, ?>> aggregates) {
+        this.aggregates = aggregates;
+        this.trees = new Object[aggregates.size()][];
+        for (int slot = 0; slot < trees.length; slot++) {
+            if (!aggregates.get(slot).inverse().isPresent()) trees[slot] = emptyTree(slot, capacity);
+        }
+    }
+
+    /**
+     * Starts a segment tree for the aggregate in the given slot, with the children already in positions
+     * holding their values.
+     */
+    void track(int slot, List<Tree<T>> children) {
+        if (slot >= trees.length) trees = Arrays.copyOf(trees, slot + 1);
+        Object[] tree = emptyTree(slot, capacity);
+        for (Tree<T> child : children) {
+            tree[capacity + child.childValuePosition] = child.getAggregateValues()[slot];
+        }
+        recombine(slot, tree, capacity);
+        trees[slot] = tree;
+    }
+
+    /**
+     * Hands out a position for a new child, its values are the identities until they are set.
+     */
+    int add() {
+        if (freeCount > 0) return free[--freeCount];
+        if (end == capacity) grow();
+        return end++;
+    }
+
+    void set(int slot, int position, Object value) {
+        Object[] tree = trees[slot];
+        Aggregate<T, Object> aggregate = aggregate(slot);
+        int index = capacity + position;
+        tree[index] = value;
+        for (index >>>= 1; index > 0; index >>>= 1) {
+            tree[index] = aggregate.combine(tree[2 * index], tree[2 * index + 1]);
+        }
+    }
+
+    /**
+     * Resets the values of a detached child to the identities and frees its position.
+     */
+    void remove(int position) {
+        for (int slot = 0; slot < trees.length; slot++) {
+            if (trees[slot] != null) set(slot, position, aggregate(slot).identity());
+        }
+        if (freeCount == free.length) free = Arrays.copyOf(free, freeCount * 2);
+        free[freeCount++] = position;
+    }
+
+    /**
+     * The values of all the children combined.
+     */
+    Object combined(int slot) {
+        return trees[slot][1];
+    }
+
+    private void grow() {
+        int newCapacity = capacity * 2;
+        for (int slot = 0; slot < trees.length; slot++) {
+            if (trees[slot] == null) continue;
+            Object[] tree = emptyTree(slot, newCapacity);
+            System.arraycopy(trees[slot], capacity, tree, newCapacity, capacity);
+            recombine(slot, tree, newCapacity);
+            trees[slot] = tree;
+        }
+        capacity = newCapacity;
+    }
+
+    private Object[] emptyTree(int slot, int capacity) {
+        Object[] tree = new Object[2 * capacity];
+        Arrays.fill(tree, aggregate(slot).identity());
+        return tree;
+    }
+
+    private void recombine(int slot, Object[] tree, int capacity) {
+        Aggregate<T, Object> aggregate = aggregate(slot);
+        for (int index = capacity - 1; index > 0; index--) {
+            tree[index] = aggregate.combine(tree[2 * index], tree[2 * index + 1]);
+        }
+    }
+
+    private Aggregate<T, Object> aggregate(int slot) {
+        return (Aggregate<T, Object>) aggregates.get(slot);
+    }
+}
@@ -0,0 +1,23 @@
+package org.talangsoft.tree;
+
+/**
+ * Order in which the nodes of a tree are visited, children are always visited in their insertion order.
+ */
+public enum Traversal {
+    /**
+     * A node before its children, depth first.
+     */
+    PRE_ORDER,
+    /**
+     * A node after its children, depth first.
+     */
+    POST_ORDER,
+    /**
+     * Level by level, starting with the root.
+     */
+    BREADTH_FIRST,
+    /**
+     * Only the nodes without children, in pre-order.
+     */
+    LEAVES
+}
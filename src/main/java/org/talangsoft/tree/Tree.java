@@ -1,15 +1,38 @@
 package org.talangsoft.tree;
 
+import org.talangsoft.tree.metrics.Counter;
+import org.talangsoft.tree.metrics.Instrumentation;
+
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Tree<T> {
     private T data;
     private Optional<Tree<T>> parent;
-    private List<Tree<T>> childNodes = new ArrayList<>();
+    private final ChildList<T> childNodes = new ChildList<>();
+    // the position of the node in the slots of its parent's children
+    int slot;
+    private TreeIndex<T> index;
+    private TreeAggregates<T> aggregates;
+    // the value of this subtree for each registered aggregate
+    private Object[] aggregateValues;
+    // the values of the children for the aggregates without an inverse, and the position of this node in its parent's
+    private ChildValues<T> childValues;
+    int childValuePosition;
 
 
     public Tree(T data, Tree<T> parent, List<Tree<T>> childNodes) {
@@ -36,55 +59,388 @@ public class Tree<T> {
         this.parent = Optional.empty();
     }
 
-    public Optional<Tree<T>> lookup(T elem) {
-        if (this.getData().equals(elem)) return Optional.of(this);
-        for (Tree<T> child : childNodes) {
-            Optional<Tree<T>> search = child.lookup(elem);
-            if (search.isPresent()) return search;
+    /**
+     * Creates a root node in indexed mode: the tree keeps a data to node map up to date on insert and remove,
+     * so lookup does not need to walk the tree.
+     */
+    public static <T> Tree<T> indexed(T data) {
+        return new Tree<T>(data).withIndex();
+    }
+
+    /**
+     * Switches an existing tree to indexed mode, indexing every node currently in it.
+     * Only the root can enable the index, as the index is shared by the whole tree.
+     */
+    public Tree<T> withIndex() {
+        if (parent.isPresent()) {
+            throw new IllegalStateException(String.format("Index can only be enabled on the root, '%s' has a parent", data));
         }
-        return Optional.empty();
+        if (index == null) assignIndex(new TreeIndex<>());
+        return this;
     }
 
-    public List<T> allBottomLevelSuccessor() {
-        if (childNodes.isEmpty()) {
-            return Collections.singletonList(this.data);
+    public boolean isIndexed() {
+        return index != null;
+    }
+
+    /**
+     * Switches the tree to versioned mode: the tree counts the changes of the children of its nodes, so caches built
+     * from it, like {@link org.talangsoft.tree.view.TreeView}, can tell whether they are still valid.
+     * Only the root can enable versioning, as the counter is shared by the whole tree.
+     */
+    public Tree<T> withVersion() {
+        if (parent.isPresent()) {
+            throw new IllegalStateException(String.format("Versioning can only be enabled on the root, '%s' has a parent", data));
         }
-        List<T> successors = new ArrayList<>();
-        for (Tree<T> child : childNodes) {
-            successors.addAll(child.allBottomLevelSuccessor());
+        if (childNodes.version == null) assignVersion(new TreeVersion());
+        return this;
+    }
+
+    public boolean isVersioned() {
+        return childNodes.version != null;
+    }
+
+    /**
+     * The number of changes of the children of the nodes of the tree since versioning was enabled. Every insert,
+     * move and remove changes it, as well as changes made through {@link #getChildNodes()}.
+     */
+    public long version() {
+        if (childNodes.version == null) throw new IllegalStateException(String.format("The tree of '%s' is not versioned", data));
+        return childNodes.version.get();
+    }
+
+    /**
+     * Registers the listener on the tree, switching it to versioned mode first, as the listeners are shared by the nodes
+     * together with the change counter. Only the root can register listeners.
+     */
+    public Tree<T> withListener(TreeListener<T> listener) {
+        withVersion();
+        childNodes.version.addListener(listener);
+        return this;
+    }
+
+    /**
+     * Unregisters the listener, the tree stays versioned.
+     */
+    public boolean removeListener(TreeListener<T> listener) {
+        return childNodes.version != null && childNodes.version.removeListener(listener);
+    }
+
+    /**
+     * Registers the aggregate on the tree and computes its value for every subtree in one pass.
+     * From then on the values are kept up to date on insert, move and remove, updating only the ancestors of the change.
+     * Only the root can register aggregates, as they are shared by the whole tree.
+     */
+    public <A> Tree<T> withAggregate(Aggregate<T, A> aggregate) {
+        if (parent.isPresent()) {
+            throw new IllegalStateException(String.format("Aggregates can only be registered on the root, '%s' has a parent", data));
+        }
+        if (aggregates == null) {
+            TreeAggregates<T> newAggregates = new TreeAggregates<>();
+            nodes(Traversal.PRE_ORDER).forEach(node -> node.aggregates = newAggregates);
         }
-        return successors;
+        if (aggregates.slotOf(aggregate) < 0) aggregates.register(aggregate, this);
+        return this;
     }
 
-    public List<T> allElements() {
-        List<T> elements = new ArrayList<>();
-        elements.add(this.data);
-        for (Tree<T> child : childNodes) {
-            elements.addAll(child.allElements());
+    /**
+     * The cached value of the aggregate for this subtree.
+     */
+    public <A> A aggregate(Aggregate<T, A> aggregate) {
+        int slot = aggregates == null ? -1 : aggregates.slotOf(aggregate);
+        if (slot < 0) throw new IllegalStateException(String.format("The aggregate is not registered on the tree of '%s'", data));
+        return (A) aggregateValues[slot];
+    }
+
+    Object[] getAggregateValues() {
+        return aggregateValues;
+    }
+
+    void setAggregateValues(Object[] aggregateValues) {
+        this.aggregateValues = aggregateValues;
+    }
+
+    ChildValues<T> getChildValues() {
+        return childValues;
+    }
+
+    void setChildValues(ChildValues<T> childValues) {
+        this.childValues = childValues;
+    }
+
+    public Optional<Tree<T>> lookup(T elem) {
+        if (Instrumentation.ENABLED) Instrumentation.count(Counter.LOOKUPS, 1);
+        if (index != null) return index.lookup(elem, this);
+        return scan(elem);
+    }
+
+    Optional<Tree<T>> scan(T elem) {
+        Iterator<Tree<T>> nodes = nodeIterator(Traversal.PRE_ORDER);
+        long visited = 0;
+        try {
+            while (nodes.hasNext()) {
+                Tree<T> node = nodes.next();
+                visited++;
+                if (node.getData().equals(elem)) return Optional.of(node);
+            }
+            return Optional.empty();
+        } finally {
+            if (Instrumentation.ENABLED) Instrumentation.count(Counter.NODE_VISITS, visited);
         }
-        return elements;
+    }
+
+    /**
+     * Lazy iterator over the nodes of this subtree, including this node.
+     */
+    public Iterator<Tree<T>> nodeIterator(Traversal traversal) {
+        return TreeIterators.iterator(this, traversal);
+    }
+
+    /**
+     * Lazy stream of the nodes of this subtree, including this node. The traversal is iterative,
+     * it works on trees of any depth and stops as soon as the stream is short-circuited.
+     */
+    public Stream<Tree<T>> nodes(Traversal traversal) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(nodeIterator(traversal), Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Pre-order spliterator over the nodes of this subtree that splits on subtree boundaries,
+     * so parallel streams start working without materializing the nodes first.
+     */
+    public Spliterator<Tree<T>> spliterator() {
+        return new TreeSpliterator<>(this, null);
+    }
+
+    /**
+     * Same as {@link #spliterator()}, but it reports its exact size using the known number of nodes in each subtree.
+     */
+    public Spliterator<Tree<T>> spliterator(ToLongFunction<Tree<T>> subtreeSizes) {
+        return new TreeSpliterator<>(this, subtreeSizes);
+    }
+
+    /**
+     * Parallel stream of the nodes of this subtree, in pre-order.
+     */
+    public Stream<Tree<T>> parallelNodes() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Lazy stream of the data of the nodes of this subtree, including this node.
+     */
+    public Stream<T> elements(Traversal traversal) {
+        return nodes(traversal).map(Tree::getData);
+    }
+
+    public List<T> allBottomLevelSuccessor() {
+        return elements(Traversal.LEAVES).collect(Collectors.toList());
+    }
+
+    public List<T> allElements() {
+        return elements(Traversal.PRE_ORDER).collect(Collectors.toList());
     }
 
     public List<Tree<T>> allNodes() {
-        List<Tree<T>> elements = new ArrayList<>();
-        elements.add(this);
-        for (Tree<T> child : childNodes) {
-            elements.addAll(child.allNodes());
-        }
-        return elements;
+        return nodes(Traversal.PRE_ORDER).collect(Collectors.toList());
     }
 
     public Tree<T> insert(T child) {
-        childNodes.add(new Tree(child, this, Collections.emptyList()));
+        if (Instrumentation.ENABLED) Instrumentation.count(Counter.INSERTS, 1);
+        Tree<T> childNode = new Tree<>(child, this, Collections.emptyList());
+        childNode.childNodes.version = childNodes.version;
+        childNodes.add(childNode);
+        if (index != null) {
+            childNode.index = index;
+            index.register(childNode);
+        }
+        if (aggregates != null) {
+            childNode.aggregates = aggregates;
+            aggregates.recompute(childNode);
+            aggregates.attached(childNode, this);
+        }
+        if (childNodes.version != null) childNodes.version.attached(childNode, this);
         return this;
     }
 
+    /**
+     * Inserts the node with its subtree as the last child. A node that already has a parent is moved,
+     * it is removed from the children of its old parent first.
+     *
+     * @throws IllegalArgumentException if the node is this node or one of its ancestors, nothing is changed then
+     */
     public Tree<T> insert(Tree<T> child) {
+        // a leaf can only be an ancestor of itself, which keeps building deep chains linear
+        if (child == this || !child.childNodes.isEmpty()) requireNotUnder(child);
+        if (Instrumentation.ENABLED) Instrumentation.count(child.parent.isPresent() ? Counter.MOVES : Counter.INSERTS, 1);
+        child.parent.ifPresent(oldParent -> {
+            oldParent.childNodes.remove(child);
+            if (child.aggregates != null) child.aggregates.detached(child, oldParent);
+            if (oldParent.childNodes.version != null) oldParent.childNodes.version.detached(child, oldParent);
+        });
         child.parent = Optional.of(this);
         childNodes.add(child);
+        if (child.index != index) child.assignIndex(index);
+        if (child.aggregates != aggregates) child.assignAggregates(aggregates);
+        if (child.childNodes.version != childNodes.version) child.assignVersion(childNodes.version);
+        if (aggregates != null) aggregates.attached(child, this);
+        if (childNodes.version != null) childNodes.version.attached(child, this);
         return this;
     }
 
+    private void requireNotUnder(Tree<T> node) {
+        for (Optional<Tree<T>> ancestor = Optional.of(this); ancestor.isPresent(); ancestor = ancestor.get().parent) {
+            if (ancestor.get() == node) throw new IllegalArgumentException(String.format("'%s' cannot be moved under itself", node.data));
+        }
+    }
+
+    /**
+     * Inserts a node without parent as the last child like {@link #insert(Tree)}, but without walking up the ancestors
+     * to make sure the node is not the root above this one, which would close a cycle. Meant for the tree builders,
+     * which validate their whole input themselves. It only skips the check between plain trees, with an index,
+     * aggregates or versioning on either side, or for a node that has a parent, it is {@link #insert(Tree)}.
+     */
+    public Tree<T> insertUnchecked(Tree<T> root) {
+        if (root.parent.isPresent() || !isPlain() || !root.isPlain()) return insert(root);
+        if (Instrumentation.ENABLED) Instrumentation.count(Counter.INSERTS, 1);
+        root.parent = Optional.of(this);
+        childNodes.add(root);
+        return this;
+    }
+
+    private boolean isPlain() {
+        return index == null && aggregates == null && childNodes.version == null;
+    }
+
+    /**
+     * Removes the child with its subtree, the removed node becomes the root of a separate tree without index and aggregates.
+     */
+    public boolean remove(Tree<T> child) {
+        if (!childNodes.remove(child)) return false;
+        if (Instrumentation.ENABLED) Instrumentation.count(Counter.REMOVES, 1);
+        child.parent = Optional.empty();
+        if (aggregates != null) aggregates.detached(child, this);
+        if (childNodes.version != null) childNodes.version.detached(child, this);
+        child.assignIndex(null);
+        child.assignAggregates(null);
+        if (child.childNodes.version != null) child.assignVersion(null);
+        return true;
+    }
+
+    /**
+     * Moves the nodes with their subtrees to the end of the children of the new parent, in the order of the collection.
+     * The batch is checked once before anything changes, no node can be moved under itself. A node in the batch
+     * more than once is moved once, to its first position. Detaching a node from its old parent takes constant time,
+     * and the aggregates of each old parent and of the new parent are updated once for the whole batch.
+     */
+    public static <T> void moveAll(Collection<Tree<T>> nodes, Tree<T> newParent) {
+        Set<Tree<T>> newAncestors = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Optional<Tree<T>> ancestor = Optional.of(newParent); ancestor.isPresent(); ancestor = ancestor.get().parent) {
+            newAncestors.add(ancestor.get());
+        }
+        for (Tree<T> node : nodes) {
+            if (newAncestors.contains(node)) throw new IllegalArgumentException(String.format("'%s' cannot be moved under itself", node.data));
+        }
+        if (Instrumentation.ENABLED) {
+            long roots = nodes.stream().filter(node -> !node.parent.isPresent()).count();
+            Instrumentation.count(Counter.MOVES, nodes.size() - roots);
+            Instrumentation.count(Counter.INSERTS, roots);
+        }
+        detachAll(nodes);
+        List<Tree<T>> attached = new ArrayList<>(newParent.aggregates == null ? 0 : nodes.size());
+        for (Tree<T> node : nodes) {
+            // already attached when the node is in the batch twice
+            if (node.parent.isPresent()) continue;
+            node.parent = Optional.of(newParent);
+            newParent.childNodes.add(node);
+            if (node.index != newParent.index) node.assignIndex(newParent.index);
+            if (node.aggregates != newParent.aggregates) node.assignAggregates(newParent.aggregates);
+            if (node.childNodes.version != newParent.childNodes.version) node.assignVersion(newParent.childNodes.version);
+            if (newParent.childNodes.version != null) newParent.childNodes.version.attached(node, newParent);
+            if (newParent.aggregates != null) attached.add(node);
+        }
+        if (newParent.aggregates != null) newParent.aggregates.attached(attached, newParent);
+    }
+
+    /**
+     * Removes the nodes with their subtrees from their parents, each removed node becomes the root of a separate tree
+     * without index and aggregates. The batch is checked once before anything changes, every node must have a parent.
+     */
+    public static <T> void removeSubtrees(Collection<Tree<T>> subtrees) {
+        for (Tree<T> subtree : subtrees) {
+            if (!subtree.parent.isPresent()) {
+                throw new IllegalArgumentException(String.format("'%s' has no parent to be removed from", subtree.data));
+            }
+        }
+        if (Instrumentation.ENABLED) Instrumentation.count(Counter.REMOVES, subtrees.size());
+        detachAll(subtrees);
+        for (Tree<T> subtree : subtrees) {
+            subtree.assignIndex(null);
+            subtree.assignAggregates(null);
+            if (subtree.childNodes.version != null) subtree.assignVersion(null);
+        }
+    }
+
+    /**
+     * Detaches the nodes from their parents, a node in the batch twice is detached once. With aggregates
+     * the nodes are grouped by their old parents, and each group is taken out of the aggregates of its old parent
+     * at once. Old parents closer to the root go first, so a parent inside a subtree detached in the same batch is
+     * handled after the subtree left the aggregates of its old ancestors with all its values.
+     */
+    private static <T> void detachAll(Collection<Tree<T>> nodes) {
+        Map<Tree<T>, Integer> depths = new IdentityHashMap<>();
+        for (Tree<T> node : nodes) {
+            Optional<Tree<T>> oldParent = node.parent;
+            if (oldParent.isPresent() && oldParent.get().aggregates != null) depths.computeIfAbsent(oldParent.get(), Tree::depth);
+        }
+        Map<Tree<T>, List<Tree<T>>> detachedByParent = new IdentityHashMap<>();
+        for (Tree<T> node : nodes) {
+            if (!node.parent.isPresent()) continue;
+            Tree<T> oldParent = node.parent.get();
+            oldParent.childNodes.remove(node);
+            node.parent = Optional.empty();
+            if (oldParent.childNodes.version != null) oldParent.childNodes.version.detached(node, oldParent);
+            if (oldParent.aggregates != null) detachedByParent.computeIfAbsent(oldParent, key -> new ArrayList<>()).add(node);
+        }
+        List<Tree<T>> oldParents = new ArrayList<>(detachedByParent.keySet());
+        oldParents.sort(Comparator.comparing(depths::get));
+        for (Tree<T> oldParent : oldParents) {
+            oldParent.aggregates.detached(detachedByParent.get(oldParent), oldParent);
+        }
+    }
+
+    private int depth() {
+        int depth = 0;
+        for (Optional<Tree<T>> ancestor = parent; ancestor.isPresent(); ancestor = ancestor.get().parent) depth++;
+        return depth;
+    }
+
+    private void assignIndex(TreeIndex<T> newIndex) {
+        Iterator<Tree<T>> nodes = nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            if (node.index != null) node.index.unregister(node);
+            node.index = newIndex;
+            if (newIndex != null) newIndex.register(node);
+        }
+    }
+
+    private void assignVersion(TreeVersion newVersion) {
+        Iterator<Tree<T>> nodes = nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) nodes.next().childNodes.version = newVersion;
+    }
+
+    private void assignAggregates(TreeAggregates<T> newAggregates) {
+        Iterator<Tree<T>> nodes = nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            node.aggregates = newAggregates;
+            node.aggregateValues = null;
+            node.childValues = null;
+        }
+        if (newAggregates != null) newAggregates.recompute(this);
+    }
+
     public T getData() {
         return data;
     }
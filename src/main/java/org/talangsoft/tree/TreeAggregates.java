@@ -0,0 +1,185 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * The aggregates registered on a tree, shared by every node of it. Each node caches the value of its subtree
+ * for every aggregate in an array, in the order the aggregates were registered.
+ * <p>
+ * A change is taken into the ancestors of the changed node one by one. With an inverse the value of an attached subtree
+ * is combined into each ancestor and the inverse of a detached one likewise. Without an inverse each node also keeps
+ * the values of its children in {@link ChildValues}, so an ancestor is recombined from its own value and its children
+ * in O(log fanout), after the value of the child on the path was replaced.
+ */
+class TreeAggregates<T> {
+    private final List<Aggregate<T, ?>> aggregates = new ArrayList<>();
+    // per aggregate, null when it has no inverse
+    private final List<UnaryOperator<Object>> inverses = new ArrayList<>();
+    private int withoutInverse;
+
+    int slotOf(Aggregate<T, ?> aggregate) {
+        for (int slot = 0; slot < aggregates.size(); slot++) {
+            if (aggregates.get(slot) == aggregate) return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Registers the aggregate and computes its value for every node under the root, children before parents.
+     */
+    void register(Aggregate<T, ?> aggregate, Tree<T> root) {
+        int slot = aggregates.size();
+        aggregates.add(aggregate);
+        UnaryOperator<Object> inverse = ((Aggregate<T, Object>) aggregate).inverse().orElse(null);
+        inverses.add(inverse);
+        if (inverse == null) withoutInverse++;
+        Iterator<Tree<T>> nodes = root.nodeIterator(Traversal.POST_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            Object[] values = node.getAggregateValues();
+            node.setAggregateValues(values == null ? new Object[1] : Arrays.copyOf(values, slot + 1));
+            if (inverse == null) trackChildren(node, slot);
+            node.getAggregateValues()[slot] = combineChildren(node, slot);
+        }
+    }
+
+    /**
+     * Computes the values of a subtree that was not part of this tree, children before parents.
+     */
+    void recompute(Tree<T> subtree) {
+        Iterator<Tree<T>> nodes = subtree.nodeIterator(Traversal.POST_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            Object[] values = new Object[aggregates.size()];
+            node.setAggregateValues(values);
+            node.setChildValues(null);
+            for (int slot = 0; slot < values.length; slot++) {
+                if (inverses.get(slot) == null) trackChildren(node, slot);
+                values[slot] = combineChildren(node, slot);
+            }
+        }
+    }
+
+    /**
+     * Adds the values of a subtree that became a child of the parent to the parent and its ancestors.
+     */
+    void attached(Tree<T> subtree, Tree<T> parent) {
+        attached(Collections.singletonList(subtree), parent);
+    }
+
+    /**
+     * Adds the values of subtrees that became children of the parent to the parent and its ancestors,
+     * combining the subtrees first so the ancestors are walked once.
+     */
+    void attached(List<Tree<T>> subtrees, Tree<T> parent) {
+        if (withoutInverse > 0) {
+            if (parent.getChildValues() == null) parent.setChildValues(new ChildValues<>(aggregates));
+            ChildValues<T> childValues = parent.getChildValues();
+            for (Tree<T> subtree : subtrees) {
+                subtree.childValuePosition = childValues.add();
+                Object[] values = subtree.getAggregateValues();
+                for (int slot = 0; slot < values.length; slot++) {
+                    if (inverses.get(slot) == null) childValues.set(slot, subtree.childValuePosition, values[slot]);
+                }
+            }
+        }
+        updateAncestors(parent, combined(subtrees));
+    }
+
+    /**
+     * Takes the values of a subtree that was removed from the children of the parent out of the parent and its ancestors.
+     */
+    void detached(Tree<T> subtree, Tree<T> parent) {
+        detached(Collections.singletonList(subtree), parent);
+    }
+
+    /**
+     * Takes the values of subtrees that were removed from the children of the parent out of the parent and its ancestors,
+     * walking the ancestors once.
+     */
+    void detached(List<Tree<T>> subtrees, Tree<T> parent) {
+        if (withoutInverse > 0) {
+            for (Tree<T> subtree : subtrees) parent.getChildValues().remove(subtree.childValuePosition);
+        }
+        Object[] removed = combined(subtrees);
+        for (int slot = 0; slot < removed.length; slot++) {
+            UnaryOperator<Object> inverse = inverses.get(slot);
+            if (inverse != null) removed[slot] = inverse.apply(removed[slot]);
+        }
+        updateAncestors(parent, removed);
+    }
+
+    /**
+     * Combines the change into the values of the parent and its ancestors for the aggregates with an inverse.
+     * The others are recombined from the child values, after the value of the child on the path was replaced in them.
+     */
+    private void updateAncestors(Tree<T> parent, Object[] change) {
+        Tree<T> child = null;
+        for (Tree<T> ancestor = parent; ancestor != null; child = ancestor, ancestor = ancestor.getParent().orElse(null)) {
+            Object[] values = ancestor.getAggregateValues();
+            for (int slot = 0; slot < values.length; slot++) {
+                if (inverses.get(slot) != null) {
+                    values[slot] = combine(slot, values[slot], change[slot]);
+                } else {
+                    if (child != null) ancestor.getChildValues().set(slot, child.childValuePosition, child.getAggregateValues()[slot]);
+                    values[slot] = combineChildren(ancestor, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of the subtrees combined, in a new array.
+     */
+    private Object[] combined(List<Tree<T>> subtrees) {
+        if (subtrees.size() == 1) return subtrees.get(0).getAggregateValues().clone();
+        Object[] values = new Object[aggregates.size()];
+        for (int slot = 0; slot < values.length; slot++) {
+            Object value = aggregates.get(slot).identity();
+            for (Tree<T> subtree : subtrees) value = combine(slot, value, subtree.getAggregateValues()[slot]);
+            values[slot] = value;
+        }
+        return values;
+    }
+
+    /**
+     * Starts tracking the values of the children of the node for an aggregate without an inverse,
+     * handing out the positions of the children the first time.
+     */
+    private void trackChildren(Tree<T> node, int slot) {
+        List<Tree<T>> children = node.getChildNodes();
+        if (children.isEmpty()) return;
+        if (node.getChildValues() == null) {
+            ChildValues<T> childValues = new ChildValues<>(aggregates);
+            for (Tree<T> child : children) child.childValuePosition = childValues.add();
+            node.setChildValues(childValues);
+        }
+        node.getChildValues().track(slot, children);
+    }
+
+    /**
+     * The value of the node combined with the values of its children, through the child values when it has no inverse.
+     */
+    private Object combineChildren(Tree<T> node, int slot) {
+        Aggregate<T, Object> aggregate = (Aggregate<T, Object>) aggregates.get(slot);
+        Object value = aggregate.combine(aggregate.identity(), aggregate.valueOf(node.getData()));
+        if (inverses.get(slot) == null) {
+            ChildValues<T> childValues = node.getChildValues();
+            return childValues == null ? value : aggregate.combine(value, childValues.combined(slot));
+        }
+        for (Tree<T> child : node.getChildNodes()) {
+            value = aggregate.combine(value, child.getAggregateValues()[slot]);
+        }
+        return value;
+    }
+
+    private Object combine(int slot, Object first, Object second) {
+        return ((Aggregate<T, Object>) aggregates.get(slot)).combine(first, second);
+    }
+}
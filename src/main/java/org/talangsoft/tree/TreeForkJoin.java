@@ -0,0 +1,71 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Fork/join reductions over the nodes of a tree. The work is split on subtree boundaries by {@link Tree#spliterator()},
+ * the partial results are combined in pre-order, so the combiner only needs to be associative.
+ */
+public final class TreeForkJoin {
+
+    private TreeForkJoin() {
+    }
+
+    public static <T> T reduce(Tree<T> tree, T identity, BinaryOperator<T> accumulator) {
+        return mapReduce(tree, Tree::getData, identity, accumulator);
+    }
+
+    public static <T, R> R mapReduce(Tree<T> tree, Function<? super Tree<T>, ? extends R> mapper, R identity, BinaryOperator<R> combiner) {
+        return mapReduce(tree, mapper, identity, combiner, ForkJoinPool.commonPool());
+    }
+
+    public static <T, R> R mapReduce(Tree<T> tree, Function<? super Tree<T>, ? extends R> mapper, R identity, BinaryOperator<R> combiner, ForkJoinPool pool) {
+        Spliterator<Tree<T>> nodes = tree.spliterator();
+        long sizeThreshold = Math.max(nodes.estimateSize() / (pool.getParallelism() * 4L), 1);
+        return pool.invoke(new MapReduceTask<>(nodes, sizeThreshold, mapper, identity, combiner));
+    }
+
+    private static class MapReduceTask<T, R> extends RecursiveTask<R> {
+        private final Spliterator<Tree<T>> nodes;
+        private final long sizeThreshold;
+        private final Function<? super Tree<T>, ? extends R> mapper;
+        private final R identity;
+        private final BinaryOperator<R> combiner;
+        private R result;
+
+        MapReduceTask(Spliterator<Tree<T>> nodes, long sizeThreshold, Function<? super Tree<T>, ? extends R> mapper, R identity, BinaryOperator<R> combiner) {
+            this.nodes = nodes;
+            this.sizeThreshold = sizeThreshold;
+            this.mapper = mapper;
+            this.identity = identity;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            // every split takes the prefix of the remaining nodes, so the forked tasks are in pre-order, followed by this one
+            List<MapReduceTask<T, R>> prefixTasks = new ArrayList<>();
+            Spliterator<Tree<T>> prefix;
+            while (nodes.estimateSize() > sizeThreshold && (prefix = nodes.trySplit()) != null) {
+                MapReduceTask<T, R> prefixTask = new MapReduceTask<>(prefix, sizeThreshold, mapper, identity, combiner);
+                prefixTask.fork();
+                prefixTasks.add(prefixTask);
+            }
+
+            result = identity;
+            nodes.forEachRemaining(node -> result = combiner.apply(result, mapper.apply(node)));
+
+            R combined = identity;
+            for (MapReduceTask<T, R> prefixTask : prefixTasks) {
+                combined = combiner.apply(combined, prefixTask.join());
+            }
+            return combiner.apply(combined, result);
+        }
+    }
+}
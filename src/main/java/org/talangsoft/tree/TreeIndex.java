@@ -0,0 +1,63 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Data to node map shared by every node of an indexed tree.
+ * A key held by a single node maps to that node, a key held by several nodes maps to the list of them,
+ * in which case lookups fall back to scanning so the first match in depth-first order is still returned.
+ */
+class TreeIndex<T> {
+    private final Map<T, Object> nodesByData = new HashMap<>();
+
+    void register(Tree<T> node) {
+        Object existing = nodesByData.putIfAbsent(node.getData(), node);
+        if (existing == null) return;
+        if (existing instanceof Tree) {
+            List<Tree<T>> duplicates = new ArrayList<>(2);
+            duplicates.add((Tree<T>) existing);
+            duplicates.add(node);
+            nodesByData.put(node.getData(), duplicates);
+        } else {
+            ((List<Tree<T>>) existing).add(node);
+        }
+    }
+
+    void unregister(Tree<T> node) {
+        Object existing = nodesByData.get(node.getData());
+        if (existing == node) {
+            nodesByData.remove(node.getData());
+        } else if (existing instanceof List) {
+            List<Tree<T>> duplicates = (List<Tree<T>>) existing;
+            duplicates.removeIf(duplicate -> duplicate == node);
+            if (duplicates.size() == 1) nodesByData.put(node.getData(), duplicates.get(0));
+        }
+    }
+
+    /**
+     * Same result as a depth-first search from the scope node: empty if the element is not under the scope,
+     * the single matching node if it is unique, otherwise the result of a scan.
+     */
+    Optional<Tree<T>> lookup(T elem, Tree<T> scope) {
+        Object found = nodesByData.get(elem);
+        if (found == null) return Optional.empty();
+        if (found instanceof List) return scope.scan(elem);
+
+        Tree<T> node = (Tree<T>) found;
+        return isInScope(node, scope) ? Optional.of(node) : Optional.empty();
+    }
+
+    private boolean isInScope(Tree<T> node, Tree<T> scope) {
+        if (!scope.getParent().isPresent()) return true;
+        Optional<Tree<T>> current = Optional.of(node);
+        while (current.isPresent()) {
+            if (current.get() == scope) return true;
+            current = current.get().getParent();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,153 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterative traversals keeping their pending nodes in growable arrays, so deep trees do not overflow the stack
+ * and visiting a node does not allocate. The tree must not be modified while it is traversed.
+ */
+final class TreeIterators {
+
+    private TreeIterators() {
+    }
+
+    static <T> Iterator<Tree<T>> iterator(Tree<T> root, Traversal traversal) {
+        switch (traversal) {
+            case PRE_ORDER:
+                return new PreOrder<>(root);
+            case POST_ORDER:
+                return new PostOrder<>(root);
+            case BREADTH_FIRST:
+                return new BreadthFirst<>(root);
+            case LEAVES:
+                return new Leaves<>(root);
+            default:
+                throw new IllegalArgumentException(String.format("Unknown traversal '%s'", traversal));
+        }
+    }
+
+    private static class PreOrder<T> implements Iterator<Tree<T>> {
+        private final ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+
+        PreOrder(Tree<T> root) {
+            pending.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public Tree<T> next() {
+            if (pending.isEmpty()) throw new NoSuchElementException();
+            Tree<T> node = pending.pop();
+            List<Tree<T>> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+            return node;
+        }
+    }
+
+    private static class PostOrder<T> implements Iterator<Tree<T>> {
+        private Tree<T>[] path = new Tree[16];
+        private int[] nextChildIndexes = new int[16];
+        private int depth;
+
+        PostOrder(Tree<T> root) {
+            push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public Tree<T> next() {
+            if (depth == 0) throw new NoSuchElementException();
+            while (true) {
+                Tree<T> node = path[depth - 1];
+                List<Tree<T>> children = node.getChildNodes();
+                int nextChildIndex = nextChildIndexes[depth - 1];
+                if (nextChildIndex < children.size()) {
+                    nextChildIndexes[depth - 1]++;
+                    push(children.get(nextChildIndex));
+                } else {
+                    path[--depth] = null;
+                    return node;
+                }
+            }
+        }
+
+        private void push(Tree<T> node) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                nextChildIndexes = Arrays.copyOf(nextChildIndexes, depth * 2);
+            }
+            path[depth] = node;
+            nextChildIndexes[depth] = 0;
+            depth++;
+        }
+    }
+
+    private static class BreadthFirst<T> implements Iterator<Tree<T>> {
+        private final ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+
+        BreadthFirst(Tree<T> root) {
+            pending.add(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public Tree<T> next() {
+            if (pending.isEmpty()) throw new NoSuchElementException();
+            Tree<T> node = pending.poll();
+            List<Tree<T>> children = node.getChildNodes();
+            for (int i = 0; i < children.size(); i++) {
+                pending.add(children.get(i));
+            }
+            return node;
+        }
+    }
+
+    private static class Leaves<T> implements Iterator<Tree<T>> {
+        private final PreOrder<T> nodes;
+        private Tree<T> nextLeaf;
+
+        Leaves(Tree<T> root) {
+            nodes = new PreOrder<>(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLeaf != null;
+        }
+
+        @Override
+        public Tree<T> next() {
+            if (nextLeaf == null) throw new NoSuchElementException();
+            Tree<T> leaf = nextLeaf;
+            advance();
+            return leaf;
+        }
+
+        private void advance() {
+            nextLeaf = null;
+            while (nextLeaf == null && nodes.hasNext()) {
+                Tree<T> node = nodes.next();
+                if (node.getChildNodes().isEmpty()) nextLeaf = node;
+            }
+        }
+    }
+}
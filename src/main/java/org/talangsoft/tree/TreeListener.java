@@ -0,0 +1,20 @@
+package org.talangsoft.tree;
+
+/**
+ * Told about the changes of a tree, registered on its root with {@link Tree#withListener}. Like the aggregates,
+ * it follows the inserts, moves and removes done through the tree, every change being reported once, after it is made,
+ * with the subtree and the parent whose children changed. A move is a detach from the old parent followed by
+ * an attach to the new one. Changes made through {@link Tree#getChildNodes()} are not reported.
+ */
+public interface TreeListener<T> {
+
+    /**
+     * The subtree was inserted as the last child of the parent, new to the tree or moved within it.
+     */
+    void attached(Tree<T> subtree, Tree<T> parent);
+
+    /**
+     * The subtree was taken from the children of the parent, removed from the tree or being moved within it.
+     */
+    void detached(Tree<T> subtree, Tree<T> parent);
+}
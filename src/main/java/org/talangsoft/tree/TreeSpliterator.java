@@ -0,0 +1,117 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Pre-order spliterator over a subtree, splitting on subtree boundaries.
+ * The pending subtree roots are kept in visiting order, after the nodes whose children are already pending;
+ * a split hands those nodes and the first half of the subtrees to the new spliterator.
+ * When a single subtree is left, it is opened up first, through chains of single children, until it branches.
+ * A chain that does not branch within {@link #MAX_CHAIN} nodes is handed over on its own, so a split stays cheap.
+ * <p>
+ * The size is exact when the subtree sizes are known, otherwise it is an estimate halved on every split.
+ */
+final class TreeSpliterator<T> implements Spliterator<Tree<T>> {
+    static final int MAX_CHAIN = 1 << 10;
+
+    private final ArrayDeque<Tree<T>> pendingNodesWithoutChildren;
+    private final ArrayDeque<Tree<T>> pendingSubtrees;
+    private final ToLongFunction<Tree<T>> subtreeSizes;
+    private long size;
+
+    TreeSpliterator(Tree<T> root, ToLongFunction<Tree<T>> subtreeSizes) {
+        this.pendingNodesWithoutChildren = new ArrayDeque<>();
+        this.pendingSubtrees = new ArrayDeque<>();
+        this.pendingSubtrees.add(root);
+        this.subtreeSizes = subtreeSizes;
+        this.size = subtreeSizes != null ? subtreeSizes.applyAsLong(root) : Long.MAX_VALUE;
+    }
+
+    private TreeSpliterator(ArrayDeque<Tree<T>> pendingNodesWithoutChildren, ArrayDeque<Tree<T>> pendingSubtrees, ToLongFunction<Tree<T>> subtreeSizes, long size) {
+        this.pendingNodesWithoutChildren = pendingNodesWithoutChildren;
+        this.pendingSubtrees = pendingSubtrees;
+        this.subtreeSizes = subtreeSizes;
+        this.size = size;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Tree<T>> action) {
+        Tree<T> node = pendingNodesWithoutChildren.poll();
+        if (node == null) {
+            node = pendingSubtrees.poll();
+            if (node == null) return false;
+            List<Tree<T>> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pendingSubtrees.push(children.get(i));
+            }
+        }
+        if (subtreeSizes != null) size--;
+        action.accept(node);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Tree<T>> trySplit() {
+        // open up the single subtree, its root is visited first so it goes with the prefix
+        while (pendingSubtrees.size() == 1 && pendingNodesWithoutChildren.size() < MAX_CHAIN
+                && !pendingSubtrees.peek().getChildNodes().isEmpty()) {
+            Tree<T> subtree = pendingSubtrees.poll();
+            pendingNodesWithoutChildren.add(subtree);
+            pendingSubtrees.addAll(subtree.getChildNodes());
+        }
+        if (pendingSubtrees.size() < 2) {
+            return splitNodesWithoutChildren();
+        }
+
+        int prefixSubtreeCount = pendingSubtrees.size() / 2;
+        ArrayDeque<Tree<T>> prefixSubtrees = new ArrayDeque<>(prefixSubtreeCount);
+        long prefixSize = pendingNodesWithoutChildren.size();
+        for (int i = 0; i < prefixSubtreeCount; i++) {
+            Tree<T> subtree = pendingSubtrees.poll();
+            prefixSubtrees.add(subtree);
+            if (subtreeSizes != null) prefixSize += subtreeSizes.applyAsLong(subtree);
+        }
+        ArrayDeque<Tree<T>> prefixNodes = new ArrayDeque<>(pendingNodesWithoutChildren);
+        pendingNodesWithoutChildren.clear();
+
+        if (subtreeSizes != null) {
+            size -= prefixSize;
+        } else {
+            size = prefixSize = size / 2;
+        }
+        return new TreeSpliterator<>(prefixNodes, prefixSubtrees, subtreeSizes, prefixSize);
+    }
+
+    /**
+     * No branching ahead: the nodes of the chain go to the new spliterator, or the first half of them
+     * when nothing follows, their number is known either way.
+     */
+    private Spliterator<Tree<T>> splitNodesWithoutChildren() {
+        int prefixNodeCount = pendingSubtrees.isEmpty() ? pendingNodesWithoutChildren.size() / 2 : pendingNodesWithoutChildren.size();
+        if (prefixNodeCount == 0) return null;
+        ArrayDeque<Tree<T>> prefixNodes = new ArrayDeque<>(prefixNodeCount);
+        for (int i = 0; i < prefixNodeCount; i++) {
+            prefixNodes.add(pendingNodesWithoutChildren.poll());
+        }
+        if (subtreeSizes != null) {
+            size -= prefixNodeCount;
+        } else if (pendingSubtrees.isEmpty()) {
+            size = pendingNodesWithoutChildren.size();
+        }
+        return new TreeSpliterator<>(prefixNodes, new ArrayDeque<>(0), subtreeSizes, prefixNodes.size());
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | (subtreeSizes != null ? SIZED | SUBSIZED : 0);
+    }
+}
@@ -0,0 +1,37 @@
+package org.talangsoft.tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Change counter shared by every node of a versioned tree, counting the changes of the children of the nodes.
+ * It also holds the listeners of the tree, which are shared the same way.
+ */
+final class TreeVersion {
+    private long changes;
+    private final List<TreeListener<?>> listeners = new ArrayList<>();
+
+    long get() {
+        return changes;
+    }
+
+    void changed() {
+        changes++;
+    }
+
+    void addListener(TreeListener<?> listener) {
+        listeners.add(listener);
+    }
+
+    boolean removeListener(TreeListener<?> listener) {
+        return listeners.remove(listener);
+    }
+
+    <T> void attached(Tree<T> subtree, Tree<T> parent) {
+        for (int i = 0; i < listeners.size(); i++) ((TreeListener<T>) listeners.get(i)).attached(subtree, parent);
+    }
+
+    <T> void detached(Tree<T> subtree, Tree<T> parent) {
+        for (int i = 0; i < listeners.size(); i++) ((TreeListener<T>) listeners.get(i)).detached(subtree, parent);
+    }
+}
@@ -0,0 +1,185 @@
+package org.talangsoft.tree.ancestry;
+
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers ancestor, depth and lowest common ancestor queries on a tree without walking the parent chains.
+ * <p>
+ * The nodes get numbers in pre-order, so the subtree of a node is a range of numbers and an ancestor test
+ * is two comparisons. Every node also stores a jump pointer to an ancestor chosen by the skew-binary scheme:
+ * <pre>
+ * jump(v) = jump(jump(parent)) if parent, jump(parent) and jump(jump(parent)) are equally far apart, else parent
+ * </pre>
+ * which needs O(1) time per node and lets k-th ancestor and lowest common ancestor queries climb in O(log n) steps.
+ * <p>
+ * The index is a snapshot of the tree. Leaves inserted later can be added in O(1) with {@link #addLeaf},
+ * ancestor tests involving them climb the jump pointers instead of comparing numbers.
+ * Any other change of the tree needs a {@link #rebuild()}, which takes linear time.
+ */
+public final class AncestryIndex<T> {
+    private final Tree<T> root;
+    private final Map<Tree<T>, Integer> ids = new IdentityHashMap<>();
+    private Tree<T>[] nodes;
+    private int[] parents;
+    private int[] jumps;
+    private int[] depths;
+    // the last pre-order number in the subtree, for the nodes numbered by the last rebuild
+    private int[] subtreeEnds;
+    private int numbered;
+    private int size;
+
+    private AncestryIndex(Tree<T> root) {
+        this.root = root;
+        rebuild();
+    }
+
+    /**
+     * Indexes the subtree of the given node, which is the root for the queries.
+     */
+    public static <T> AncestryIndex<T> of(Tree<T> root) {
+        return new AncestryIndex<>(root);
+    }
+
+    /**
+     * Renumbers every node under the root in one pre-order pass.
+     */
+    public void rebuild() {
+        ids.clear();
+        size = 0;
+        nodes = new Tree[16];
+        parents = new int[16];
+        jumps = new int[16];
+        depths = new int[16];
+
+        // the pending nodes with the number of their parent, the children list is followed rather than getParent
+        ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+        int[] pendingParents = new int[16];
+        pending.push(root);
+        pendingParents[0] = -1;
+        while (!pending.isEmpty()) {
+            Tree<T> node = pending.pop();
+            int id = size;
+            add(node, pendingParents[pending.size()]);
+            List<Tree<T>> children = node.getChildNodes();
+            if (pending.size() + children.size() > pendingParents.length) {
+                pendingParents = Arrays.copyOf(pendingParents, Math.max(pendingParents.length * 2, pending.size() + children.size()));
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pendingParents[pending.size()] = id;
+                pending.push(children.get(i));
+            }
+        }
+
+        numbered = size;
+        subtreeEnds = new int[numbered];
+        for (int id = numbered - 1; id >= 0; id--) {
+            subtreeEnds[id] = Math.max(subtreeEnds[id], id);
+            if (id > 0) subtreeEnds[parents[id]] = Math.max(subtreeEnds[parents[id]], subtreeEnds[id]);
+        }
+    }
+
+    /**
+     * Adds a leaf inserted into the tree after the index was built, its parent must already be indexed.
+     */
+    public void addLeaf(Tree<T> leaf) {
+        if (ids.containsKey(leaf)) return;
+        Tree<T> parent = leaf.getParent().orElseThrow(() -> new IllegalArgumentException(String.format("'%s' has no parent", leaf.getData())));
+        add(leaf, id(parent));
+    }
+
+    private void add(Tree<T> node, int parent) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            parents = Arrays.copyOf(parents, size * 2);
+            jumps = Arrays.copyOf(jumps, size * 2);
+            depths = Arrays.copyOf(depths, size * 2);
+        }
+        int id = size++;
+        ids.put(node, id);
+        nodes[id] = node;
+        if (parent < 0) {
+            parents[id] = id;
+            jumps[id] = id;
+            depths[id] = 0;
+            return;
+        }
+        parents[id] = parent;
+        depths[id] = depths[parent] + 1;
+        int parentJump = jumps[parent];
+        boolean equalSteps = depths[parent] - depths[parentJump] == depths[parentJump] - depths[jumps[parentJump]];
+        jumps[id] = equalSteps ? jumps[parentJump] : parent;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int depth(Tree<T> node) {
+        return depths[id(node)];
+    }
+
+    /**
+     * Whether the first node is a proper ancestor of the second, a node is not an ancestor of itself.
+     */
+    public boolean isAncestor(Tree<T> ancestor, Tree<T> node) {
+        int ancestorId = id(ancestor);
+        int nodeId = id(node);
+        if (ancestorId == nodeId) return false;
+        if (ancestorId < numbered && nodeId < numbered) {
+            return ancestorId < nodeId && nodeId <= subtreeEnds[ancestorId];
+        }
+        return depths[ancestorId] < depths[nodeId] && ancestorAtDepth(nodeId, depths[ancestorId]) == ancestorId;
+    }
+
+    /**
+     * The ancestor k levels above the node, the node itself for 0, empty if the node is less than k deep.
+     */
+    public Optional<Tree<T>> ancestor(Tree<T> node, int k) {
+        if (k < 0) throw new IllegalArgumentException(String.format("Negative ancestor level %d", k));
+        int id = id(node);
+        if (k > depths[id]) return Optional.empty();
+        return Optional.of(nodes[ancestorAtDepth(id, depths[id] - k)]);
+    }
+
+    public Tree<T> lowestCommonAncestor(Tree<T> first, Tree<T> second) {
+        int a = id(first);
+        int b = id(second);
+        if (a < numbered && b < numbered) {
+            if (a <= b && b <= subtreeEnds[a]) return first;
+            if (b <= a && a <= subtreeEnds[b]) return second;
+        }
+        if (depths[a] > depths[b]) a = ancestorAtDepth(a, depths[b]);
+        else if (depths[b] > depths[a]) b = ancestorAtDepth(b, depths[a]);
+        // the jump of a node depends only on its depth, so nodes on the same depth jump to the same depth
+        while (a != b) {
+            if (jumps[a] != jumps[b]) {
+                a = jumps[a];
+                b = jumps[b];
+            } else {
+                a = parents[a];
+                b = parents[b];
+            }
+        }
+        return nodes[a];
+    }
+
+    private int ancestorAtDepth(int id, int depth) {
+        while (depths[id] > depth) {
+            id = depths[jumps[id]] >= depth ? jumps[id] : parents[id];
+        }
+        return id;
+    }
+
+    private int id(Tree<T> node) {
+        Integer id = ids.get(node);
+        if (id == null) throw new IllegalArgumentException(String.format("'%s' is not indexed", node.getData()));
+        return id;
+    }
+}
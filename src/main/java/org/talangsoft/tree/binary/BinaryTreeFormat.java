@@ -0,0 +1,24 @@
+package org.talangsoft.tree.binary;
+
+/**
+ * Layout of the binary tree file, all numbers are big-endian.
+ * <pre>
+ * header:          magic (int), version (int), node count (int), payload length (int), CRC32 of the rest of the file (long)
+ * subtree sizes:   node count ints, the nodes in pre-order
+ * parent offsets:  node count ints, the distance back to the parent in pre-order, 0 for the root
+ * payloads:        payload length bytes, the encoded elements in pre-order
+ * payload offsets: node count + 1 ints, where the payload of each node starts, the last one is the payload length
+ * </pre>
+ */
+final class BinaryTreeFormat {
+    static final int MAGIC = 0x54524545; // "TREE"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 4 * Integer.BYTES + Long.BYTES;
+
+    private BinaryTreeFormat() {
+    }
+
+    static long fileLength(int nodeCount, int payloadLength) {
+        return HEADER_BYTES + 3L * nodeCount * Integer.BYTES + payloadLength + Integer.BYTES;
+    }
+}
@@ -0,0 +1,76 @@
+package org.talangsoft.tree.binary;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Opens binary tree files written by {@link BinaryTreeWriter}, see {@link BinaryTreeFormat} for the layout.
+ */
+public class BinaryTreeReader {
+    /**
+     * Maps the file and checks its header. Nothing else is read, so opening costs the same for any file size.
+     */
+    public static <T> MappedTree<T> open(Path path, PayloadCodec<T> codec) throws IOException {
+        return open(path, codec, false);
+    }
+
+    /**
+     * Maps the file and checks its header, when asked, also compares the whole content with its checksum.
+     *
+     * @throws CorruptTreeFileException if the file is not a binary tree file of the supported version, it is truncated
+     *                                  or it does not match its checksum
+     */
+    public static <T> MappedTree<T> open(Path path, PayloadCodec<T> codec, boolean verifyChecksum) throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < BinaryTreeFormat.HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+                throw new CorruptTreeFileException(String.format("'%s' is not a binary tree file, its size is %d bytes", path, channel.size()));
+            }
+            // the mapping stays valid after the channel is closed
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        int magic = file.getInt();
+        int version = file.getInt();
+        int nodeCount = file.getInt();
+        int payloadLength = file.getInt();
+        long checksum = file.getLong();
+        if (magic != BinaryTreeFormat.MAGIC) {
+            throw new CorruptTreeFileException(String.format("'%s' is not a binary tree file", path));
+        }
+        if (version != BinaryTreeFormat.VERSION) {
+            throw new CorruptTreeFileException(String.format("'%s' is version %d, only version %d is supported", path, version, BinaryTreeFormat.VERSION));
+        }
+        if (nodeCount <= 0 || payloadLength < 0 || BinaryTreeFormat.fileLength(nodeCount, payloadLength) != file.capacity()) {
+            throw new CorruptTreeFileException(String.format("'%s' is truncated or has an invalid header", path));
+        }
+        if (verifyChecksum) {
+            CRC32 actualChecksum = new CRC32();
+            actualChecksum.update(file.duplicate());
+            if (actualChecksum.getValue() != checksum) {
+                throw new CorruptTreeFileException(String.format("'%s' does not match its checksum", path));
+            }
+        }
+
+        int structureBytes = nodeCount * Integer.BYTES;
+        IntBuffer subtreeSizes = section(file, BinaryTreeFormat.HEADER_BYTES, structureBytes).asIntBuffer();
+        IntBuffer parentOffsets = section(file, BinaryTreeFormat.HEADER_BYTES + structureBytes, structureBytes).asIntBuffer();
+        ByteBuffer payloads = section(file, BinaryTreeFormat.HEADER_BYTES + 2 * structureBytes, payloadLength);
+        IntBuffer payloadOffsets = section(file, BinaryTreeFormat.HEADER_BYTES + 2 * structureBytes + payloadLength, structureBytes + Integer.BYTES).asIntBuffer();
+        return new MappedTree<>(nodeCount, subtreeSizes, parentOffsets, payloads, payloadOffsets, codec);
+    }
+
+    private static ByteBuffer section(ByteBuffer file, int offset, int length) {
+        ByteBuffer section = file.duplicate();
+        // cast to Buffer, the ByteBuffer overrides of position and limit only exist since JDK 9
+        ((Buffer) section).position(offset).limit(offset + length);
+        return section.slice();
+    }
+}
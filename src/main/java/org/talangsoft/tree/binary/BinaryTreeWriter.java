@@ -0,0 +1,64 @@
+package org.talangsoft.tree.binary;
+
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.compact.CompactTree;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Writes a tree in the binary tree format, see {@link BinaryTreeFormat} for the layout.
+ */
+public class BinaryTreeWriter {
+    public static <T> void write(Tree<T> tree, PayloadCodec<T> codec, Path path) throws IOException {
+        CompactTree<T> compact = CompactTree.freeze(tree);
+        int nodeCount = compact.size();
+        int[] payloadOffsets = new int[nodeCount + 1];
+        CRC32 checksum = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(BinaryTreeFormat.HEADER_BYTES);
+            // the channel is closed by the outer try, flushing is enough here
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 1 << 16));
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeInt(compact.subtreeSize(node));
+            }
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeInt(node == compact.root() ? 0 : node - compact.parent(node));
+            }
+            long payloadLength = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                byte[] payload = codec.encode(compact.element(node));
+                out.write(payload);
+                payloadLength += payload.length;
+                if (payloadLength > Integer.MAX_VALUE) {
+                    throw new IOException("Payloads larger than 2GB are not supported");
+                }
+                payloadOffsets[node + 1] = (int) payloadLength;
+            }
+            for (int payloadOffset : payloadOffsets) {
+                out.writeInt(payloadOffset);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(BinaryTreeFormat.HEADER_BYTES)
+                    .putInt(BinaryTreeFormat.MAGIC)
+                    .putInt(BinaryTreeFormat.VERSION)
+                    .putInt(nodeCount)
+                    .putInt(payloadOffsets[nodeCount])
+                    .putLong(checksum.getValue());
+            ((Buffer) header).flip();
+            channel.position(0);
+            while (header.hasRemaining()) channel.write(header);
+        }
+    }
+}
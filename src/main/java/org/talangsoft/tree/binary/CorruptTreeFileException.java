@@ -0,0 +1,13 @@
+package org.talangsoft.tree.binary;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a file is not a binary tree file of the supported version, or its content does not match its checksum.
+ */
+public class CorruptTreeFileException extends IOException {
+
+    public CorruptTreeFileException(String message) {
+        super(message);
+    }
+}
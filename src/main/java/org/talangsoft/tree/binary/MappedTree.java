@@ -0,0 +1,109 @@
+package org.talangsoft.tree.binary;
+
+import org.talangsoft.tree.Tree;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Read-only tree over a memory mapped binary tree file. Nodes are identified by their pre-order position like in
+ * {@link org.talangsoft.tree.compact.CompactTree}, the structure is read from the mapping on access
+ * and elements are decoded only when they are asked for. Safe to use from multiple threads.
+ */
+public final class MappedTree<T> {
+    public static final int NONE = -1;
+
+    private final int size;
+    private final IntBuffer subtreeSizes;
+    private final IntBuffer parentOffsets;
+    private final ByteBuffer payloads;
+    private final IntBuffer payloadOffsets;
+    private final PayloadCodec<T> codec;
+
+    MappedTree(int size, IntBuffer subtreeSizes, IntBuffer parentOffsets, ByteBuffer payloads, IntBuffer payloadOffsets, PayloadCodec<T> codec) {
+        this.size = size;
+        this.subtreeSizes = subtreeSizes;
+        this.parentOffsets = parentOffsets;
+        this.payloads = payloads;
+        this.payloadOffsets = payloadOffsets;
+        this.codec = codec;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int root() {
+        return 0;
+    }
+
+    public T element(int node) {
+        ByteBuffer payload = payloads.duplicate();
+        ((Buffer) payload).limit(payloadOffsets.get(node + 1)).position(payloadOffsets.get(node));
+        return codec.decode(payload.slice());
+    }
+
+    public int parent(int node) {
+        int parentOffset = parentOffsets.get(node);
+        return parentOffset == 0 ? NONE : node - parentOffset;
+    }
+
+    public int subtreeSize(int node) {
+        return subtreeSizes.get(node);
+    }
+
+    public int firstChild(int node) {
+        return subtreeSizes.get(node) > 1 ? node + 1 : NONE;
+    }
+
+    public int nextSibling(int node) {
+        int parent = parent(node);
+        int next = node + subtreeSizes.get(node);
+        return parent != NONE && next < parent + subtreeSizes.get(parent) ? next : NONE;
+    }
+
+    public int[] children(int node) {
+        IntStream.Builder children = IntStream.builder();
+        for (int child = firstChild(node); child != NONE; child = nextSibling(child)) children.add(child);
+        return children.build().toArray();
+    }
+
+    public boolean isLeaf(int node) {
+        return subtreeSizes.get(node) == 1;
+    }
+
+    /**
+     * First node in pre-order holding the element, every element is decoded until it is found.
+     */
+    public OptionalInt lookup(T element) {
+        return preOrder().filter(node -> element(node).equals(element)).findFirst();
+    }
+
+    public IntStream preOrder() {
+        return IntStream.range(0, size);
+    }
+
+    public IntStream subtree(int node) {
+        return IntStream.range(node, node + subtreeSize(node));
+    }
+
+    public Stream<T> elements() {
+        return preOrder().mapToObj(this::element);
+    }
+
+    /**
+     * Decodes the whole file into a mutable tree.
+     */
+    public Tree<T> toTree() {
+        Tree<T>[] nodes = new Tree[size];
+        for (int node = 0; node < size; node++) {
+            nodes[node] = new Tree<>(element(node));
+            if (parent(node) != NONE) nodes[parent(node)].insert(nodes[node]);
+        }
+        return nodes[0];
+    }
+}
@@ -0,0 +1,16 @@
+package org.talangsoft.tree.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts the elements of a tree to the bytes stored in the binary tree format and back.
+ */
+public interface PayloadCodec<T> {
+
+    byte[] encode(T element);
+
+    /**
+     * Decodes an element from the remaining bytes of the buffer.
+     */
+    T decode(ByteBuffer payload);
+}
@@ -0,0 +1,52 @@
+package org.talangsoft.tree.binary;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public final class PayloadCodecs {
+
+    private PayloadCodecs() {
+    }
+
+    public static PayloadCodec<String> strings() {
+        return new PayloadCodec<String>() {
+            @Override
+            public byte[] encode(String element) {
+                return element.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(ByteBuffer payload) {
+                return StandardCharsets.UTF_8.decode(payload).toString();
+            }
+        };
+    }
+
+    public static PayloadCodec<Long> longs() {
+        return new PayloadCodec<Long>() {
+            @Override
+            public byte[] encode(Long element) {
+                return ByteBuffer.allocate(Long.BYTES).putLong(element).array();
+            }
+
+            @Override
+            public Long decode(ByteBuffer payload) {
+                return payload.getLong();
+            }
+        };
+    }
+
+    public static PayloadCodec<Integer> integers() {
+        return new PayloadCodec<Integer>() {
+            @Override
+            public byte[] encode(Integer element) {
+                return ByteBuffer.allocate(Integer.BYTES).putInt(element).array();
+            }
+
+            @Override
+            public Integer decode(ByteBuffer payload) {
+                return payload.getInt();
+            }
+        };
+    }
+}
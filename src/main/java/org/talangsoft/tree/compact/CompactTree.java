@@ -0,0 +1,175 @@
+package org.talangsoft.tree.compact;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Immutable snapshot of a tree with the structure in primitive arrays.
+ * Nodes are identified by their pre-order position, the root is 0 and the subtree of a node
+ * is the range from the node to the node plus its subtree size.
+ * <p>
+ * A node costs four ints and one payload reference, instead of a Tree, its Optional parent and its child list.
+ */
+public final class CompactTree<T> {
+    public static final int NONE = -1;
+
+    private final int[] parents;
+    private final int[] firstChildren;
+    private final int[] nextSiblings;
+    private final int[] subtreeSizes;
+    private final Object[] elements;
+
+    private CompactTree(int[] parents, int[] subtreeSizes, Object[] elements) {
+        this.parents = parents;
+        this.subtreeSizes = subtreeSizes;
+        this.elements = elements;
+        this.firstChildren = new int[elements.length];
+        this.nextSiblings = new int[elements.length];
+        for (int node = 0; node < elements.length; node++) {
+            int subtreeEnd = node + subtreeSizes[node];
+            firstChildren[node] = subtreeSizes[node] > 1 ? node + 1 : NONE;
+            int parent = parents[node];
+            nextSiblings[node] = parent != NONE && subtreeEnd < parent + subtreeSizes[parent] ? subtreeEnd : NONE;
+        }
+    }
+
+    /**
+     * Snapshot of the subtree of the given node, which becomes the root of the snapshot.
+     */
+    public static <T> CompactTree<T> freeze(Tree<T> tree) {
+        int size = (int) tree.nodes(Traversal.PRE_ORDER).count();
+        int[] parents = new int[size];
+        int[] subtreeSizes = new int[size];
+        Object[] elements = new Object[size];
+
+        // the nodes still to visit in pre-order with the index of their parent, the parent links of the tree
+        // are not used, trees built with the child list constructors leave them empty
+        Tree<T>[] pending = new Tree[16];
+        int[] pendingParents = new int[16];
+        pending[0] = tree;
+        pendingParents[0] = NONE;
+        int pendingCount = 1;
+
+        for (int index = 0; index < size; index++) {
+            Tree<T> node = pending[--pendingCount];
+            pending[pendingCount] = null;
+            parents[index] = pendingParents[pendingCount];
+            elements[index] = node.getData();
+
+            List<Tree<T>> children = node.getChildNodes();
+            if (pendingCount + children.size() > pending.length) {
+                int length = Math.max(pending.length * 2, pendingCount + children.size());
+                pending = Arrays.copyOf(pending, length);
+                pendingParents = Arrays.copyOf(pendingParents, length);
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending[pendingCount] = children.get(i);
+                pendingParents[pendingCount] = index;
+                pendingCount++;
+            }
+        }
+
+        // children come after their parent in pre-order, so sizes can be summed up backwards
+        for (int index = size - 1; index >= 0; index--) {
+            subtreeSizes[index]++;
+            if (parents[index] != NONE) subtreeSizes[parents[index]] += subtreeSizes[index];
+        }
+        return new CompactTree<>(parents, subtreeSizes, elements);
+    }
+
+    public int size() {
+        return elements.length;
+    }
+
+    public int root() {
+        return 0;
+    }
+
+    public T element(int node) {
+        return (T) elements[node];
+    }
+
+    public int parent(int node) {
+        return parents[node];
+    }
+
+    public int firstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int nextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int subtreeSize(int node) {
+        return subtreeSizes[node];
+    }
+
+    public boolean isLeaf(int node) {
+        return subtreeSizes[node] == 1;
+    }
+
+    public int[] children(int node) {
+        int count = 0;
+        for (int child = firstChildren[node]; child != NONE; child = nextSiblings[child]) count++;
+        int[] children = new int[count];
+        for (int child = firstChildren[node], i = 0; child != NONE; child = nextSiblings[child], i++) children[i] = child;
+        return children;
+    }
+
+    /**
+     * True if the first node is the second one or one of its ancestors, answered from the pre-order ranges.
+     */
+    public boolean isAncestorOf(int ancestor, int node) {
+        return ancestor <= node && node < ancestor + subtreeSizes[ancestor];
+    }
+
+    /**
+     * First node in pre-order holding the element, same as {@link Tree#lookup(Object)} on the source tree.
+     */
+    public OptionalInt lookup(T element) {
+        for (int node = 0; node < elements.length; node++) {
+            if (elements[node].equals(element)) return OptionalInt.of(node);
+        }
+        return OptionalInt.empty();
+    }
+
+    public IntStream preOrder() {
+        return IntStream.range(0, elements.length);
+    }
+
+    public IntStream subtree(int node) {
+        return IntStream.range(node, node + subtreeSizes[node]);
+    }
+
+    public IntStream leaves() {
+        return preOrder().filter(this::isLeaf);
+    }
+
+    public Stream<T> elements() {
+        return preOrder().mapToObj(this::element);
+    }
+
+    public List<T> allElements() {
+        return elements().collect(Collectors.toList());
+    }
+
+    /**
+     * Mutable copy of the snapshot.
+     */
+    public Tree<T> toTree() {
+        Tree<T>[] nodes = new Tree[elements.length];
+        for (int node = 0; node < elements.length; node++) {
+            nodes[node] = new Tree<>(element(node));
+            if (parents[node] != NONE) nodes[parents[node]].insert(nodes[node]);
+        }
+        return nodes[0];
+    }
+}
@@ -0,0 +1,427 @@
+package org.talangsoft.tree.concurrent;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A tree that can be read and modified by many threads at the same time.
+ * <p>
+ * The children of a node are guarded by one of a fixed set of {@link StampedLock}s shared by the nodes of the tree,
+ * picked at random when the node is created. Writers lock only the stripes of the parents they change,
+ * readers copy the children under an optimistic read and retry under a read lock only if a writer interfered.
+ * <p>
+ * A node is a child of its parent whenever the parent is read through {@link #getParent()},
+ * and it is in the children of exactly one node at any time, {@link #move} changes both sides atomically.
+ * A move also read locks the stripes of the ancestors of the new parent, so they cannot be moved under the node
+ * meanwhile and two concurrent moves cannot build a cycle, while moves in the same tree still run in parallel.
+ * <p>
+ * Traversals are weakly consistent: every node's children are a snapshot taken when the traversal reaches it,
+ * nodes attached or detached meanwhile may or may not be visited.
+ */
+public class ConcurrentTree<T> {
+    private static final ConcurrentTree[] NO_CHILDREN = new ConcurrentTree[0];
+
+    private final T data;
+    private final Structure structure;
+    private final int stripe;
+    // guards the children of this node and the parent field of the children, and this node's own when it has no parent
+    private final StampedLock lock;
+    private volatile ConcurrentTree<T> parent;
+    private ConcurrentTree<T>[] children = NO_CHILDREN;
+    private int childCount;
+
+    public ConcurrentTree(T data) {
+        this(data, null, new Structure());
+    }
+
+    private ConcurrentTree(T data, ConcurrentTree<T> parent, Structure structure) {
+        this.data = data;
+        this.parent = parent;
+        this.structure = structure;
+        this.stripe = structure.randomStripe();
+        this.lock = structure.stripes[stripe];
+    }
+
+    /**
+     * Copies the tree, the copy is a separate concurrent tree.
+     */
+    public static <T> ConcurrentTree<T> of(Tree<T> tree) {
+        ConcurrentTree<T> root = new ConcurrentTree<>(tree.getData());
+        ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+        ArrayDeque<ConcurrentTree<T>> copies = new ArrayDeque<>();
+        pending.push(tree);
+        copies.push(root);
+        while (!pending.isEmpty()) {
+            Tree<T> node = pending.pop();
+            ConcurrentTree<T> copy = copies.pop();
+            for (Tree<T> child : node.getChildNodes()) {
+                pending.push(child);
+                copies.push(copy.insertNode(child.getData()));
+            }
+        }
+        return root;
+    }
+
+    /**
+     * Copies this subtree into a plain tree, the copy is a weakly consistent snapshot like a traversal.
+     */
+    public Tree<T> toTree() {
+        Tree<T> root = new Tree<>(data);
+        ArrayDeque<ConcurrentTree<T>> pending = new ArrayDeque<>();
+        ArrayDeque<Tree<T>> copies = new ArrayDeque<>();
+        pending.push(this);
+        copies.push(root);
+        while (!pending.isEmpty()) {
+            ConcurrentTree<T> node = pending.pop();
+            Tree<T> copy = copies.pop();
+            for (ConcurrentTree<T> child : node.childArray()) {
+                copy.insert(child.data);
+                List<Tree<T>> copiedChildren = copy.getChildNodes();
+                pending.push(child);
+                copies.push(copiedChildren.get(copiedChildren.size() - 1));
+            }
+        }
+        return root;
+    }
+
+    public ConcurrentTree<T> insert(T child) {
+        insertNode(child);
+        return this;
+    }
+
+    /**
+     * Same as {@link #insert(Object)}, but it returns the new node.
+     */
+    public ConcurrentTree<T> insertNode(T child) {
+        ConcurrentTree<T> childNode = new ConcurrentTree<>(child, this, structure);
+        long stamp = lock.writeLock();
+        try {
+            append(childNode);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        return childNode;
+    }
+
+    /**
+     * Removes the child with its subtree, the removed node becomes the root of a separate subtree
+     * that can be moved back into the tree.
+     */
+    public boolean remove(ConcurrentTree<T> child) {
+        long stamp = lock.writeLock();
+        try {
+            if (child.parent != this) return false;
+            detach(child);
+            child.parent = null;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Moves the node with its subtree to the end of the children of the new parent, atomically:
+     * no reader sees the node under both parents or under none.
+     *
+     * @throws IllegalArgumentException if the new parent is in the subtree of the node, or they belong to different trees
+     */
+    public static <T> void move(ConcurrentTree<T> node, ConcurrentTree<T> newParent) {
+        if (node.structure != newParent.structure) {
+            throw new IllegalArgumentException(String.format("Cannot move '%s' under '%s' of a different tree", node.data, newParent.data));
+        }
+        while (!tryMove(node, newParent)) {
+            // the node or an ancestor of the new parent was moved before the locks were taken, try again with the new state
+        }
+    }
+
+    /**
+     * Write locks the stripes of the node, its parent and the new parent, read locks the stripes of the ancestors
+     * of the new parent. A node's parent only changes under a write lock on the stripe of its parent, or of the node
+     * itself when it has none, so the ancestors of the new parent stay put until the locks are released
+     * and the cycle check holds. Inserts and removes hold a single stripe, and moves take theirs in stripe order,
+     * so the locking is deadlock free.
+     */
+    private static <T> boolean tryMove(ConcurrentTree<T> node, ConcurrentTree<T> newParent) {
+        ConcurrentTree<T> oldParent = node.parent;
+        byte[] modes = new byte[Structure.STRIPES];
+        modes[node.stripe] = Structure.WRITE;
+        modes[newParent.stripe] = Structure.WRITE;
+        if (oldParent != null) modes[oldParent.stripe] = Structure.WRITE;
+        for (ConcurrentTree<T> ancestor = newParent.parent; ancestor != null; ancestor = ancestor.parent) {
+            if (modes[ancestor.stripe] == 0) modes[ancestor.stripe] = Structure.READ;
+        }
+        long[] stamps = node.structure.lock(modes);
+        try {
+            if (node.parent != oldParent) return false;
+            for (ConcurrentTree<T> current = newParent; current != null; current = current.parent) {
+                if (modes[current.stripe] == 0) return false;
+                if (current == node) {
+                    throw new IllegalArgumentException(String.format("Cannot move '%s' into its own subtree under '%s'", node.data, newParent.data));
+                }
+            }
+            if (oldParent != null) oldParent.detach(node);
+            newParent.append(node);
+            node.parent = newParent;
+            return true;
+        } finally {
+            node.structure.unlock(modes, stamps);
+        }
+    }
+
+    // the callers hold the write lock of this node
+    private void append(ConcurrentTree<T> child) {
+        if (childCount == children.length) {
+            children = Arrays.copyOf(children, Math.max(4, childCount * 2));
+        }
+        children[childCount++] = child;
+    }
+
+    private void detach(ConcurrentTree<T> child) {
+        for (int i = 0; i < childCount; i++) {
+            if (children[i] == child) {
+                System.arraycopy(children, i + 1, children, i, childCount - i - 1);
+                children[--childCount] = null;
+                return;
+            }
+        }
+    }
+
+    private ConcurrentTree<T>[] childArray() {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            ConcurrentTree<T>[] array = children;
+            ConcurrentTree<T>[] snapshot = Arrays.copyOf(array, Math.min(childCount, array.length));
+            if (lock.validate(stamp)) return snapshot;
+        }
+        stamp = lock.readLock();
+        try {
+            return Arrays.copyOf(children, childCount);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public Optional<ConcurrentTree<T>> getParent() {
+        while (true) {
+            ConcurrentTree<T> current = parent;
+            if (current == null) return Optional.empty();
+            // the parent field only changes under the lock of the parent, so an unchanged field
+            // and a valid stamp mean the node was in the children of the parent at that moment
+            long stamp = current.lock.tryOptimisticRead();
+            if (stamp != 0 && parent == current && current.lock.validate(stamp)) return Optional.of(current);
+            stamp = current.lock.readLock();
+            try {
+                if (parent == current) return Optional.of(current);
+            } finally {
+                current.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    public Optional<T> getParentElement() {
+        return getParent().map(ConcurrentTree::getData);
+    }
+
+    public List<T> getChildren() {
+        return Arrays.stream(childArray()).map(ConcurrentTree::getData).collect(Collectors.toList());
+    }
+
+    public Optional<T> getFirstChild() {
+        ConcurrentTree<T>[] snapshot = childArray();
+        return snapshot.length == 0 ? Optional.empty() : Optional.of(snapshot[0].data);
+    }
+
+    /**
+     * Snapshot of the children, later changes are not reflected in it.
+     */
+    public List<ConcurrentTree<T>> getChildNodes() {
+        return Collections.unmodifiableList(Arrays.asList(childArray()));
+    }
+
+    public Optional<ConcurrentTree<T>> lookup(T elem) {
+        return nodes(Traversal.PRE_ORDER).filter(node -> node.data.equals(elem)).findFirst();
+    }
+
+    /**
+     * Lazy, weakly consistent stream of the nodes of this subtree, including this node.
+     * In post-order the children of a node are the snapshot taken when the traversal enters it.
+     */
+    public Stream<ConcurrentTree<T>> nodes(Traversal traversal) {
+        Iterator<ConcurrentTree<T>> nodes = traversal == Traversal.POST_ORDER ? new PostOrderNodes<>(this) : new Nodes<>(this, traversal);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(nodes, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    public Stream<T> elements(Traversal traversal) {
+        return nodes(traversal).map(ConcurrentTree::getData);
+    }
+
+    public List<T> allBottomLevelSuccessor() {
+        return elements(Traversal.LEAVES).collect(Collectors.toList());
+    }
+
+    public List<T> allElements() {
+        return elements(Traversal.PRE_ORDER).collect(Collectors.toList());
+    }
+
+    public List<ConcurrentTree<T>> allNodes() {
+        return nodes(Traversal.PRE_ORDER).collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrentTree[" + data + " -> " + getChildren() + "]";
+    }
+
+    /**
+     * State shared by the nodes of a tree.
+     */
+    private static final class Structure {
+        private static final int STRIPES = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 8 - 1) << 1;
+        private static final byte READ = 1;
+        private static final byte WRITE = 2;
+
+        private final StampedLock[] stripes = new StampedLock[STRIPES];
+
+        Structure() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new StampedLock();
+            }
+        }
+
+        int randomStripe() {
+            return ThreadLocalRandom.current().nextInt(STRIPES);
+        }
+
+        /**
+         * Locks the stripes in index order, each in the given mode, and returns the stamps.
+         */
+        long[] lock(byte[] modes) {
+            long[] stamps = new long[STRIPES];
+            for (int i = 0; i < STRIPES; i++) {
+                if (modes[i] == WRITE) stamps[i] = stripes[i].writeLock();
+                else if (modes[i] == READ) stamps[i] = stripes[i].readLock();
+            }
+            return stamps;
+        }
+
+        void unlock(byte[] modes, long[] stamps) {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                if (modes[i] == WRITE) stripes[i].unlockWrite(stamps[i]);
+                else if (modes[i] == READ) stripes[i].unlockRead(stamps[i]);
+            }
+        }
+    }
+
+    /**
+     * Pre-order, breadth first and leaves traversal over child snapshots.
+     */
+    private static final class Nodes<T> implements Iterator<ConcurrentTree<T>> {
+        private final ArrayDeque<ConcurrentTree<T>> pending = new ArrayDeque<>();
+        private final Traversal traversal;
+        private ConcurrentTree<T> next;
+
+        Nodes(ConcurrentTree<T> root, Traversal traversal) {
+            this.traversal = traversal;
+            pending.add(root);
+            advance();
+        }
+
+        private void advance() {
+            next = null;
+            while (next == null && !pending.isEmpty()) {
+                ConcurrentTree<T> node = traversal == Traversal.BREADTH_FIRST ? pending.pollFirst() : pending.pop();
+                ConcurrentTree<T>[] children = node.childArray();
+                if (traversal == Traversal.BREADTH_FIRST) {
+                    pending.addAll(Arrays.asList(children));
+                } else {
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        pending.push(children[i]);
+                    }
+                }
+                if (traversal != Traversal.LEAVES || children.length == 0) next = node;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ConcurrentTree<T> next() {
+            if (next == null) throw new NoSuchElementException();
+            ConcurrentTree<T> current = next;
+            advance();
+            return current;
+        }
+    }
+
+    /**
+     * Post-order traversal over child snapshots, keeping the path from the root with the snapshots taken along it.
+     */
+    private static final class PostOrderNodes<T> implements Iterator<ConcurrentTree<T>> {
+        private ConcurrentTree<T>[] path = new ConcurrentTree[16];
+        private ConcurrentTree<T>[][] childSnapshots = new ConcurrentTree[16][];
+        private int[] nextChildIndexes = new int[16];
+        private int depth;
+
+        PostOrderNodes(ConcurrentTree<T> root) {
+            push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public ConcurrentTree<T> next() {
+            if (depth == 0) throw new NoSuchElementException();
+            while (true) {
+                ConcurrentTree<T>[] children = childSnapshots[depth - 1];
+                int nextChildIndex = nextChildIndexes[depth - 1];
+                if (nextChildIndex < children.length) {
+                    nextChildIndexes[depth - 1]++;
+                    push(children[nextChildIndex]);
+                } else {
+                    ConcurrentTree<T> node = path[--depth];
+                    path[depth] = null;
+                    childSnapshots[depth] = null;
+                    return node;
+                }
+            }
+        }
+
+        private void push(ConcurrentTree<T> node) {
+            if (depth == path.length) {
+                path = Arrays.copyOf(path, depth * 2);
+                childSnapshots = Arrays.copyOf(childSnapshots, depth * 2);
+                nextChildIndexes = Arrays.copyOf(nextChildIndexes, depth * 2);
+            }
+            path[depth] = node;
+            childSnapshots[depth] = node.childArray();
+            nextChildIndexes[depth] = 0;
+            depth++;
+        }
+    }
+}
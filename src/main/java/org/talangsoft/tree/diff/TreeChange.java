@@ -0,0 +1,78 @@
+package org.talangsoft.tree.diff;
+
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A single edge change between two versions of a tree of unique elements.
+ * <ul>
+ * <li>ADD: the child of the pair is new, it is inserted under the parent</li>
+ * <li>REMOVE: the child of the pair is removed from the parent together with its subtree</li>
+ * <li>MOVE: the child of the pair is moved with its subtree from the previous parent under the parent</li>
+ * </ul>
+ */
+public class TreeChange<T> {
+    public enum Type {
+        ADD, REMOVE, MOVE
+    }
+
+    private final Type type;
+    private final ParentChildPair<T> pair;
+    private final T previousParent;
+
+    private TreeChange(Type type, ParentChildPair<T> pair, T previousParent) {
+        this.type = type;
+        this.pair = pair;
+        this.previousParent = previousParent;
+    }
+
+    public static <T> TreeChange<T> added(T parent, T child) {
+        return new TreeChange<>(Type.ADD, new ParentChildPair<>(parent, child), null);
+    }
+
+    public static <T> TreeChange<T> removed(T parent, T child) {
+        return new TreeChange<>(Type.REMOVE, new ParentChildPair<>(parent, child), null);
+    }
+
+    public static <T> TreeChange<T> moved(T previousParent, T parent, T child) {
+        return new TreeChange<>(Type.MOVE, new ParentChildPair<>(parent, child), previousParent);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * The added edge for ADD and MOVE, the removed edge for REMOVE.
+     */
+    public ParentChildPair<T> getPair() {
+        return pair;
+    }
+
+    /**
+     * The parent before the change, present for MOVE only.
+     */
+    public Optional<T> getPreviousParent() {
+        return Optional.ofNullable(previousParent);
+    }
+
+    @Override
+    public String toString() {
+        return "TreeChange{" + type + " " + (previousParent != null ? previousParent + " => " : "") + pair.getParent() + " -> " + pair.getChild() + '}';
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TreeChange<?> that = (TreeChange<?>) o;
+        return type == that.type && pair.equals(that.pair) && Objects.equals(previousParent, that.previousParent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, pair, previousParent);
+    }
+}
@@ -0,0 +1,154 @@
+package org.talangsoft.tree.diff;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Computes the edge changes between two versions of a tree of unique elements and applies them to a tree in place.
+ * <p>
+ * The delta is minimal: one ADD per new element, one MOVE per element with a different parent,
+ * and one REMOVE per removed subtree. The order of siblings is not part of it.
+ * The changes are ordered so they can be applied one by one: additions and moves in the pre-order of the new tree,
+ * so every parent is in its final place before anything is attached to it, then the removals.
+ */
+public class TreeDiff {
+
+    /**
+     * The changes turning the old tree into the new one, in time linear in the size of the trees.
+     *
+     * @throws IllegalArgumentException if the roots differ or an element occurs more than once in a tree
+     */
+    public static <T> List<TreeChange<T>> diff(Tree<T> oldTree, Tree<T> newTree) {
+        if (!oldTree.getData().equals(newTree.getData())) {
+            throw new IllegalArgumentException(String.format("The roots differ: '%s' and '%s'", oldTree.getData(), newTree.getData()));
+        }
+        Map<T, T> oldParents = parents(oldTree);
+        Map<T, T> newParents = parents(newTree);
+
+        List<TreeChange<T>> changes = new ArrayList<>();
+        Iterator<Tree<T>> newNodes = newTree.nodeIterator(Traversal.PRE_ORDER);
+        newNodes.next();
+        while (newNodes.hasNext()) {
+            T element = newNodes.next().getData();
+            T newParent = newParents.get(element);
+            T oldParent = oldParents.get(element);
+            if (oldParent == null) {
+                changes.add(TreeChange.added(newParent, element));
+            } else if (!oldParent.equals(newParent)) {
+                changes.add(TreeChange.moved(oldParent, newParent, element));
+            }
+        }
+        Iterator<Tree<T>> oldNodes = oldTree.nodeIterator(Traversal.PRE_ORDER);
+        oldNodes.next();
+        while (oldNodes.hasNext()) {
+            T element = oldNodes.next().getData();
+            T oldParent = oldParents.get(element);
+            boolean parentKept = oldParent.equals(newTree.getData()) || newParents.containsKey(oldParent);
+            if (!newParents.containsKey(element) && parentKept) {
+                changes.add(TreeChange.removed(oldParent, element));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * The changes turning the tree into the one the direct parent-child pairs describe.
+     *
+     * @throws org.talangsoft.tree.exportimport.TreeBuildException if the pairs do not form a single tree
+     */
+    public static <T> List<TreeChange<T>> diff(Tree<T> tree, List<ParentChildPair<T>> newPairs) {
+        return diff(tree, TreeFromPairBuilder.buildFromParentChildPairs(newPairs));
+    }
+
+    /**
+     * Applies the changes to the tree in place, in order. The nodes are found through the index of an indexed tree,
+     * so the work is proportional to the number of changes, otherwise the tree is scanned once to map the elements.
+     *
+     * @throws IllegalStateException if a change does not fit the tree, the changes before it stay applied
+     */
+    public static <T> void apply(Tree<T> tree, List<TreeChange<T>> changes) {
+        Nodes<T> nodes = new Nodes<>(tree);
+        for (TreeChange<T> change : changes) {
+            T parent = change.getPair().getParent();
+            T child = change.getPair().getChild();
+            Tree<T> parentNode = nodes.get(parent).orElseThrow(() -> notApplicable(change, parent + " is not in the tree"));
+            switch (change.getType()) {
+                case ADD:
+                    if (nodes.get(child).isPresent()) throw notApplicable(change, child + " is already in the tree");
+                    parentNode.insert(child);
+                    List<Tree<T>> children = parentNode.getChildNodes();
+                    nodes.put(children.get(children.size() - 1));
+                    break;
+                case MOVE:
+                    Tree<T> moved = nodes.get(child).orElseThrow(() -> notApplicable(change, child + " is not in the tree"));
+                    if (!moved.getParentElement().equals(change.getPreviousParent())) throw notApplicable(change, child + " has a different parent");
+                    for (Optional<Tree<T>> ancestor = Optional.of(parentNode); ancestor.isPresent(); ancestor = ancestor.get().getParent()) {
+                        if (ancestor.get() == moved) throw notApplicable(change, parent + " is in the subtree of " + child);
+                    }
+                    parentNode.insert(moved);
+                    break;
+                case REMOVE:
+                    Tree<T> removed = nodes.get(child).orElseThrow(() -> notApplicable(change, child + " is not in the tree"));
+                    if (!parentNode.remove(removed)) throw notApplicable(change, child + " has a different parent");
+                    nodes.removeSubtree(removed);
+                    break;
+            }
+        }
+    }
+
+    private static <T> Map<T, T> parents(Tree<T> tree) {
+        Map<T, T> parents = new HashMap<>();
+        Iterator<Tree<T>> nodes = tree.nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            for (Tree<T> child : node.getChildNodes()) {
+                if (parents.put(child.getData(), node.getData()) != null || child.getData().equals(tree.getData())) {
+                    throw new IllegalArgumentException(String.format("'%s' occurs more than once in the tree", child.getData()));
+                }
+            }
+        }
+        return parents;
+    }
+
+    private static IllegalStateException notApplicable(TreeChange<?> change, String reason) {
+        return new IllegalStateException(String.format("%s cannot be applied, %s", change, reason));
+    }
+
+    /**
+     * Element to node lookup, through the index of an indexed tree or through a map built on first use.
+     */
+    private static final class Nodes<T> {
+        private final Tree<T> tree;
+        private Map<T, Tree<T>> nodesByElement;
+
+        Nodes(Tree<T> tree) {
+            this.tree = tree;
+        }
+
+        Optional<Tree<T>> get(T element) {
+            if (tree.isIndexed()) return tree.lookup(element);
+            if (nodesByElement == null) {
+                nodesByElement = new HashMap<>();
+                tree.nodes(Traversal.PRE_ORDER).forEach(this::put);
+            }
+            return Optional.ofNullable(nodesByElement.get(element));
+        }
+
+        void put(Tree<T> node) {
+            if (nodesByElement != null) nodesByElement.put(node.getData(), node);
+        }
+
+        void removeSubtree(Tree<T> subtree) {
+            if (nodesByElement != null) subtree.nodes(Traversal.PRE_ORDER).forEach(node -> nodesByElement.remove(node.getData()));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.talangsoft.tree.exportimport;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when the imported structure does not describe a single tree.
+ * The reason and the offending elements are available for reporting.
+ */
+public class TreeBuildException extends RuntimeException {
+
+    public enum Reason {
+        EMPTY_INPUT,
+        MISSING_ROOT,
+        MULTIPLE_ROOTS,
+        DUPLICATE_PARENT,
+        DUPLICATE_ID,
+        ORPHAN,
+        CYCLE
+    }
+
+    private final Reason reason;
+    private final List<Object> elements;
+
+    public TreeBuildException(Reason reason, String message, Object... elements) {
+        super(message);
+        this.reason = reason;
+        this.elements = Collections.unmodifiableList(Arrays.asList(elements));
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public List<Object> getElements() {
+        return elements;
+    }
+}
@@ -0,0 +1,295 @@
+package org.talangsoft.tree.exportimport.edgefile;
+
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.parentchildpair.PairTreeBuilder;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds a tree from a text file of edges, one parent and child pair per line separated by a delimiter:
+ * <pre>
+ * A,B
+ * A,C
+ * C,D
+ * </pre>
+ * The bytes are scanned for line breaks and delimiters in place, in memory-mapped windows of the file or in a buffer
+ * filled from a channel, and the keys are decoded from the bytes by a {@link KeyDecoder}. The edges go straight into
+ * a {@link PairTreeBuilder}, neither lines nor pairs are ever collected. Blank lines are skipped, spaces and tabs
+ * around the keys and carriage returns before the line breaks are ignored.
+ * <p>
+ * A line that cannot be parsed or does not fit into the tree, like a child with a second parent, is passed to the
+ * error handler and skipped if the handler returns. The default handler collects the errors and goes on, they are
+ * available from {@link #getErrors()} after the load. With {@link #failFast()} the first error ends the load instead.
+ */
+public class EdgeFileLoader<T> {
+    static final int MAPPED_WINDOW_BYTES = 64 << 20;
+    static final int CHANNEL_BUFFER_BYTES = 1 << 20;
+    // a file that is not an edge file at all would fail on every line, only the first errors are kept
+    static final int MAX_COLLECTED_ERRORS = 1000;
+
+    public interface ErrorHandler {
+        /**
+         * @param lineNumber the number of the line, counted from 1
+         * @param error      an IllegalArgumentException for lines that cannot be parsed, a {@link TreeBuildException}
+         *                   for edges that do not fit into the tree
+         */
+        void onError(long lineNumber, String line, RuntimeException error);
+    }
+
+    /**
+     * A line collected by the default error handler.
+     */
+    public static final class LineError {
+        private final long lineNumber;
+        private final String line;
+        private final RuntimeException error;
+
+        LineError(long lineNumber, String line, RuntimeException error) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getLine() {
+            return line;
+        }
+
+        public RuntimeException getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "LineError{" +
+                    "lineNumber=" + lineNumber +
+                    ", line='" + line + '\'' +
+                    ", error=" + error +
+                    '}';
+        }
+    }
+
+    public interface ProgressListener {
+        /**
+         * Called after every window or buffer of the input.
+         *
+         * @param totalBytes the size of the input, -1 when it is read from a channel
+         */
+        void onProgress(long bytesRead, long totalBytes, long edges);
+    }
+
+    private final KeyDecoder<T> decoder;
+    private byte delimiter = ',';
+    private final List<LineError> errors = new ArrayList<>();
+    private long errorCount;
+    private ErrorHandler errorHandler = (lineNumber, line, error) -> {
+        if (errors.size() < MAX_COLLECTED_ERRORS) errors.add(new LineError(lineNumber, line, error));
+        errorCount++;
+    };
+    private ProgressListener progressListener = (bytesRead, totalBytes, edges) -> {
+    };
+    private int mappedWindowBytes = MAPPED_WINDOW_BYTES;
+    private int channelBufferBytes = CHANNEL_BUFFER_BYTES;
+
+    public EdgeFileLoader(KeyDecoder<T> decoder) {
+        this.decoder = decoder;
+    }
+
+    public EdgeFileLoader<T> withDelimiter(char delimiter) {
+        if (delimiter > 127 || delimiter == '\n' || delimiter == '\r') {
+            throw new IllegalArgumentException(String.format("'%s' cannot be the delimiter, it has to be an ASCII character other than a line break", delimiter));
+        }
+        this.delimiter = (byte) delimiter;
+        return this;
+    }
+
+    /**
+     * Replaces the default handler collecting the errors, {@link #getErrors()} stays empty then.
+     */
+    public EdgeFileLoader<T> withErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+        return this;
+    }
+
+    /**
+     * Ends the load with the first line that cannot be parsed or does not fit into the tree, throwing its error.
+     */
+    public EdgeFileLoader<T> failFast() {
+        return withErrorHandler((lineNumber, line, error) -> {
+            throw error;
+        });
+    }
+
+    /**
+     * The lines of the last load collected by the default error handler, in order, the first
+     * {@value #MAX_COLLECTED_ERRORS} of them.
+     */
+    public List<LineError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * The number of lines of the last load collected by the default error handler, including the ones past
+     * the first {@value #MAX_COLLECTED_ERRORS}.
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public EdgeFileLoader<T> withProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    EdgeFileLoader<T> withBufferBytes(int bufferBytes) {
+        this.mappedWindowBytes = bufferBytes;
+        this.channelBufferBytes = bufferBytes;
+        return this;
+    }
+
+    /**
+     * Loads the file through memory-mapped windows. A window ends at the last line break in it,
+     * the next one starts right after, so lines are never split.
+     *
+     * @throws TreeBuildException if the edges do not form a single tree
+     */
+    public Tree<T> load(Path file) throws IOException {
+        Lines lines = new Lines();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            long window = mappedWindowBytes;
+            while (position < size) {
+                long length = Math.min(window, size - position);
+                boolean last = position + length == size;
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int consumed = lines.parse(buffer, last);
+                if (consumed == 0 && !last) {
+                    // a line longer than the window
+                    window = grow(window);
+                    continue;
+                }
+                position += consumed;
+                window = mappedWindowBytes;
+                progressListener.onProgress(position, size, lines.edges);
+            }
+        }
+        return lines.builder.build();
+    }
+
+    /**
+     * Loads the edges from a channel, like the standard input or a decompressing stream wrapped with
+     * {@link java.nio.channels.Channels#newChannel}. The channel is not closed.
+     *
+     * @throws TreeBuildException if the edges do not form a single tree
+     */
+    public Tree<T> load(ReadableByteChannel channel) throws IOException {
+        Lines lines = new Lines();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(channelBufferBytes);
+        long bytesRead = 0;
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            int read = channel.read(buffer);
+            endOfInput = read < 0;
+            if (read > 0) bytesRead += read;
+            // through Buffer, so the compiled calls also link on a Java 8 runtime
+            ((Buffer) buffer).flip();
+            ((Buffer) buffer).position(lines.parse(buffer, endOfInput));
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                // a line longer than the buffer
+                ((Buffer) buffer).flip();
+                buffer = ByteBuffer.allocateDirect((int) grow(buffer.capacity())).put(buffer);
+            }
+            progressListener.onProgress(bytesRead, -1, lines.edges);
+        }
+        return lines.builder.build();
+    }
+
+    private static long grow(long bytes) throws IOException {
+        if (bytes > Integer.MAX_VALUE / 2) throw new IOException("Line longer than 1 GB, the input is not an edge file");
+        return bytes * 2;
+    }
+
+    /**
+     * The state of a load: the tree built so far and the number of the lines and edges read.
+     */
+    private class Lines {
+        private final PairTreeBuilder<T> builder = new PairTreeBuilder<>();
+        private long lineNumber;
+        private long edges;
+
+        Lines() {
+            errors.clear();
+            errorCount = 0;
+        }
+
+        /**
+         * Parses the complete lines from the position of the buffer, at the end of the input the last line
+         * needs no line break. Returns the position after the last line parsed.
+         */
+        int parse(ByteBuffer buffer, boolean endOfInput) {
+            int lineStart = buffer.position();
+            int limit = buffer.limit();
+            for (int i = lineStart; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    parseLine(buffer, lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput && lineStart < limit) {
+                parseLine(buffer, lineStart, limit);
+                lineStart = limit;
+            }
+            return lineStart;
+        }
+
+        private void parseLine(ByteBuffer buffer, int start, int end) {
+            lineNumber++;
+            int lineEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+            int first = skipBlanks(buffer, start, lineEnd);
+            if (first == lineEnd) return;
+            try {
+                int separator = first;
+                while (separator < lineEnd && buffer.get(separator) != delimiter) separator++;
+                if (separator == lineEnd) {
+                    throw new IllegalArgumentException(String.format("Line %d has no delimiter", lineNumber));
+                }
+                T parent = decoder.decode(buffer, first, trimBlanks(buffer, first, separator));
+                int childStart = skipBlanks(buffer, separator + 1, lineEnd);
+                T child = decoder.decode(buffer, childStart, trimBlanks(buffer, childStart, lineEnd));
+                builder.add(parent, child);
+                edges++;
+            } catch (IllegalArgumentException | TreeBuildException e) {
+                errorHandler.onError(lineNumber, KeyDecoders.text(buffer, start, lineEnd), e);
+            }
+        }
+
+        private int skipBlanks(ByteBuffer buffer, int start, int end) {
+            while (start < end && isBlank(buffer.get(start))) start++;
+            return start;
+        }
+
+        private int trimBlanks(ByteBuffer buffer, int start, int end) {
+            while (end > start && isBlank(buffer.get(end - 1))) end--;
+            return end;
+        }
+
+        private boolean isBlank(byte character) {
+            return (character == ' ' || character == '\t') && character != delimiter;
+        }
+    }
+}
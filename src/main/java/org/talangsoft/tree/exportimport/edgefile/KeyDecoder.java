@@ -0,0 +1,17 @@
+package org.talangsoft.tree.exportimport.edgefile;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Turns the bytes of a key in an edge file into an element, without creating a string of the line first.
+ */
+public interface KeyDecoder<T> {
+
+    /**
+     * Decodes the key between the absolute positions start (inclusive) and end (exclusive) of the buffer,
+     * without moving the position of the buffer.
+     *
+     * @throws IllegalArgumentException if the bytes are not a valid key
+     */
+    T decode(ByteBuffer buffer, int start, int end);
+}
@@ -0,0 +1,59 @@
+package org.talangsoft.tree.exportimport.edgefile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public final class KeyDecoders {
+
+    private KeyDecoders() {
+    }
+
+    /**
+     * UTF-8 keys.
+     */
+    public static KeyDecoder<String> strings() {
+        return (buffer, start, end) -> text(buffer, start, end);
+    }
+
+    /**
+     * Decimal keys with an optional sign, parsed straight from the bytes.
+     */
+    public static KeyDecoder<Long> longs() {
+        return (buffer, start, end) -> {
+            boolean negative = end - start > 1 && buffer.get(start) == '-';
+            int first = negative ? start + 1 : start;
+            if (first == end) throw notANumber(buffer, start, end);
+            long value = 0;
+            for (int i = first; i < end; i++) {
+                int digit = buffer.get(i) - '0';
+                if (digit < 0 || digit > 9) throw notANumber(buffer, start, end);
+                // accumulated negatively, so Long.MIN_VALUE fits
+                if (value < (Long.MIN_VALUE + digit) / 10) throw notANumber(buffer, start, end);
+                value = value * 10 - digit;
+            }
+            if (!negative && value == Long.MIN_VALUE) throw notANumber(buffer, start, end);
+            return negative ? value : -value;
+        };
+    }
+
+    public static KeyDecoder<Integer> integers() {
+        KeyDecoder<Long> longs = longs();
+        return (buffer, start, end) -> {
+            long value = longs.decode(buffer, start, end);
+            if (value != (int) value) throw notANumber(buffer, start, end);
+            return (int) value;
+        };
+    }
+
+    static String text(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static IllegalArgumentException notANumber(ByteBuffer buffer, int start, int end) {
+        return new IllegalArgumentException(String.format("'%s' is not a valid numeric key", text(buffer, start, end)));
+    }
+}
@@ -0,0 +1,110 @@
+package org.talangsoft.tree.exportimport.parentchildpair;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Builds a tree from parent-child pairs added one at a time, so the pairs never have to be collected in a list.
+ * Nodes are found by hash, children are inserted in the order of their first pair and the root is the only node
+ * left without a parent.
+ * <p>
+ * A pair that does not fit is rejected before anything is changed, so a caller may report it and go on adding pairs.
+ */
+public class PairTreeBuilder<T> {
+    private final Map<T, Tree<T>> nodes = new HashMap<>();
+    private final Set<Tree<T>> nodesWithoutParent = new LinkedHashSet<>();
+    private T firstChild;
+
+    /**
+     * Inserts the child under the parent, a repeated pair is ignored.
+     *
+     * @throws TreeBuildException if the child is its own parent or it already has a different parent
+     */
+    public PairTreeBuilder<T> add(T parentData, T childData) {
+        if (parentData.equals(childData)) {
+            throw new TreeBuildException(Reason.CYCLE, String.format("'%s' is its own parent", childData), childData);
+        }
+        Tree<T> existingChild = nodes.get(childData);
+        if (existingChild != null && existingChild.getParent().isPresent()) {
+            T currentParent = existingChild.getParentElement().get();
+            // the same pair repeated
+            if (currentParent.equals(parentData)) return this;
+            throw new TreeBuildException(Reason.DUPLICATE_PARENT,
+                    String.format("'%s' has more than one parent: '%s' and '%s'", childData, currentParent, parentData),
+                    childData, currentParent, parentData);
+        }
+
+        Tree<T> parent = nodeForData(parentData);
+        Tree<T> child = existingChild != null ? existingChild : nodeForData(childData);
+        parent.insertUnchecked(child);
+        nodesWithoutParent.remove(child);
+        if (firstChild == null) firstChild = childData;
+        return this;
+    }
+
+    public PairTreeBuilder<T> add(ParentChildPair<T> pair) {
+        return add(pair.getParent(), pair.getChild());
+    }
+
+    /**
+     * The number of distinct elements added so far.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @throws TreeBuildException if no pairs were added, there is more than one root or the pairs contain a cycle
+     */
+    public Tree<T> build() {
+        if (nodes.isEmpty()) {
+            throw new TreeBuildException(Reason.EMPTY_INPUT, "No pairs to build the tree from");
+        }
+        if (nodesWithoutParent.isEmpty()) {
+            T elementOnCycle = elementOnCycleAbove(nodes.get(firstChild));
+            throw new TreeBuildException(Reason.CYCLE, String.format("Every node has a parent, '%s' is on a cycle", elementOnCycle), elementOnCycle);
+        }
+        if (nodesWithoutParent.size() > 1) {
+            Object[] roots = nodesWithoutParent.stream().map(Tree::getData).toArray();
+            throw new TreeBuildException(Reason.MULTIPLE_ROOTS, String.format("More than one root: %s", Arrays.toString(roots)), roots);
+        }
+
+        Tree<T> root = nodesWithoutParent.iterator().next();
+        Set<T> reachable = root.elements(Traversal.PRE_ORDER).collect(Collectors.toSet());
+        if (reachable.size() < nodes.size()) {
+            // every node has exactly one parent, so the nodes not reachable from the root are on cycles
+            Tree<T> unreachable = nodes.values().stream().filter(node -> !reachable.contains(node.getData())).findFirst().get();
+            T elementOnCycle = elementOnCycleAbove(unreachable);
+            throw new TreeBuildException(Reason.CYCLE, String.format("'%s' is on a cycle, it is not reachable from the root '%s'", elementOnCycle, root.getData()), elementOnCycle);
+        }
+        return root;
+    }
+
+    private Tree<T> nodeForData(T data) {
+        // return existing node (Tree) whose data equals T, otherwise create and register a new parentless node
+        return nodes.computeIfAbsent(data, key -> {
+            Tree<T> newTree = new Tree<T>(key);
+            nodesWithoutParent.add(newTree);
+            return newTree;
+        });
+    }
+
+    static <T> T elementOnCycleAbove(Tree<T> node) {
+        Set<Tree<T>> visited = new HashSet<>();
+        Tree<T> current = node;
+        while (visited.add(current)) {
+            current = current.getParent().get();
+        }
+        return current.getData();
+    }
+}
@@ -1,31 +1,30 @@
 package org.talangsoft.tree.exportimport.parentchildpair;
 
+import org.talangsoft.tree.Traversal;
 import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.TreeForkJoin;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+import org.talangsoft.tree.metrics.Instrumentation;
+import org.talangsoft.tree.metrics.Phase;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class TreeFromPairBuilder {
-    protected static <T> Tree<T> addPair(Tree<T> tree, ParentChildPair<T> pair) {
-        return tree.lookup(pair.getParent())
-                .map(parentElement -> {
-                    // lookup child
-                    Optional<Tree<T>> childElement = tree.lookup(pair.getChild());
-                    // if it does not exists
-                    Tree<T> childToInsert = childElement.orElseGet(() -> new Tree(pair.getChild()));
-                    // remove from old parent
-                    childToInsert.getParent().map(parent -> parent.getChildNodes().remove(childToInsert));
-                    // insert to this parent
-                    return parentElement.insert(childToInsert);
-                })
-                .orElseThrow(() -> new RuntimeException(String.format("Parent '%s' does not exist in tree", pair.getParent()))
-                );
-    }
+    /**
+     * Below this number of pairs the parallel build runs on the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 10_000;
 
     /**
      * Build tree from repeated pair, a parent and it's child on any level will be a pair in the list
@@ -40,19 +39,44 @@ public class TreeFromPairBuilder {
      * <p>
      * is represented with the following pairs:
      * A-B; A-C; A-D; A-F; A-G; A-E; C-D; C-F; C-G; C-E; D-F; D-G
+     * <p>
+     * The pairs are reduced to the direct parent-child pairs first, then built like {@link #buildFromParentChildPairs(List)}.
+     * The order of the pairs does not matter, children are inserted in the order of their first occurrence.
+     *
+     * @throws TreeBuildException if the reduced pairs do not form a single tree
      */
     public static <T> Tree<T> buildFromRepeatedParentChildPairs(List<ParentChildPair<T>> pairs) {
-        // pairs need to be sorted based on occurences of the parent node
-        List<ParentChildPair<T>> sortedPairs = getSortedParentChildPairs(pairs);
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        List<ParentChildPair<T>> directPairs = directParentChildPairs(pairs);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_REDUCTION);
+        return buildFromParentChildPairs(directPairs);
+    }
 
-        Tree<T> root = new Tree<T>(sortedPairs.get(0).getParent());
-        sortedPairs.stream().forEach(pair -> addPair(root, pair));
-        return root;
+    /**
+     * Transitive reduction of the repeated pairs: every ancestor of a child is paired with it,
+     * and the direct parent is the ancestor closest to the child, which is the one with the fewest descendants.
+     * The number of descendants of a node is the number of pairs it is the parent in.
+     */
+    static <T> List<ParentChildPair<T>> directParentChildPairs(List<ParentChildPair<T>> pairs) {
+        Map<T, Integer> descendantCounts = new HashMap<>();
+        for (ParentChildPair<T> pair : pairs) {
+            descendantCounts.merge(pair.getParent(), 1, Integer::sum);
+        }
+
+        Map<T, T> directParents = new LinkedHashMap<>();
+        for (ParentChildPair<T> pair : pairs) {
+            directParents.merge(pair.getChild(), pair.getParent(),
+                    (current, candidate) -> descendantCounts.get(candidate) < descendantCounts.get(current) ? candidate : current);
+        }
+
+        return directParents.entrySet().stream()
+                .map(childWithParent -> new ParentChildPair<>(childWithParent.getValue(), childWithParent.getKey()))
+                .collect(Collectors.toList());
     }
 
 
     /**
-     * Build tree from repeated pair, a parent and it's child on any level will be a pair in the list
+     * Build tree from pairs, where every pair is a parent and its direct child
      * The tree like:
      * |    A
      * |  /   \
@@ -63,43 +87,159 @@ public class TreeFromPairBuilder {
      * |   F  G
      * <p>
      * is represented with the following pairs:
-     * A-B; A-C; C-D; C-F; C-E; D-F; D-G
+     * A-B; A-C; C-D; C-E; D-F; D-G
+     * <p>
+     * Runs in a single pass over the pairs with a {@link PairTreeBuilder}, nodes are found by hash and the root is the only node left without a parent.
+     *
+     * @throws TreeBuildException if the pairs are empty, a child has two different parents,
+     *                            there is more than one root or the pairs contain a cycle
      */
     public static <T> Tree<T> buildFromParentChildPairs(List<ParentChildPair<T>> pairs) {
-        Set<Tree<T>> nodes = new HashSet<>();
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        PairTreeBuilder<T> builder = new PairTreeBuilder<>();
+        pairs.forEach(builder::add);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_LINKING);
+        Tree<T> root = builder.build();
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_VALIDATION);
+        return root;
+    }
 
-        for (ParentChildPair<T> pair : pairs) {
-            Tree<T> parent = nodeForData(pair.getParent(), nodes);
-            Tree<T> child = nodeForData(pair.getChild(), nodes);
+    /**
+     * Same as {@link #buildFromParentChildPairs(List)}, but the pairs are processed in parallel on the common pool.
+     */
+    public static <T> Tree<T> buildFromParentChildPairsInParallel(List<ParentChildPair<T>> pairs) {
+        return buildFromParentChildPairsInParallel(pairs, ForkJoinPool.commonPool());
+    }
 
-            parent.insert(child);
-        }
+    /**
+     * Same as {@link #buildFromParentChildPairs(List)}, but the pairs are processed in parallel on the given pool,
+     * with the same tree and the same children order as a result.
+     * <p>
+     * The pairs are split into ranges, the nodes are found or created in a concurrent map and every child claims
+     * its parent with a compare-and-set, then pushes itself onto a lock-free list of its parent. The children are
+     * inserted under their parents afterwards, every parent by a single task, sorted by their first pair.
+     * Finally the root is searched for and the nodes reachable from it are counted in parallel.
+     *
+     * @throws TreeBuildException in the same cases as the sequential build, when there are several errors
+     *                            it is not defined which one is reported
+     */
+    public static <T> Tree<T> buildFromParentChildPairsInParallel(List<ParentChildPair<T>> pairs, ForkJoinPool pool) {
+        if (pairs.size() < PARALLEL_THRESHOLD) return buildFromParentChildPairs(pairs);
+
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        List<ParentChildPair<T>> indexedPairs = pairs instanceof RandomAccess ? pairs : new ArrayList<>(pairs);
+        ConcurrentHashMap<T, PendingNode<T>> nodes = new ConcurrentHashMap<>(pairs.size() * 4 / 3 + 1);
+        pool.submit(() -> IntStream.range(0, indexedPairs.size()).parallel()
+                .forEach(pairIndex -> resolve(indexedPairs.get(pairIndex), pairIndex, nodes)))
+                .join();
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_RESOLVING);
+
+        pool.submit(() -> nodes.values().parallelStream().forEach(PendingNode::linkChildren)).join();
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_LINKING);
+
+        Tree<T> root = connectedRoot(indexedPairs, nodes, pool);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.PAIR_VALIDATION);
+        return root;
+    }
 
-        return nodes.stream().filter(tree -> !tree.getParent().isPresent()).findFirst().get();
+    private static <T> void resolve(ParentChildPair<T> pair, int pairIndex, ConcurrentHashMap<T, PendingNode<T>> nodes) {
+        PendingNode<T> parent = nodes.computeIfAbsent(pair.getParent(), PendingNode::new);
+        PendingNode<T> child = nodes.computeIfAbsent(pair.getChild(), PendingNode::new);
+        if (parent == child) {
+            throw new TreeBuildException(Reason.CYCLE, String.format("'%s' is its own parent", pair.getChild()), pair.getChild());
+        }
+        if (PendingNode.PARENT.compareAndSet(child, null, parent)) {
+            child.firstPairAt(pairIndex);
+            parent.pushChild(child);
+            return;
+        }
+        PendingNode<T> currentParent = child.parent;
+        if (currentParent != parent) {
+            throw new TreeBuildException(Reason.DUPLICATE_PARENT,
+                    String.format("'%s' has more than one parent: '%s' and '%s'", pair.getChild(), currentParent.tree.getData(), pair.getParent()),
+                    pair.getChild(), currentParent.tree.getData(), pair.getParent());
+        }
+        // the same pair repeated, the child goes where the pair occurs first
+        child.firstPairAt(pairIndex);
     }
 
-    private static <T> Tree<T> nodeForData(T data, Set<Tree<T>> nodes) {
-        // return existing node (Tree) whose data equals T, otherwise create and return new Tree after adding to Set of nodes
-        return nodes.stream().filter(node -> node.getData().equals(data)).findFirst().orElseGet(() -> {
-            Tree<T> newTree = new Tree<T>(data);
-            nodes.add(newTree);
-            return newTree;
-        });
+    private static <T> Tree<T> connectedRoot(List<ParentChildPair<T>> pairs, ConcurrentHashMap<T, PendingNode<T>> nodes, ForkJoinPool pool) {
+        List<Tree<T>> roots = pool.submit(() -> nodes.values().parallelStream()
+                .filter(node -> node.parent == null)
+                .map(node -> node.tree)
+                .collect(Collectors.toList()))
+                .join();
+        if (roots.isEmpty()) {
+            T elementOnCycle = PairTreeBuilder.elementOnCycleAbove(nodes.get(pairs.get(0).getChild()).tree);
+            throw new TreeBuildException(Reason.CYCLE, String.format("Every node has a parent, '%s' is on a cycle", elementOnCycle), elementOnCycle);
+        }
+        if (roots.size() > 1) {
+            Object[] rootElements = roots.stream().map(Tree::getData).toArray();
+            throw new TreeBuildException(Reason.MULTIPLE_ROOTS, String.format("More than one root: %s", Arrays.toString(rootElements)), rootElements);
+        }
+
+        Tree<T> root = roots.get(0);
+        long reachable = TreeForkJoin.mapReduce(root, node -> 1L, 0L, Long::sum, pool);
+        if (reachable < nodes.size()) {
+            Set<T> reachableElements = root.elements(Traversal.PRE_ORDER).collect(Collectors.toSet());
+            T unreachableElement = pairs.stream().map(ParentChildPair::getChild).filter(child -> !reachableElements.contains(child)).findFirst().get();
+            T elementOnCycle = PairTreeBuilder.elementOnCycleAbove(nodes.get(unreachableElement).tree);
+            throw new TreeBuildException(Reason.CYCLE, String.format("'%s' is on a cycle, it is not reachable from the root '%s'", elementOnCycle, root.getData()), elementOnCycle);
+        }
+        return root;
     }
 
-    private static <T> List<ParentChildPair<T>> getSortedParentChildPairs(List<ParentChildPair<T>> pairs) {
-        Map<T, Long> parentsByOccurences =
-                pairs.stream().map(ParentChildPair::getParent)
-                        .collect(Collectors.groupingBy(p1 -> p1, Collectors.counting()));
+    /**
+     * A node of the parallel build, until its children are inserted.
+     */
+    private static final class PendingNode<T> {
+        static final AtomicReferenceFieldUpdater<PendingNode, PendingNode> PARENT =
+                AtomicReferenceFieldUpdater.newUpdater(PendingNode.class, PendingNode.class, "parent");
+        static final AtomicReferenceFieldUpdater<PendingNode, PendingChild> CHILDREN =
+                AtomicReferenceFieldUpdater.newUpdater(PendingNode.class, PendingChild.class, "children");
+        static final AtomicIntegerFieldUpdater<PendingNode> FIRST_PAIR =
+                AtomicIntegerFieldUpdater.newUpdater(PendingNode.class, "firstPair");
+
+        final Tree<T> tree;
+        volatile PendingNode<T> parent;
+        // pushed by the children, most recent first
+        volatile PendingChild<T> children;
+        // index of the first pair with this node as the child
+        volatile int firstPair = Integer.MAX_VALUE;
+
+        PendingNode(T data) {
+            tree = new Tree<>(data);
+        }
+
+        void firstPairAt(int pairIndex) {
+            FIRST_PAIR.accumulateAndGet(this, pairIndex, Math::min);
+        }
 
+        void pushChild(PendingNode<T> child) {
+            PendingChild<T> head;
+            do {
+                head = children;
+            } while (!CHILDREN.compareAndSet(this, head, new PendingChild<>(child, head)));
+        }
 
-        return pairs.stream()
-                .sorted((p1, p2) -> getWeightOf(parentsByOccurences, p2) - getWeightOf(parentsByOccurences, p1))
-                .collect(Collectors.toList());
+        void linkChildren() {
+            List<PendingNode<T>> pending = new ArrayList<>();
+            for (PendingChild<T> child = children; child != null; child = child.next) {
+                pending.add(child.node);
+            }
+            pending.sort(Comparator.comparingInt(child -> child.firstPair));
+            pending.forEach(child -> tree.insertUnchecked(child.tree));
+        }
     }
 
-    private static <T> int getWeightOf(Map<T, Long> parentsByOccurences, ParentChildPair<T> element) {
-        return parentsByOccurences.getOrDefault(element.getParent(), 0l).intValue();
+    private static final class PendingChild<T> {
+        final PendingNode<T> node;
+        final PendingChild<T> next;
+
+        PendingChild(PendingNode<T> node, PendingChild<T> next) {
+            this.node = node;
+            this.next = next;
+        }
     }
 
 }
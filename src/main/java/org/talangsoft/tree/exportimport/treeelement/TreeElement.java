@@ -8,7 +8,7 @@ import java.util.Optional;
 
 @ToString
 @EqualsAndHashCode(exclude = "element")
-public class TreeElement<ID, T> implements ToParentReferringTreeElement {
+public class TreeElement<ID, T> implements ToParentReferringTreeElement<ID, T> {
 
     @JsonUnwrapped
     private T element;
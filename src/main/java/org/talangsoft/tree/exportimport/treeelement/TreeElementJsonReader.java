@@ -0,0 +1,109 @@
+package org.talangsoft.tree.exportimport.treeelement;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+import org.talangsoft.tree.metrics.Instrumentation;
+import org.talangsoft.tree.metrics.Phase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Function;
+
+import static org.talangsoft.tree.exportimport.treeelement.TreeElementJsonWriter.ELEMENT_FIELD;
+import static org.talangsoft.tree.exportimport.treeelement.TreeElementJsonWriter.PARENT_ID_FIELD;
+
+/**
+ * Reads the JSON written by {@link TreeElementJsonWriter} and builds the tree while parsing.
+ * <p>
+ * The elements have to be in pre-order, every element following its parent or a sibling subtree,
+ * so the parent is always one of the ancestors of the previous element. Apart from the tree itself
+ * only those ancestors are kept, a list of all elements is never built.
+ */
+public class TreeElementJsonReader {
+    private final ObjectMapper mapper;
+
+    public TreeElementJsonReader() {
+        this(new ObjectMapper());
+    }
+
+    public TreeElementJsonReader(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Reads the tree from the stream, the stream is not closed.
+     *
+     * @throws TreeBuildException if there are no elements, there is more than one root or an element does not follow its parent
+     */
+    public <T, ID> Tree<T> readTree(InputStream in, Class<T> elementType, Class<ID> idType, Function<T, ID> idForElementProvider) throws IOException {
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        try (JsonParser parser = mapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw JsonMappingException.from(parser, "Expected an array of tree elements");
+            }
+
+            Tree<T> root = null;
+            Deque<Tree<T>> ancestors = new ArrayDeque<>();
+            Deque<ID> ancestorIds = new ArrayDeque<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                T element = null;
+                boolean hasElement = false;
+                ID parentId = null;
+                // fields added by other writers, like the node id of the web server, are skipped
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    parser.nextToken();
+                    if (ELEMENT_FIELD.equals(field)) {
+                        element = mapper.readValue(parser, elementType);
+                        hasElement = true;
+                    } else if (PARENT_ID_FIELD.equals(field)) {
+                        parentId = parser.currentToken() == JsonToken.VALUE_NULL ? null : mapper.readValue(parser, idType);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                if (!hasElement) {
+                    throw JsonMappingException.from(parser, String.format("Expected the element in the '%s' field", ELEMENT_FIELD));
+                }
+                Tree<T> node = new Tree<>(element);
+
+                if (parentId == null) {
+                    if (root != null) {
+                        throw new TreeBuildException(Reason.MULTIPLE_ROOTS,
+                                String.format("More than one root element: '%s' and '%s'", root.getData(), element), root.getData(), element);
+                    }
+                    root = node;
+                } else {
+                    while (!ancestorIds.isEmpty() && !ancestorIds.peek().equals(parentId)) {
+                        ancestors.pop();
+                        ancestorIds.pop();
+                    }
+                    if (ancestors.isEmpty()) {
+                        throw new TreeBuildException(Reason.ORPHAN,
+                                String.format("Parent '%s' of '%s' is not an ancestor of the previous element, elements are expected in pre-order", parentId, element), parentId);
+                    }
+                    ancestors.peek().insert(node);
+                }
+                ancestors.push(node);
+                ancestorIds.push(idForElementProvider.apply(element));
+            }
+
+            if (parser.currentToken() != JsonToken.END_ARRAY) {
+                throw JsonMappingException.from(parser, "Expected a tree element object");
+            }
+            if (root == null) {
+                throw new TreeBuildException(Reason.EMPTY_INPUT, "No elements to import the tree from");
+            }
+            if (Instrumentation.ENABLED) stopwatch.lap(Phase.JSON_READING);
+            return root;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.talangsoft.tree.exportimport.treeelement;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Writes a tree as a JSON array of tree elements, node by node in pre-order, without building the element list first.
+ * <p>
+ * Every node is an object with the element in {@value #ELEMENT_FIELD} and the id of its parent in {@value #PARENT_ID_FIELD},
+ * which is null for the root. The element is always wrapped, whether it is written as a JSON object or not,
+ * so none of its properties can be taken for the parent id or for a field added by the caller.
+ */
+public class TreeElementJsonWriter {
+    public static final String PARENT_ID_FIELD = "parentId";
+    public static final String ELEMENT_FIELD = "element";
+
+    private final ObjectMapper mapper;
+    // writes single values into the open generator, which is flushed once at the end rather than after every value
+    private final ObjectWriter valueWriter;
+
+    public TreeElementJsonWriter() {
+        this(new ObjectMapper());
+    }
+
+    public TreeElementJsonWriter(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.valueWriter = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes the tree to the stream, the stream is flushed but not closed.
+     */
+    public <T, ID> void writeTree(Tree<T> tree, Function<T, ID> idForElementProvider, OutputStream out) throws IOException {
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<Tree<T>> nodes = tree.nodeIterator(Traversal.PRE_ORDER);
+            while (nodes.hasNext()) {
+                Tree<T> node = nodes.next();
+                generator.writeStartObject();
+                writeElementFields(generator, node.getData(), node == tree ? Optional.empty() : node.getParentElement().map(idForElementProvider));
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes the fields of a single tree element into the current object of the generator,
+     * so callers can add fields of their own to the object.
+     */
+    public <T, ID> void writeElementFields(JsonGenerator generator, T element, Optional<ID> parentId) throws IOException {
+        generator.writeFieldName(ELEMENT_FIELD);
+        valueWriter.writeValue(generator, element);
+        generator.writeFieldName(PARENT_ID_FIELD);
+        if (parentId.isPresent()) {
+            valueWriter.writeValue(generator, parentId.get());
+        } else {
+            generator.writeNull();
+        }
+    }
+}
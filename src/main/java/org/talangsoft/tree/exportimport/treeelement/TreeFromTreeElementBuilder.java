@@ -1,38 +1,130 @@
 package org.talangsoft.tree.exportimport.treeelement;
 
 
+import org.talangsoft.tree.Traversal;
 import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+import org.talangsoft.tree.metrics.Instrumentation;
+import org.talangsoft.tree.metrics.Phase;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class TreeFromTreeElementBuilder {
-    public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> Tree<T> importTree(List<E> treeElements, Function<T, ID> idForElementProvider) {
+    /**
+     * Below this number of elements the parallel import links the nodes on the calling thread.
+     */
+    static final int PARALLEL_THRESHOLD = 10_000;
 
-        Optional<E> rootElement = treeElements.stream().filter(element -> !element.getParentId().isPresent()).findFirst();
+    /**
+     * Builds the tree in a single pass over the elements grouping them by parent id, then links every group under its parent.
+     * Children keep the order of the elements.
+     *
+     * @throws TreeBuildException if there is no root or more than one, two elements have the same id,
+     *                            a parent id refers to no element or some elements are not connected to the root
+     */
+    public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> Tree<T> importTree(List<E> treeElements, Function<T, ID> idForElementProvider) {
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        ElementNodes<ID, T> nodes = ElementNodes.group(treeElements, idForElementProvider);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_GROUPING);
+        nodes.childrenByParentId.forEach(nodes::link);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_LINKING);
+        Tree<T> root = nodes.connectedRoot();
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_VALIDATION);
+        return root;
+    }
 
+    /**
+     * Same as {@link #importTree(List, Function)}, but the groups of children are linked under their parents on the common pool.
+     */
+    public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> Tree<T> importTreeInParallel(List<E> treeElements, Function<T, ID> idForElementProvider) {
+        return importTreeInParallel(treeElements, idForElementProvider, ForkJoinPool.commonPool());
+    }
 
-        return rootElement.map(root -> findAndRemoveChildrenOfTheNodeAndInsertThemAsSubNodes(new Tree<T>(root.getElement()), new ArrayList<>(treeElements), idForElementProvider)).orElseThrow(
-                () -> new RuntimeException("Root element is not present in between the exportedElements")
-        );
+    /**
+     * Same as {@link #importTree(List, Function)}, but the groups of children are linked under their parents on the given pool.
+     * Every parent is linked by a single task, so no node is modified by two threads.
+     * The allocations of the linking phase are measured on the calling thread only.
+     */
+    public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> Tree<T> importTreeInParallel(List<E> treeElements, Function<T, ID> idForElementProvider, ForkJoinPool pool) {
+        Instrumentation.Stopwatch stopwatch = Instrumentation.ENABLED ? Instrumentation.stopwatch() : null;
+        ElementNodes<ID, T> nodes = ElementNodes.group(treeElements, idForElementProvider);
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_GROUPING);
+        if (treeElements.size() < PARALLEL_THRESHOLD) {
+            nodes.childrenByParentId.forEach(nodes::link);
+        } else {
+            pool.submit(() -> nodes.childrenByParentId.entrySet().parallelStream()
+                    .forEach(parentIdWithChildren -> nodes.link(parentIdWithChildren.getKey(), parentIdWithChildren.getValue())))
+                    .join();
+        }
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_LINKING);
+        Tree<T> root = nodes.connectedRoot();
+        if (Instrumentation.ENABLED) stopwatch.lap(Phase.IMPORT_VALIDATION);
+        return root;
     }
 
-    protected static <T, ID, E extends ToParentReferringTreeElement<ID, T>> Tree<T> findAndRemoveChildrenOfTheNodeAndInsertThemAsSubNodes(Tree<T> me, List<E> treeElements, Function<T, ID> idForElementProvider) {
-        // find children
-        List<E> myChildren = treeElements.stream()
-                .filter(elementWithParentRef -> elementWithParentRef.getParentId().isPresent())
-                .filter(elementWithParentRef -> elementWithParentRef.getParentId().get().equals(idForElementProvider.apply(me.getData())))
-                .collect(Collectors.toList());
+    private static class ElementNodes<ID, T> {
+        private final Map<ID, Tree<T>> nodesById;
+        private final Map<ID, List<Tree<T>>> childrenByParentId = new HashMap<>();
+        private Tree<T> root;
+
+        private ElementNodes(int size) {
+            nodesById = new HashMap<>(size * 4 / 3 + 1);
+        }
+
+        static <T, ID, E extends ToParentReferringTreeElement<ID, T>> ElementNodes<ID, T> group(List<E> treeElements, Function<T, ID> idForElementProvider) {
+            if (treeElements.isEmpty()) {
+                throw new TreeBuildException(Reason.EMPTY_INPUT, "No elements to import the tree from");
+            }
+
+            ElementNodes<ID, T> nodes = new ElementNodes<>(treeElements.size());
+            for (E element : treeElements) {
+                Tree<T> node = new Tree<>(element.getElement());
+                ID id = idForElementProvider.apply(element.getElement());
+                if (nodes.nodesById.putIfAbsent(id, node) != null) {
+                    throw new TreeBuildException(Reason.DUPLICATE_ID, String.format("More than one element with id '%s'", id), id);
+                }
+
+                Optional<ID> parentId = element.getParentId();
+                if (parentId.isPresent()) {
+                    nodes.childrenByParentId.computeIfAbsent(parentId.get(), key -> new ArrayList<>()).add(node);
+                } else if (nodes.root == null) {
+                    nodes.root = node;
+                } else {
+                    throw new TreeBuildException(Reason.MULTIPLE_ROOTS,
+                            String.format("More than one root element: '%s' and '%s'", nodes.root.getData(), node.getData()),
+                            nodes.root.getData(), node.getData());
+                }
+            }
+
+            if (nodes.root == null) {
+                throw new TreeBuildException(Reason.MISSING_ROOT, "Root element is not present in between the exportedElements");
+            }
+            nodes.childrenByParentId.keySet().stream().filter(parentId -> !nodes.nodesById.containsKey(parentId)).findFirst().ifPresent(parentId -> {
+                throw new TreeBuildException(Reason.ORPHAN, String.format("Parent '%s' of '%s' is not present in between the exported elements",
+                        parentId, nodes.childrenByParentId.get(parentId).get(0).getData()), parentId);
+            });
+            return nodes;
+        }
 
-        // remove from exported elements
-        treeElements.remove(myChildren);
-        myChildren.forEach(myChild -> me.insert(myChild.getElement()));
+        void link(ID parentId, List<Tree<T>> children) {
+            Tree<T> parent = nodesById.get(parentId);
+            children.forEach(parent::insertUnchecked);
+        }
 
-        // call the same with all my children recursively
-        me.getChildNodes().forEach(childNode -> findAndRemoveChildrenOfTheNodeAndInsertThemAsSubNodes(childNode, treeElements, idForElementProvider));
-        return me;
+        Tree<T> connectedRoot() {
+            long connected = root.nodes(Traversal.PRE_ORDER).count();
+            if (connected < nodesById.size()) {
+                throw new TreeBuildException(Reason.CYCLE,
+                        String.format("%d elements are not connected to the root '%s', their parents form a cycle", nodesById.size() - connected, root.getData()));
+            }
+            return root;
+        }
     }
 }
@@ -1,5 +1,6 @@
 package org.talangsoft.tree.exportimport.treeelement;
 
+import org.talangsoft.tree.Traversal;
 import org.talangsoft.tree.Tree;
 
 import java.util.List;
@@ -7,13 +8,25 @@ import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class TreeToTreeElementExporter {
     public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> List<E> exportTree(Tree<T> tree, Function<T, ID> idForElementProvider, BiFunction<T, Optional<ID>, E> treeElementCreator) {
-        List<E> exportElements = tree.allNodes().stream()
+        return export(tree.nodes(Traversal.PRE_ORDER), idForElementProvider, treeElementCreator);
+    }
+
+    /**
+     * Same as {@link #exportTree(Tree, Function, BiFunction)}, but the nodes are mapped to elements in parallel,
+     * the elements are still in pre-order.
+     */
+    public static <T, ID, E extends ToParentReferringTreeElement<ID, T>> List<E> exportTreeInParallel(Tree<T> tree, Function<T, ID> idForElementProvider, BiFunction<T, Optional<ID>, E> treeElementCreator) {
+        return export(tree.parallelNodes(), idForElementProvider, treeElementCreator);
+    }
+
+    private static <T, ID, E extends ToParentReferringTreeElement<ID, T>> List<E> export(Stream<Tree<T>> nodes, Function<T, ID> idForElementProvider, BiFunction<T, Optional<ID>, E> treeElementCreator) {
+        return nodes
                 .map(node -> treeElementCreator.apply(node.getData(), node.getParentElement().map(idForElementProvider)))
                 .collect(Collectors.toList());
-        return exportElements;
     }
 }
 
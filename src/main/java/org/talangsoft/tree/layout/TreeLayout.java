@@ -0,0 +1,374 @@
+package org.talangsoft.tree.layout;
+
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tidy tree layout after Reingold and Tilford: every node is centered above its children, siblings are placed
+ * as close as their subtrees allow, at least the separation apart on every level. The y coordinate is the depth.
+ * <p>
+ * Each subtree keeps its left and right contour, the leftmost and rightmost x on each of its levels, as a linked list
+ * of x differences between consecutive levels. Contours of a parent share their tail with the contours of its
+ * children, only the part of the shorter side is copied when siblings are merged, which is what makes the layout
+ * linear in the number of nodes. The x of a node is stored relative to its parent.
+ * <p>
+ * Because a subtree's layout does not depend on anything outside of it, a change below a node only relays the node
+ * and its ancestors out, merging their children's stored contours again. Collapsing, expanding, inserting and
+ * removing a subtree all work this way. Viewport queries descend from the root, skipping subtrees whose extent
+ * is outside of the viewport.
+ */
+public final class TreeLayout<T> {
+    private static final int NONE = -1;
+
+    private final Tree<T> root;
+    private final double separation;
+    private final Map<Tree<T>, Integer> ids = new IdentityHashMap<>();
+    private final BitSet collapsed = new BitSet();
+    private Tree<T>[] nodes = new Tree[16];
+    private int[] parents = new int[16];
+    private int[] depths = new int[16];
+    private int nodeCount;
+
+    // per node: x relative to the parent, extent of the subtree relative to the node, height and contour heads
+    private double[] offsets = new double[16];
+    private double[] extentsLeft = new double[16];
+    private double[] extentsRight = new double[16];
+    private int[] heights = new int[16];
+    private int[] leftContours = new int[16];
+    private int[] rightContours = new int[16];
+
+    // contour cells: x difference to the cell of the level above, or to the subtree root for the first cell
+    private double[] cellDeltas = new double[64];
+    private int[] cellNext = new int[64];
+    private int cellCount;
+    private int cellsAfterFullLayout;
+
+    private TreeLayout(Tree<T> root, double separation) {
+        this.root = root;
+        this.separation = separation;
+        register(root, NONE);
+        layoutAll();
+    }
+
+    public static <T> TreeLayout<T> of(Tree<T> root) {
+        return new TreeLayout<>(root, 1);
+    }
+
+    /**
+     * Lays the tree out with the given minimal horizontal distance between neighbouring nodes.
+     */
+    public static <T> TreeLayout<T> of(Tree<T> root, double separation) {
+        return new TreeLayout<>(root, separation);
+    }
+
+    /**
+     * The absolute x of the node, the root is at 0.
+     */
+    public double x(Tree<T> node) {
+        double x = 0;
+        for (int id = id(node); id != NONE; id = parents[id]) {
+            x += offsets[id];
+        }
+        return x;
+    }
+
+    /**
+     * The y of the node, the depth below the root.
+     */
+    public int y(Tree<T> node) {
+        return depths[id(node)];
+    }
+
+    public boolean isCollapsed(Tree<T> node) {
+        return collapsed.get(id(node));
+    }
+
+    /**
+     * Hides the subtree below the node, the node is laid out like a leaf.
+     */
+    public void collapse(Tree<T> node) {
+        int id = id(node);
+        if (collapsed.get(id)) return;
+        collapsed.set(id);
+        if (!nodes[id].getChildNodes().isEmpty()) relayoutFrom(id);
+    }
+
+    public void expand(Tree<T> node) {
+        int id = id(node);
+        if (!collapsed.get(id)) return;
+        collapsed.clear(id);
+        if (!nodes[id].getChildNodes().isEmpty()) relayoutFrom(id);
+    }
+
+    /**
+     * Lays out a subtree that was inserted into the tree after the layout was made, its parent must be laid out.
+     */
+    public void inserted(Tree<T> subtree) {
+        Tree<T> parent = subtree.getParent().orElseThrow(() -> new IllegalArgumentException(String.format("'%s' has no parent", subtree.getData())));
+        int parentId = id(parent);
+        int first = nodeCount;
+        register(subtree, parentId);
+        for (int id = nodeCount - 1; id >= first; id--) {
+            layoutNode(id);
+        }
+        relayoutFrom(parentId);
+    }
+
+    /**
+     * Drops a subtree that was removed from the children of the given parent.
+     */
+    public void removed(Tree<T> subtree, Tree<T> oldParent) {
+        int parentId = id(oldParent);
+        ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+        pending.push(subtree);
+        while (!pending.isEmpty()) {
+            Tree<T> node = pending.pop();
+            Integer id = ids.remove(node);
+            if (id != null) nodes[id] = null;
+            node.getChildNodes().forEach(pending::push);
+        }
+        relayoutFrom(parentId);
+    }
+
+    /**
+     * The visible nodes, not hidden by a collapsed ancestor, inside the viewport, with their absolute coordinates.
+     */
+    public List<Placement<T>> visible(double minX, double maxX, int minY, int maxY) {
+        List<Placement<T>> visible = new ArrayList<>();
+        ArrayDeque<Integer> pendingIds = new ArrayDeque<>();
+        ArrayDeque<Double> pendingXs = new ArrayDeque<>();
+        pendingIds.push(0);
+        pendingXs.push(0d);
+        while (!pendingIds.isEmpty()) {
+            int id = pendingIds.pop();
+            double x = pendingXs.pop();
+            if (depths[id] > maxY || x + extentsRight[id] < minX || x + extentsLeft[id] > maxX) continue;
+            if (depths[id] >= minY && x >= minX && x <= maxX) visible.add(new Placement<>(nodes[id], x, depths[id]));
+            if (collapsed.get(id)) continue;
+            List<Tree<T>> children = nodes[id].getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                int childId = ids.get(children.get(i));
+                pendingIds.push(childId);
+                pendingXs.push(x + offsets[childId]);
+            }
+        }
+        return visible;
+    }
+
+    private void register(Tree<T> subtree, int parentId) {
+        ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+        ArrayDeque<Integer> pendingParents = new ArrayDeque<>();
+        pending.push(subtree);
+        pendingParents.push(parentId);
+        while (!pending.isEmpty()) {
+            Tree<T> node = pending.pop();
+            int parent = pendingParents.pop();
+            int id = newNode(node, parent);
+            List<Tree<T>> children = node.getChildNodes();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+                pendingParents.push(id);
+            }
+        }
+    }
+
+    private int newNode(Tree<T> node, int parent) {
+        if (nodeCount == nodes.length) {
+            int capacity = nodeCount * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            offsets = Arrays.copyOf(offsets, capacity);
+            extentsLeft = Arrays.copyOf(extentsLeft, capacity);
+            extentsRight = Arrays.copyOf(extentsRight, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+            leftContours = Arrays.copyOf(leftContours, capacity);
+            rightContours = Arrays.copyOf(rightContours, capacity);
+        }
+        int id = nodeCount++;
+        ids.put(node, id);
+        nodes[id] = node;
+        parents[id] = parent;
+        depths[id] = parent == NONE ? 0 : depths[parent] + 1;
+        offsets[id] = 0;
+        return id;
+    }
+
+    /**
+     * Lays every node out from scratch, children before parents, dropping the contour cells of earlier layouts.
+     */
+    private void layoutAll() {
+        cellCount = 0;
+        int[] postOrder = new int[ids.size()];
+        int count = 0;
+        ArrayDeque<Tree<T>> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Tree<T> node = pending.pop();
+            postOrder[count++] = ids.get(node);
+            node.getChildNodes().forEach(pending::push);
+        }
+        // a reversed pre-order has every child before its parent
+        for (int i = count - 1; i >= 0; i--) {
+            layoutNode(postOrder[i]);
+        }
+        cellsAfterFullLayout = cellCount;
+    }
+
+    private void relayoutFrom(int id) {
+        if (cellCount > 2 * Math.max(cellsAfterFullLayout, 1024)) {
+            layoutAll();
+            return;
+        }
+        for (int ancestor = id; ancestor != NONE; ancestor = parents[ancestor]) {
+            layoutNode(ancestor);
+        }
+    }
+
+    /**
+     * Places the children of the node next to each other from left to right, each as close to the ones before as
+     * the contours allow, then centers the node above the first and the last child.
+     */
+    private void layoutNode(int id) {
+        List<Tree<T>> children = collapsed.get(id) ? new ArrayList<>() : nodes[id].getChildNodes();
+        if (children.isEmpty()) {
+            heights[id] = 0;
+            extentsLeft[id] = 0;
+            extentsRight[id] = 0;
+            leftContours[id] = cell(0, NONE);
+            rightContours[id] = cell(0, NONE);
+            return;
+        }
+
+        // contours of the children placed so far, relative to the first child
+        int firstChild = ids.get(children.get(0));
+        int forestLeft = leftContours[firstChild];
+        int forestRight = rightContours[firstChild];
+        int forestHeight = heights[firstChild];
+        double[] positions = new double[children.size()];
+        for (int i = 1; i < children.size(); i++) {
+            int child = ids.get(children.get(i));
+            double position = separation(forestRight, leftContours[child]);
+            positions[i] = position;
+            forestLeft = merge(forestLeft, 0, forestHeight, leftContours[child], position, heights[child]);
+            forestRight = merge(rightContours[child], position, heights[child], forestRight, 0, forestHeight);
+            forestHeight = Math.max(forestHeight, heights[child]);
+        }
+
+        double center = positions[positions.length - 1] / 2;
+        double extentLeft = 0;
+        double extentRight = 0;
+        for (int i = 0; i < children.size(); i++) {
+            int child = ids.get(children.get(i));
+            offsets[child] = positions[i] - center;
+            extentLeft = Math.min(extentLeft, offsets[child] + extentsLeft[child]);
+            extentRight = Math.max(extentRight, offsets[child] + extentsRight[child]);
+        }
+        heights[id] = forestHeight + 1;
+        extentsLeft[id] = extentLeft;
+        extentsRight[id] = extentRight;
+        leftContours[id] = cell(0, shifted(forestLeft, -center));
+        rightContours[id] = cell(0, shifted(forestRight, -center));
+    }
+
+    /**
+     * The smallest position of the right subtree relative to the left one that keeps them apart on every common level.
+     */
+    private double separation(int leftSubtreeRightContour, int rightSubtreeLeftContour) {
+        double distance = Double.NEGATIVE_INFINITY;
+        double rightX = 0;
+        double leftX = 0;
+        for (int right = leftSubtreeRightContour, left = rightSubtreeLeftContour; right != NONE && left != NONE; right = cellNext[right], left = cellNext[left]) {
+            rightX += cellDeltas[right];
+            leftX += cellDeltas[left];
+            distance = Math.max(distance, rightX - leftX + separation);
+        }
+        return distance;
+    }
+
+    /**
+     * The contour made of the first one and, below its last level, the second one.
+     * Heights are the number of levels below the first cell, the shifts move the contours relative to each other.
+     */
+    private int merge(int first, double firstShift, int firstHeight, int second, double secondShift, int secondHeight) {
+        if (firstHeight >= secondHeight) return shifted(first, firstShift);
+
+        // copy the first contour, then link its last level to the second contour one level deeper
+        int head = cell(cellDeltas[first] + firstShift, NONE);
+        int last = head;
+        double firstX = cellDeltas[first] + firstShift;
+        double secondX = cellDeltas[second] + secondShift;
+        int secondCell = second;
+        for (int cell = cellNext[first]; cell != NONE; cell = cellNext[cell]) {
+            firstX += cellDeltas[cell];
+            secondCell = cellNext[secondCell];
+            secondX += cellDeltas[secondCell];
+            int copy = cell(cellDeltas[cell], NONE);
+            cellNext[last] = copy;
+            last = copy;
+        }
+        int below = cellNext[secondCell];
+        int bridge = cell(secondX + cellDeltas[below] - firstX, cellNext[below]);
+        cellNext[last] = bridge;
+        return head;
+    }
+
+    private int shifted(int contour, double shift) {
+        return shift == 0 ? contour : cell(cellDeltas[contour] + shift, cellNext[contour]);
+    }
+
+    private int cell(double delta, int next) {
+        if (cellCount == cellDeltas.length) {
+            cellDeltas = Arrays.copyOf(cellDeltas, cellCount * 2);
+            cellNext = Arrays.copyOf(cellNext, cellCount * 2);
+        }
+        cellDeltas[cellCount] = delta;
+        cellNext[cellCount] = next;
+        return cellCount++;
+    }
+
+    private int id(Tree<T> node) {
+        Integer id = ids.get(node);
+        if (id == null) throw new IllegalArgumentException(String.format("'%s' is not laid out", node.getData()));
+        return id;
+    }
+
+    /**
+     * A node with its absolute coordinates.
+     */
+    public static final class Placement<T> {
+        private final Tree<T> node;
+        private final double x;
+        private final int y;
+
+        Placement(Tree<T> node, double x, int y) {
+            this.node = node;
+            this.x = x;
+            this.y = y;
+        }
+
+        public Tree<T> getNode() {
+            return node;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public int getY() {
+            return y;
+        }
+
+        @Override
+        public String toString() {
+            return "Placement{" + node.getData() + " at " + x + "," + y + '}';
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package org.talangsoft.tree.lazy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fetches the children of the nodes of a {@link LazyTree} from wherever the hierarchy is stored.
+ * Failures of the store are thrown as unchecked exceptions, like {@link java.io.UncheckedIOException}.
+ */
+public interface ChildLoader<T> {
+
+    /**
+     * The elements of the children of the parent in order, empty for a leaf.
+     */
+    List<T> loadChildren(T parent);
+
+    /**
+     * Loads the children of several parents, one list for each parent in the order of the parents.
+     * Override it when the store can answer a batch in a single round trip, by default the parents are loaded one by one.
+     */
+    default List<List<T>> loadChildrenBatch(List<T> parents) {
+        List<List<T>> children = new ArrayList<>(parents.size());
+        for (T parent : parents) children.add(loadChildren(parent));
+        return children;
+    }
+}
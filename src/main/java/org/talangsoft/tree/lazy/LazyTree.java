@@ -0,0 +1,284 @@
+package org.talangsoft.tree.lazy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+/**
+ * A read-only tree that holds only the parts of a large hierarchy that are looked at. The children of a node are
+ * fetched from a {@link ChildLoader} the first time {@link #getChildNodes()} is called on it, together with the children
+ * of the next few siblings that are not loaded yet, in one batch, since siblings tend to be opened one after the other.
+ * <p>
+ * With a budget, the tree keeps the weight of the nodes in memory under it, counting every node as 1 or weighing
+ * the elements in bytes. When a load goes over the budget, the children of the least recently used nodes are dropped.
+ * Using a node also uses its ancestors, so a subtree is always dropped bottom up and the path to the node
+ * being loaded is never dropped. Prefetched children count as used least recently, they are dropped first.
+ * <p>
+ * A node that was dropped with its siblings still works: asking it for its children reloads its parent's children
+ * and continues from the new node with the same element. The replacement is a different object, nodes should be
+ * compared by their elements.
+ * <p>
+ * Not safe for concurrent use, loads change the cache even when the tree is only read.
+ */
+public class LazyTree<T> {
+    static final int DEFAULT_PREFETCH = 8;
+
+    private final T data;
+    private final LazyTree<T> parent;
+    // the position of the node in the children of its parent
+    private final int position;
+    private final Cache<T> cache;
+    // null until the children are loaded and after they are dropped
+    private List<LazyTree<T>> childNodes;
+    private long childrenWeight;
+    // the node was dropped with its siblings
+    private boolean evicted;
+    // neighbours in the recency list of the cache while the children are loaded
+    private LazyTree<T> newer;
+    private LazyTree<T> older;
+
+    public LazyTree(T data, ChildLoader<T> loader) {
+        this(data, null, 0, new Cache<>(loader));
+        cache.weight = cache.weigher.applyAsLong(data);
+    }
+
+    private LazyTree(T data, LazyTree<T> parent, int position, Cache<T> cache) {
+        this.data = data;
+        this.parent = parent;
+        this.position = position;
+        this.cache = cache;
+    }
+
+    /**
+     * Keeps at most the given number of nodes in memory, apart from the path to the node being loaded and its children.
+     * Only the root can set the budget, as it is shared by the whole tree.
+     */
+    public LazyTree<T> withNodeBudget(long nodes) {
+        return withBudget(nodes, element -> 1);
+    }
+
+    /**
+     * Keeps the elements in memory under the given number of bytes, apart from the path to the node being loaded and
+     * its children. Only the root can set the budget, as it is shared by the whole tree.
+     *
+     * @param bytesOfElement the estimated size of an element with its node
+     */
+    public LazyTree<T> withByteBudget(long bytes, ToLongFunction<T> bytesOfElement) {
+        return withBudget(bytes, bytesOfElement);
+    }
+
+    /**
+     * The number of following siblings whose children are loaded in the same batch as the node's, 0 turns prefetching off.
+     */
+    public LazyTree<T> withPrefetch(int siblings) {
+        requireRoot("Prefetching");
+        if (siblings < 0) throw new IllegalArgumentException(String.format("Cannot prefetch %d siblings", siblings));
+        cache.prefetch = siblings;
+        return this;
+    }
+
+    private LazyTree<T> withBudget(long budget, ToLongFunction<T> weigher) {
+        requireRoot("The budget");
+        if (budget <= 0) throw new IllegalArgumentException(String.format("The budget has to be positive, it was %d", budget));
+        cache.budget = budget;
+        cache.weigher = weigher;
+        cache.reweigh(this);
+        cache.evictOverBudget(null);
+        return this;
+    }
+
+    private void requireRoot(String setting) {
+        if (parent != null) {
+            throw new IllegalStateException(String.format("%s can only be set on the root, '%s' has a parent", setting, data));
+        }
+    }
+
+    public T getData() {
+        return data;
+    }
+
+    public Optional<LazyTree<T>> getParent() {
+        return Optional.ofNullable(parent);
+    }
+
+    public Optional<T> getParentElement() {
+        return getParent().map(LazyTree::getData);
+    }
+
+    /**
+     * The children of the node, loaded if they are not in memory.
+     */
+    public List<LazyTree<T>> getChildNodes() {
+        if (evicted) return current().getChildNodes();
+        if (childNodes == null) load();
+        cache.used(this);
+        cache.evictOverBudget(this);
+        return childNodes;
+    }
+
+    public List<T> getChildren() {
+        return getChildNodes().stream().map(LazyTree::getData).collect(Collectors.toList());
+    }
+
+    /**
+     * Whether the children of this node are in memory, so {@link #getChildNodes()} does not call the loader.
+     */
+    public boolean isLoaded() {
+        return !evicted && childNodes != null;
+    }
+
+    /**
+     * The weight of the nodes of the whole tree in memory, the number of nodes unless a byte budget is set.
+     */
+    public long loadedWeight() {
+        return cache.weight;
+    }
+
+    private void load() {
+        List<LazyTree<T>> batch = new ArrayList<>();
+        batch.add(this);
+        if (parent != null) {
+            List<LazyTree<T>> siblings = parent.childNodes;
+            for (int i = position + 1; i < siblings.size() && batch.size() <= cache.prefetch; i++) {
+                if (siblings.get(i).childNodes == null) batch.add(siblings.get(i));
+            }
+        }
+        List<T> parents = batch.stream().map(LazyTree::getData).collect(Collectors.toList());
+        List<List<T>> children = batch.size() == 1
+                ? Collections.singletonList(cache.loader.loadChildren(data))
+                : cache.loader.loadChildrenBatch(parents);
+        if (children.size() != batch.size()) {
+            throw new IllegalStateException(String.format("The loader returned %d child lists for %d parents", children.size(), batch.size()));
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setChildren(children.get(i));
+            if (i > 0) cache.prefetched(batch.get(i));
+        }
+    }
+
+    private void setChildren(List<T> elements) {
+        List<LazyTree<T>> nodes = new ArrayList<>(elements.size());
+        long weight = 0;
+        for (T element : elements) {
+            nodes.add(new LazyTree<>(element, this, nodes.size(), cache));
+            weight += cache.weigher.applyAsLong(element);
+        }
+        childNodes = Collections.unmodifiableList(nodes);
+        childrenWeight = weight;
+        cache.weight += weight;
+    }
+
+    private void dropChildren() {
+        for (LazyTree<T> child : childNodes) child.evicted = true;
+        cache.weight -= childrenWeight;
+        childNodes = null;
+        childrenWeight = 0;
+    }
+
+    /**
+     * The node that replaced this one after it was dropped, found by the elements on the path from the closest
+     * ancestor still in memory.
+     */
+    private LazyTree<T> current() {
+        Deque<LazyTree<T>> dropped = new ArrayDeque<>();
+        LazyTree<T> node = this;
+        while (node.evicted) {
+            dropped.push(node);
+            node = node.parent;
+        }
+        while (!dropped.isEmpty()) {
+            node = node.reloadedChild(dropped.pop());
+        }
+        return node;
+    }
+
+    private LazyTree<T> reloadedChild(LazyTree<T> dropped) {
+        List<LazyTree<T>> children = getChildNodes();
+        if (dropped.position < children.size() && children.get(dropped.position).data.equals(dropped.data)) {
+            return children.get(dropped.position);
+        }
+        for (LazyTree<T> child : children) {
+            if (child.data.equals(dropped.data)) return child;
+        }
+        throw new IllegalStateException(String.format("'%s' is no longer a child of '%s'", dropped.data, data));
+    }
+
+    @Override
+    public String toString() {
+        return "LazyTree{" + data + '}';
+    }
+
+    /**
+     * State shared by the nodes of a tree: the loader, the budget and the nodes with children in memory, from the most
+     * recently used to the least. Every node in the list is newer than its descendants in it.
+     */
+    private static final class Cache<T> {
+        private final ChildLoader<T> loader;
+        private long budget = Long.MAX_VALUE;
+        private ToLongFunction<T> weigher = element -> 1;
+        private int prefetch = DEFAULT_PREFETCH;
+        private long weight;
+        private LazyTree<T> newest;
+        private LazyTree<T> oldest;
+
+        Cache(ChildLoader<T> loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Moves the node and then its ancestors to the front, so the ancestors stay newer than the node.
+         */
+        void used(LazyTree<T> node) {
+            for (LazyTree<T> current = node; current != null; current = current.parent) {
+                if (current == newest) continue;
+                unlink(current);
+                current.older = newest;
+                if (newest != null) newest.newer = current;
+                newest = current;
+                if (oldest == null) oldest = current;
+            }
+        }
+
+        void prefetched(LazyTree<T> node) {
+            node.newer = oldest;
+            if (oldest != null) oldest.older = node;
+            oldest = node;
+            if (newest == null) newest = node;
+        }
+
+        /**
+         * Drops the children of the least recently used nodes until the weight fits the budget, stopping at the kept node.
+         * The children of the oldest node never have children in memory, it is older than its descendants.
+         */
+        void evictOverBudget(LazyTree<T> keep) {
+            while (weight > budget && oldest != null && oldest != keep) {
+                LazyTree<T> victim = oldest;
+                unlink(victim);
+                victim.dropChildren();
+            }
+        }
+
+        void reweigh(LazyTree<T> root) {
+            weight = weigher.applyAsLong(root.data);
+            for (LazyTree<T> node = newest; node != null; node = node.older) {
+                node.childrenWeight = 0;
+                for (LazyTree<T> child : node.childNodes) node.childrenWeight += weigher.applyAsLong(child.data);
+                weight += node.childrenWeight;
+            }
+        }
+
+        private void unlink(LazyTree<T> node) {
+            if (node.newer != null) node.newer.older = node.older;
+            else if (newest == node) newest = node.older;
+            if (node.older != null) node.older.newer = node.newer;
+            else if (oldest == node) oldest = node.newer;
+            node.newer = null;
+            node.older = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.talangsoft.tree.lazy;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Serves the children from a tree in memory, a stand-in for a real store in tests and demos.
+ */
+public class TreeChildLoader<T> implements ChildLoader<T> {
+    private final Map<T, Tree<T>> nodes = new HashMap<>();
+
+    public TreeChildLoader(Tree<T> tree) {
+        Iterator<Tree<T>> iterator = tree.nodeIterator(Traversal.PRE_ORDER);
+        while (iterator.hasNext()) {
+            Tree<T> node = iterator.next();
+            nodes.putIfAbsent(node.getData(), node);
+        }
+    }
+
+    @Override
+    public List<T> loadChildren(T parent) {
+        Tree<T> node = nodes.get(parent);
+        if (node == null) throw new IllegalArgumentException(String.format("'%s' is not in the tree", parent));
+        return node.getChildren();
+    }
+}
@@ -0,0 +1,27 @@
+package org.talangsoft.tree.metrics;
+
+/**
+ * Operations counted while instrumentation is enabled.
+ */
+public enum Counter {
+    /**
+     * Calls of lookup, indexed or not.
+     */
+    LOOKUPS,
+    /**
+     * Nodes visited by lookups that scan the tree.
+     */
+    NODE_VISITS,
+    /**
+     * Nodes inserted without a parent before.
+     */
+    INSERTS,
+    /**
+     * Nodes inserted under a new parent while they had one, which moves them with their subtree.
+     */
+    MOVES,
+    /**
+     * Subtrees removed from their parent, one for each root of a removed subtree.
+     */
+    REMOVES
+}
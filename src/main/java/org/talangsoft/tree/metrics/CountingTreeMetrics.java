@@ -0,0 +1,77 @@
+package org.talangsoft.tree.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sums the measurements in memory, to read them after a run or in tests.
+ */
+public class CountingTreeMetrics implements TreeMetrics {
+    private final Map<Counter, LongAdder> counts = new EnumMap<>(Counter.class);
+    private final Map<Phase, LongAdder> phaseCounts = new EnumMap<>(Phase.class);
+    private final Map<Phase, LongAdder> phaseNanos = new EnumMap<>(Phase.class);
+    private final Map<Phase, LongAdder> phaseAllocatedBytes = new EnumMap<>(Phase.class);
+
+    public CountingTreeMetrics() {
+        for (Counter counter : Counter.values()) {
+            counts.put(counter, new LongAdder());
+        }
+        for (Phase phase : Phase.values()) {
+            phaseCounts.put(phase, new LongAdder());
+            phaseNanos.put(phase, new LongAdder());
+            phaseAllocatedBytes.put(phase, new LongAdder());
+        }
+    }
+
+    @Override
+    public void count(Counter counter, long amount) {
+        counts.get(counter).add(amount);
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos, long allocatedBytes) {
+        phaseCounts.get(phase).increment();
+        phaseNanos.get(phase).add(nanos);
+        if (allocatedBytes > 0) phaseAllocatedBytes.get(phase).add(allocatedBytes);
+    }
+
+    public long count(Counter counter) {
+        return counts.get(counter).sum();
+    }
+
+    /**
+     * The number of times the phase has finished.
+     */
+    public long phaseCount(Phase phase) {
+        return phaseCounts.get(phase).sum();
+    }
+
+    public long phaseNanos(Phase phase) {
+        return phaseNanos.get(phase).sum();
+    }
+
+    public long phaseAllocatedBytes(Phase phase) {
+        return phaseAllocatedBytes.get(phase).sum();
+    }
+
+    public void reset() {
+        counts.values().forEach(LongAdder::reset);
+        phaseCounts.values().forEach(LongAdder::reset);
+        phaseNanos.values().forEach(LongAdder::reset);
+        phaseAllocatedBytes.values().forEach(LongAdder::reset);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        counts.forEach((counter, count) -> summary.append(counter).append(": ").append(count.sum()).append('\n'));
+        for (Phase phase : Phase.values()) {
+            if (phaseCount(phase) == 0) continue;
+            summary.append(phase).append(": ").append(phaseCount(phase)).append(" times, ")
+                    .append(phaseNanos(phase) / 1_000_000).append(" ms, ")
+                    .append(phaseAllocatedBytes(phase)).append(" bytes allocated\n");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,107 @@
+package org.talangsoft.tree.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Counters and timers on the hot paths of the tree, reported to the registered {@link TreeMetrics}.
+ * <p>
+ * Instrumentation is off unless the JVM is started with -D{@value #ENABLED_PROPERTY}=true. The flag is read once
+ * into a static final field and every call site is guarded by it:
+ * <pre>
+ * if (Instrumentation.ENABLED) Instrumentation.count(Counter.INSERTS, 1);
+ * </pre>
+ * so when it is off the JIT compiles the guarded code away and the instrumentation costs nothing.
+ */
+public final class Instrumentation {
+    public static final String ENABLED_PROPERTY = "org.talangsoft.tree.instrumentation";
+    public static final boolean ENABLED = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    private static final List<TreeMetrics> metrics = new CopyOnWriteArrayList<>();
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    static {
+        if (ENABLED) loadServices();
+    }
+
+    private Instrumentation() {
+    }
+
+    public static void register(TreeMetrics treeMetrics) {
+        metrics.add(treeMetrics);
+    }
+
+    public static void unregister(TreeMetrics treeMetrics) {
+        metrics.remove(treeMetrics);
+    }
+
+    public static void count(Counter counter, long amount) {
+        for (TreeMetrics treeMetrics : metrics) {
+            treeMetrics.count(counter, amount);
+        }
+    }
+
+    /**
+     * Starts timing the phases of an operation on the calling thread.
+     */
+    public static Stopwatch stopwatch() {
+        return new Stopwatch();
+    }
+
+    /**
+     * Times consecutive phases on one thread, each phase lasts from the end of the previous one.
+     */
+    public static final class Stopwatch {
+        private long startNanos;
+        private long startAllocatedBytes;
+
+        private Stopwatch() {
+            restart();
+        }
+
+        /**
+         * Reports the phase that has just finished and starts the next one.
+         */
+        public void lap(Phase phase) {
+            long nanos = System.nanoTime() - startNanos;
+            long allocatedBytes = startAllocatedBytes < 0 ? -1 : allocatedBytes() - startAllocatedBytes;
+            for (TreeMetrics treeMetrics : metrics) {
+                treeMetrics.phase(phase, nanos, allocatedBytes);
+            }
+            restart();
+        }
+
+        private void restart() {
+            startAllocatedBytes = allocatedBytes();
+            startNanos = System.nanoTime();
+        }
+    }
+
+    private static long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Registers the metrics found as services, skipping the ones that cannot be loaded on this JVM,
+     * like the flight recorder events on a JVM without the flight recorder.
+     */
+    private static void loadServices() {
+        Iterator<TreeMetrics> services = ServiceLoader.load(TreeMetrics.class).iterator();
+        while (true) {
+            try {
+                if (!services.hasNext()) return;
+                metrics.add(services.next());
+            } catch (ServiceConfigurationError | LinkageError e) {
+                // not available on this JVM
+            }
+        }
+    }
+}
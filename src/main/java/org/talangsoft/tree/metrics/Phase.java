@@ -0,0 +1,39 @@
+package org.talangsoft.tree.metrics;
+
+/**
+ * Timed phases of building a tree.
+ */
+public enum Phase {
+    /**
+     * Reducing repeated ancestor-descendant pairs to direct parent-child pairs.
+     */
+    PAIR_REDUCTION,
+    /**
+     * Finding or creating the nodes of the pairs and recording their parents, in the parallel pair build.
+     */
+    PAIR_RESOLVING,
+    /**
+     * Inserting the children of the pairs under their parents.
+     */
+    PAIR_LINKING,
+    /**
+     * Finding the root and checking that every node is reachable from it.
+     */
+    PAIR_VALIDATION,
+    /**
+     * Creating the nodes of the tree elements and grouping them by parent id.
+     */
+    IMPORT_GROUPING,
+    /**
+     * Inserting the groups of children under their parents.
+     */
+    IMPORT_LINKING,
+    /**
+     * Checking that every element is connected to the root.
+     */
+    IMPORT_VALIDATION,
+    /**
+     * Parsing tree element JSON and building the tree while parsing.
+     */
+    JSON_READING
+}
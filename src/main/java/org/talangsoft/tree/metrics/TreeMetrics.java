@@ -0,0 +1,19 @@
+package org.talangsoft.tree.metrics;
+
+/**
+ * Receives the measurements of tree operations while instrumentation is enabled.
+ * <p>
+ * Implementations are found with {@link java.util.ServiceLoader} when the instrumentation starts up,
+ * or registered with {@link Instrumentation#register}. They are called on the thread doing the operation,
+ * possibly from several threads at once, so they have to be thread safe and quick.
+ */
+public interface TreeMetrics {
+    void count(Counter counter, long amount);
+
+    /**
+     * A phase has finished on the calling thread.
+     *
+     * @param allocatedBytes the bytes allocated by the calling thread during the phase, -1 if the JVM cannot tell
+     */
+    void phase(Phase phase, long nanos, long allocatedBytes);
+}
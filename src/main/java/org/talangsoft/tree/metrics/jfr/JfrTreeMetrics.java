@@ -0,0 +1,30 @@
+package org.talangsoft.tree.metrics.jfr;
+
+import org.talangsoft.tree.metrics.Counter;
+import org.talangsoft.tree.metrics.Phase;
+import org.talangsoft.tree.metrics.TreeMetrics;
+
+/**
+ * Turns the measurements into flight recorder events. Registered as a service, so it is picked up
+ * when instrumentation is enabled and the JVM has the flight recorder API, JDK 11 or 8u262 and later.
+ */
+public class JfrTreeMetrics implements TreeMetrics {
+    @Override
+    public void count(Counter counter, long amount) {
+        TreeOperationEvent event = new TreeOperationEvent();
+        if (!event.isEnabled()) return;
+        event.operation = counter.name();
+        event.count = amount;
+        event.commit();
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos, long allocatedBytes) {
+        TreePhaseEvent event = new TreePhaseEvent();
+        if (!event.shouldCommit()) return;
+        event.phase = phase.name();
+        event.elapsed = nanos;
+        event.allocated = allocatedBytes;
+        event.commit();
+    }
+}
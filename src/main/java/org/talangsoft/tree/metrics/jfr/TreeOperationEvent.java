@@ -0,0 +1,28 @@
+package org.talangsoft.tree.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Committed for every counted tree operation, disabled by default as it is as frequent as the operations themselves.
+ */
+@Name(TreeOperationEvent.NAME)
+@Label("Tree Operation")
+@Description("Lookups, node visits, inserts, moves and removes on a tree")
+@Category("Tree Viewer")
+@Enabled(false)
+@StackTrace(false)
+public class TreeOperationEvent extends Event {
+    public static final String NAME = "org.talangsoft.tree.Operation";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Count")
+    long count;
+}
@@ -0,0 +1,34 @@
+package org.talangsoft.tree.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Committed when a phase of building a tree has finished.
+ */
+@Name(TreePhaseEvent.NAME)
+@Label("Tree Build Phase")
+@Description("A phase of building a tree from pairs, tree elements or JSON")
+@Category("Tree Viewer")
+@StackTrace(false)
+public class TreePhaseEvent extends Event {
+    public static final String NAME = "org.talangsoft.tree.Phase";
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Elapsed")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Allocated")
+    @Description("Bytes allocated by the thread during the phase, -1 if unknown")
+    @DataAmount(DataAmount.BYTES)
+    long allocated;
+}
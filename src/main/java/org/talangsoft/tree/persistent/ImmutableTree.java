@@ -0,0 +1,320 @@
+package org.talangsoft.tree.persistent;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A version of a tree of unique elements that never changes. Insert, remove and move return a new version
+ * that copies only the nodes on the path from the root to the changed parent and shares every other subtree
+ * with this version, so old versions stay valid and cheap to keep.
+ * <p>
+ * Elements are located through a persistent map from every element to its parent and its slot in the children of
+ * the parent. The children are kept in a {@link PersistentVector}, so a node is copied with O(log fanout) arrays of
+ * at most 32 slots, however wide it is. An update costs O(depth * log fanout) copies plus O(depth * log n) map
+ * operations. Removing a subtree also drops its elements from the map, and clears the slot of its root. Once cleared
+ * slots outnumber the children, the children are compacted and their slots updated in the map, which is O(1)
+ * amortized per removal.
+ * <p>
+ * Versions can be shared between threads without synchronization. A writer can publish new versions
+ * through an {@link java.util.concurrent.atomic.AtomicReference}, readers keep working on the version they read:
+ * <pre>
+ * AtomicReference&lt;ImmutableTree&lt;String&gt;&gt; current = new AtomicReference&lt;&gt;(ImmutableTree.of("A"));
+ * current.updateAndGet(version -&gt; version.insert("A", "B"));
+ * </pre>
+ */
+public final class ImmutableTree<T> {
+    private final Node<T> root;
+    // the position of every element except the root
+    private final PersistentHashMap<T, Position<T>> positions;
+
+    private ImmutableTree(Node<T> root, PersistentHashMap<T, Position<T>> positions) {
+        this.root = root;
+        this.positions = positions;
+    }
+
+    public static <T> ImmutableTree<T> of(T root) {
+        return new ImmutableTree<>(new Node<>(root, PersistentVector.empty()), PersistentHashMap.empty());
+    }
+
+    /**
+     * Copies the tree bottom-up in one post-order pass.
+     *
+     * @throws IllegalArgumentException if an element occurs more than once
+     */
+    public static <T> ImmutableTree<T> of(Tree<T> tree) {
+        PersistentHashMap<T, Position<T>> positions = PersistentHashMap.empty();
+        ArrayDeque<Node<T>> built = new ArrayDeque<>();
+        Iterator<Tree<T>> nodes = tree.nodeIterator(Traversal.POST_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            List<Tree<T>> children = node.getChildNodes();
+            Node<T>[] childCopies = new Node[children.size()];
+            for (int i = childCopies.length - 1; i >= 0; i--) {
+                childCopies[i] = built.pop();
+                PersistentHashMap<T, Position<T>> withChild = positions.put(childCopies[i].data, new Position<>(node.getData(), i));
+                if (withChild.size() == positions.size()) throw duplicate(childCopies[i].data);
+                positions = withChild;
+            }
+            built.push(new Node<>(node.getData(), PersistentVector.of(childCopies)));
+        }
+        if (positions.containsKey(tree.getData())) throw duplicate(tree.getData());
+        return new ImmutableTree<>(built.pop(), positions);
+    }
+
+    public Tree<T> toTree() {
+        Tree<T> copy = new Tree<>(root.data);
+        ArrayDeque<Node<T>> pending = new ArrayDeque<>();
+        ArrayDeque<Tree<T>> copies = new ArrayDeque<>();
+        pending.push(root);
+        copies.push(copy);
+        while (!pending.isEmpty()) {
+            Node<T> node = pending.pop();
+            Tree<T> nodeCopy = copies.pop();
+            node.children.forEach(child -> {
+                nodeCopy.insert(child.data);
+                List<Tree<T>> copiedChildren = nodeCopy.getChildNodes();
+                pending.push(child);
+                copies.push(copiedChildren.get(copiedChildren.size() - 1));
+            });
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a version with the child added as the last child of the parent.
+     *
+     * @throws IllegalArgumentException if the parent is not in the tree or the child already is
+     */
+    public ImmutableTree<T> insert(T parent, T child) {
+        if (contains(child)) throw duplicate(child);
+        Path<T> path = pathTo(parent);
+        Node<T> parentNode = path.last();
+        Node<T> newParent = parentNode.withChild(new Node<>(child, PersistentVector.empty()));
+        return new ImmutableTree<>(replaceLast(path, newParent), positions.put(child, new Position<>(parent, parentNode.children.size())));
+    }
+
+    /**
+     * Returns a version without the element and its subtree.
+     *
+     * @throws IllegalArgumentException if the element is the root or not in the tree
+     */
+    public ImmutableTree<T> remove(T element) {
+        Path<T> path = pathTo(element);
+        if (path.nodes.length == 1) throw new IllegalArgumentException(String.format("The root '%s' cannot be removed", element));
+        PersistentHashMap<T, Position<T>> remainingPositions = positions;
+        ArrayDeque<Node<T>> removed = new ArrayDeque<>();
+        removed.push(path.last());
+        while (!removed.isEmpty()) {
+            Node<T> node = removed.pop();
+            remainingPositions = remainingPositions.remove(node.data);
+            node.children.forEach(removed::push);
+        }
+        return withoutLast(path, remainingPositions);
+    }
+
+    /**
+     * Returns a version with the element and its subtree moved to the end of the children of the new parent.
+     * The subtree itself is shared, not copied.
+     *
+     * @throws IllegalArgumentException if either element is not in the tree, or the new parent is in the subtree
+     */
+    public ImmutableTree<T> move(T element, T newParent) {
+        Path<T> path = pathTo(element);
+        if (path.nodes.length == 1) throw new IllegalArgumentException(String.format("The root '%s' cannot be moved", element));
+        for (T ancestor = newParent; ancestor != null; ancestor = parentOf(ancestor)) {
+            if (ancestor.equals(element)) {
+                throw new IllegalArgumentException(String.format("Cannot move '%s' into its own subtree under '%s'", element, newParent));
+            }
+        }
+        ImmutableTree<T> detached = withoutLast(path, positions);
+        Path<T> newParentPath = detached.pathTo(newParent);
+        Node<T> parentNode = newParentPath.last();
+        Node<T> newParentNode = parentNode.withChild(path.last());
+        Position<T> position = new Position<>(newParent, parentNode.children.size());
+        return new ImmutableTree<>(replaceLast(newParentPath, newParentNode), detached.positions.put(element, position));
+    }
+
+    public T getRootElement() {
+        return root.data;
+    }
+
+    public int size() {
+        return positions.size() + 1;
+    }
+
+    public boolean contains(T element) {
+        return positions.containsKey(element) || root.data.equals(element);
+    }
+
+    public Optional<T> getParentElement(T element) {
+        return Optional.ofNullable(parentOf(element));
+    }
+
+    private T parentOf(T element) {
+        Position<T> position = positions.get(element);
+        return position == null ? null : position.parent;
+    }
+
+    public List<T> getChildren(T element) {
+        List<T> children = new ArrayList<>();
+        pathTo(element).last().children.forEach(child -> children.add(child.data));
+        return children;
+    }
+
+    /**
+     * Lazy pre-order stream of the elements.
+     */
+    public Stream<T> elements() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new PreOrder<>(root), Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    public List<T> allElements() {
+        return elements().collect(Collectors.toList());
+    }
+
+    Node<T> node(T element) {
+        return pathTo(element).last();
+    }
+
+    /**
+     * The nodes from the root to the element: the slots of the ancestors come from the position map,
+     * then the nodes are picked from the children on the way down.
+     */
+    private Path<T> pathTo(T element) {
+        if (!contains(element)) {
+            throw new IllegalArgumentException(String.format("'%s' is not in the tree", element));
+        }
+        List<Position<T>> ancestry = new ArrayList<>();
+        for (Position<T> position = positions.get(element); position != null; position = positions.get(position.parent)) {
+            ancestry.add(position);
+        }
+        Collections.reverse(ancestry);
+
+        Path<T> path = new Path<>(ancestry.size() + 1);
+        path.nodes[0] = root;
+        for (int depth = 1; depth < path.nodes.length; depth++) {
+            path.slots[depth] = ancestry.get(depth - 1).slot;
+            path.nodes[depth] = path.nodes[depth - 1].children.get(path.slots[depth]);
+        }
+        return path;
+    }
+
+    private static <T> Node<T> replaceLast(Path<T> path, Node<T> replacement) {
+        Node<T> newNode = replacement;
+        for (int depth = path.nodes.length - 2; depth >= 0; depth--) {
+            newNode = path.nodes[depth].withReplacedChild(path.slots[depth + 1], newNode);
+        }
+        return newNode;
+    }
+
+    /**
+     * The version without the last node of the path, compacting the children of its parent if they got sparse.
+     */
+    private static <T> ImmutableTree<T> withoutLast(Path<T> path, PersistentHashMap<T, Position<T>> positions) {
+        int parentDepth = path.nodes.length - 2;
+        Node<T> parent = path.nodes[parentDepth].withoutChild(path.slots[parentDepth + 1]);
+        if (parent.children.isSparse()) {
+            parent = new Node<>(parent.data, parent.children.compacted());
+            for (int slot = 0; slot < parent.children.size(); slot++) {
+                positions = positions.put(parent.children.get(slot).data, new Position<>(parent.data, slot));
+            }
+        }
+        Path<T> parentPath = new Path<>(parentDepth + 1);
+        System.arraycopy(path.nodes, 0, parentPath.nodes, 0, parentDepth + 1);
+        System.arraycopy(path.slots, 0, parentPath.slots, 0, parentDepth + 1);
+        return new ImmutableTree<>(replaceLast(parentPath, parent), positions);
+    }
+
+    private static IllegalArgumentException duplicate(Object element) {
+        return new IllegalArgumentException(String.format("'%s' is already in the tree", element));
+    }
+
+    /**
+     * The parent of an element and the slot of the element in the children of the parent.
+     */
+    private static final class Position<T> {
+        final T parent;
+        final int slot;
+
+        Position(T parent, int slot) {
+            this.parent = parent;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * The nodes from the root to an element, with the slot of every node in the children of the one before.
+     */
+    private static final class Path<T> {
+        final Node<T>[] nodes;
+        final int[] slots;
+
+        Path(int length) {
+            this.nodes = new Node[length];
+            this.slots = new int[length];
+        }
+
+        Node<T> last() {
+            return nodes[nodes.length - 1];
+        }
+    }
+
+    static final class Node<T> {
+        final T data;
+        final PersistentVector<Node<T>> children;
+
+        Node(T data, PersistentVector<Node<T>> children) {
+            this.data = data;
+            this.children = children;
+        }
+
+        Node<T> withChild(Node<T> child) {
+            return new Node<>(data, children.add(child));
+        }
+
+        Node<T> withReplacedChild(int slot, Node<T> replacement) {
+            return new Node<>(data, children.set(slot, replacement));
+        }
+
+        Node<T> withoutChild(int slot) {
+            return new Node<>(data, children.clear(slot));
+        }
+    }
+
+    private static final class PreOrder<T> implements Iterator<T> {
+        private final ArrayDeque<Node<T>> pending = new ArrayDeque<>();
+
+        PreOrder(Node<T> root) {
+            pending.push(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            if (pending.isEmpty()) throw new NoSuchElementException();
+            Node<T> node = pending.pop();
+            for (int i = node.children.size() - 1; i >= 0; i--) {
+                Node<T> child = node.children.get(i);
+                if (child != null) pending.push(child);
+            }
+            return node.data;
+        }
+    }
+}
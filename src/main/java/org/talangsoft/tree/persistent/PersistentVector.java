@@ -0,0 +1,164 @@
+package org.talangsoft.tree.persistent;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Immutable vector in a trie of arrays of up to 32 slots: set and add return a new vector sharing all but
+ * O(log n) arrays with this one, copying at most 32 slots per level. Cleared slots keep the indexes of the
+ * following elements stable, {@link #compacted()} drops them.
+ */
+final class PersistentVector<E> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final PersistentVector EMPTY = new PersistentVector<>(new Object[0], 0, 0, 0);
+
+    // the elements at level 0, arrays of the next level down otherwise
+    private final Object[] root;
+    private final int shift;
+    // the slots in use, cleared ones included
+    private final int size;
+    private final int count;
+
+    private PersistentVector(Object[] root, int shift, int size, int count) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+        this.count = count;
+    }
+
+    static <E> PersistentVector<E> empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds the trie level by level, the elements must not be null.
+     */
+    static <E> PersistentVector<E> of(E[] elements) {
+        if (elements.length == 0) return empty();
+        Object[] level = elements.clone();
+        int shift = 0;
+        while (level.length > WIDTH) {
+            Object[] above = new Object[(level.length + WIDTH - 1) / WIDTH];
+            for (int i = 0; i < above.length; i++) {
+                above[i] = Arrays.copyOfRange(level, i * WIDTH, Math.min(level.length, (i + 1) * WIDTH));
+            }
+            level = above;
+            shift += BITS;
+        }
+        return new PersistentVector<>(level, shift, elements.length, elements.length);
+    }
+
+    /**
+     * The number of slots, cleared ones included.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The number of elements.
+     */
+    int count() {
+        return count;
+    }
+
+    /**
+     * The element in the slot, null if it was cleared.
+     */
+    E get(int index) {
+        checkIndex(index);
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & (WIDTH - 1)];
+        }
+        return (E) node[index & (WIDTH - 1)];
+    }
+
+    /**
+     * The element must not be null, use {@link #clear} to empty a slot.
+     */
+    PersistentVector<E> set(int index, E element) {
+        checkIndex(index);
+        return new PersistentVector<>(set(root, shift, index, element), shift, size, get(index) == null ? count + 1 : count);
+    }
+
+    PersistentVector<E> clear(int index) {
+        checkIndex(index);
+        if (get(index) == null) return this;
+        return new PersistentVector<>(set(root, shift, index, null), shift, size, count - 1);
+    }
+
+    /**
+     * Adds the element in a new slot at the end, its index is the size of this vector.
+     */
+    PersistentVector<E> add(E element) {
+        if (size == 1 << (shift + BITS)) {
+            Object[] newRoot = {root, path(shift, element)};
+            return new PersistentVector<>(newRoot, shift + BITS, size + 1, count + 1);
+        }
+        return new PersistentVector<>(add(root, shift, size, element), shift, size + 1, count + 1);
+    }
+
+    /**
+     * Whether cleared slots outnumber the elements, so compacting pays for itself.
+     */
+    boolean isSparse() {
+        return count * 2 < size;
+    }
+
+    /**
+     * The elements without the cleared slots, in the same order.
+     */
+    PersistentVector<E> compacted() {
+        if (count == size) return this;
+        Object[] elements = new Object[count];
+        int[] next = new int[1];
+        forEach(element -> elements[next[0]++] = element);
+        return of((E[]) elements);
+    }
+
+    /**
+     * Visits the elements in order, skipping the cleared slots.
+     */
+    void forEach(Consumer<? super E> action) {
+        forEach(root, shift, action);
+    }
+
+    private static void forEach(Object[] node, int level, Consumer action) {
+        for (Object slot : node) {
+            if (slot == null) continue;
+            if (level == 0) action.accept(slot);
+            else forEach((Object[]) slot, level - BITS, action);
+        }
+    }
+
+    private static Object[] set(Object[] node, int level, int index, Object element) {
+        Object[] copy = node.clone();
+        int slot = (index >>> level) & (WIDTH - 1);
+        copy[slot] = level == 0 ? element : set((Object[]) node[slot], level - BITS, index, element);
+        return copy;
+    }
+
+    /**
+     * Arrays only grow as far as they are used, so a vector of a few elements takes a single short array.
+     */
+    private static Object[] add(Object[] node, int level, int index, Object element) {
+        int slot = (index >>> level) & (WIDTH - 1);
+        Object[] copy = Arrays.copyOf(node, slot + 1);
+        if (level == 0) {
+            copy[slot] = element;
+        } else {
+            copy[slot] = slot < node.length ? add((Object[]) node[slot], level - BITS, index, element) : path(level - BITS, element);
+        }
+        return copy;
+    }
+
+    private static Object[] path(int level, Object element) {
+        return level == 0 ? new Object[]{element} : new Object[]{path(level - BITS, element)};
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(String.format("Index %d, size %d", index, size));
+    }
+}
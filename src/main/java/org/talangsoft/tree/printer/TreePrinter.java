@@ -2,12 +2,178 @@ package org.talangsoft.tree.printer;
 
 import org.talangsoft.tree.Tree;
 
-import java.util.stream.Collectors;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
 
+/**
+ * Renders trees line by line in pre-order, iteratively, so trees of any depth can be printed.
+ * Lines are collected in a buffer and written to the target in large chunks.
+ * <p>
+ * Depth and breadth can be limited for huge trees, the left out nodes are summarized in "..." lines.
+ */
 public class TreePrinter {
+
+    public enum Layout {
+        /**
+         * A line per node with the node and its children: TreeNode[C -> {D,E}]
+         */
+        TREE_NODE("", "", "", ""),
+        /**
+         * The node on its own line, indented below its parent with ASCII characters.
+         */
+        ASCII("+-- ", "\\-- ", "|   ", "    "),
+        /**
+         * The node on its own line, indented below its parent with box-drawing characters.
+         */
+        BOX_DRAWING("\u251c\u2500\u2500 ", "\u2514\u2500\u2500 ", "\u2502   ", "    ");
+
+        private final String child;
+        private final String lastChild;
+        // below an ancestor that has siblings printed after it, and below one that has not
+        private final String continuation;
+        private final String blank;
+
+        Layout(String child, String lastChild, String continuation, String blank) {
+            this.child = child;
+            this.lastChild = lastChild;
+            this.continuation = continuation;
+            this.blank = blank;
+        }
+    }
+
+    private static final int UNLIMITED = Integer.MAX_VALUE;
+    private static final int FLUSH_THRESHOLD = 1 << 13;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Layout layout;
+    private final int maxDepth;
+    private final int maxChildren;
+
+    public TreePrinter(Layout layout) {
+        this(layout, UNLIMITED, UNLIMITED);
+    }
+
+    private TreePrinter(Layout layout, int maxDepth, int maxChildren) {
+        this.layout = layout;
+        this.maxDepth = maxDepth;
+        this.maxChildren = maxChildren;
+    }
+
+    /**
+     * Prints the tree to the standard output in the TreeNode[...] layout.
+     */
     public static <T> void print(Tree<T> tree) {
-        String childrenString = tree.getChildren().stream().map(Object::toString).collect(Collectors.joining(","));
-        System.out.println(String.format("TreeNode[%s -> {%s}]", tree.getData().toString(), childrenString));
-        tree.getChildNodes().stream().forEach(TreePrinter::print);
+        try {
+            new TreePrinter(Layout.TREE_NODE).print(tree, System.out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Nodes deeper than the given depth are left out, the root is on depth 0.
+     */
+    public TreePrinter withMaxDepth(int maxDepth) {
+        return new TreePrinter(layout, maxDepth, maxChildren);
+    }
+
+    /**
+     * Only the first given number of children of every node are printed.
+     */
+    public TreePrinter withMaxChildren(int maxChildren) {
+        return new TreePrinter(layout, maxDepth, maxChildren);
+    }
+
+    public <T> String render(Tree<T> tree) {
+        StringBuilder rendered = new StringBuilder();
+        try {
+            print(tree, rendered);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rendered.toString();
+    }
+
+    public <T> void print(Tree<T> tree, Appendable out) throws IOException {
+        StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD * 2);
+        // the nodes from the root to the current one, with the index of the next child to print for each
+        Tree<T>[] path = new Tree[16];
+        int[] nextChildIndexes = new int[16];
+        // whether the node on the path has siblings printed after it, which decides the indentation below it
+        boolean[] moreSiblingsAfter = new boolean[16];
+
+        appendNode(buffer, tree, moreSiblingsAfter, 0, true);
+        path[0] = tree;
+        int depth = 1;
+        while (depth > 0) {
+            if (buffer.length() > FLUSH_THRESHOLD) {
+                out.append(buffer);
+                buffer.setLength(0);
+            }
+
+            Tree<T> node = path[depth - 1];
+            List<Tree<T>> children = node.getChildNodes();
+            int shownChildren = Math.min(children.size(), maxChildren);
+            if (depth - 1 == maxDepth) {
+                if (!children.isEmpty()) appendElided(buffer, moreSiblingsAfter, depth, children.size(), " children");
+                path[--depth] = null;
+                continue;
+            }
+
+            int childIndex = nextChildIndexes[depth - 1];
+            if (childIndex < shownChildren) {
+                nextChildIndexes[depth - 1]++;
+                Tree<T> child = children.get(childIndex);
+                boolean lastChild = childIndex == children.size() - 1;
+                appendNode(buffer, child, moreSiblingsAfter, depth, lastChild);
+
+                if (depth == path.length) {
+                    path = Arrays.copyOf(path, depth * 2);
+                    nextChildIndexes = Arrays.copyOf(nextChildIndexes, depth * 2);
+                    moreSiblingsAfter = Arrays.copyOf(moreSiblingsAfter, depth * 2);
+                }
+                path[depth] = child;
+                nextChildIndexes[depth] = 0;
+                moreSiblingsAfter[depth] = !lastChild;
+                depth++;
+            } else {
+                if (shownChildren < children.size()) appendElided(buffer, moreSiblingsAfter, depth, children.size() - shownChildren, " more");
+                path[--depth] = null;
+            }
+        }
+        out.append(buffer);
+    }
+
+    private <T> void appendNode(StringBuilder buffer, Tree<T> node, boolean[] moreSiblingsAfter, int depth, boolean lastChild) {
+        if (layout == Layout.TREE_NODE) {
+            buffer.append("TreeNode[").append(node.getData()).append(" -> {");
+            List<Tree<T>> children = node.getChildNodes();
+            int shownChildren = Math.min(children.size(), maxChildren);
+            for (int i = 0; i < shownChildren; i++) {
+                if (i > 0) buffer.append(',');
+                buffer.append(children.get(i).getData());
+            }
+            if (shownChildren < children.size()) buffer.append(",...");
+            buffer.append("}]").append(LINE_SEPARATOR);
+        } else {
+            appendIndentation(buffer, moreSiblingsAfter, depth, lastChild);
+            buffer.append(node.getData()).append(LINE_SEPARATOR);
+        }
+    }
+
+    private void appendElided(StringBuilder buffer, boolean[] moreSiblingsAfter, int depth, int count, String what) {
+        if (layout == Layout.TREE_NODE) return;
+        appendIndentation(buffer, moreSiblingsAfter, depth, true);
+        buffer.append("... ").append(count).append(what).append(LINE_SEPARATOR);
+    }
+
+    private void appendIndentation(StringBuilder buffer, boolean[] moreSiblingsAfter, int depth, boolean lastChild) {
+        if (depth == 0) return;
+        for (int ancestorDepth = 1; ancestorDepth < depth; ancestorDepth++) {
+            buffer.append(moreSiblingsAfter[ancestorDepth] ? layout.continuation : layout.blank);
+        }
+        buffer.append(lastChild ? layout.lastChild : layout.child);
     }
 }
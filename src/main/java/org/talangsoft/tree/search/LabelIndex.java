@@ -0,0 +1,321 @@
+package org.talangsoft.tree.search;
+
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Finds the nodes of a tree whose label contains a text, for search as you type, without looking at every label.
+ * <p>
+ * Labels are lower-cased and cut into trigrams, every three consecutive characters, plus the two trigrams padded
+ * at the start that stand for the first one and two characters. Each trigram has a postings list of the nodes
+ * having it, the node numbers in increasing order stored as variable-length deltas, mostly a byte per node.
+ * A query of three characters or more intersects the postings of its trigrams and checks the labels of the
+ * candidates, a shorter query finds the labels starting with it.
+ * <p>
+ * Matches are ranked: the label equal to the query, then labels starting with it, then labels with a word
+ * starting with it, then the rest. Within a rank shorter labels come first, then nodes closer to the root.
+ * <p>
+ * Nodes added to the tree have to be told to the index with {@link #inserted}, removed ones with {@link #removed}.
+ * Moves within the tree need nothing: paths are followed through the parents at query time, and nodes that are no
+ * longer under the root are never returned.
+ */
+public final class LabelIndex<T> {
+    // the character before the first one of a label in the padded trigrams
+    private static final char START = '\u0000';
+    private static final Comparator<Match<?>> RANKING = Comparator.<Match<?>>comparingInt(match -> match.rank)
+            .thenComparingInt(match -> match.label.length())
+            .thenComparingInt(match -> match.depth)
+            .thenComparingInt(match -> match.id);
+
+    private final Tree<T> root;
+    private final Function<T, String> labelExtractor;
+    private final Map<Tree<T>, Integer> ids = new IdentityHashMap<>();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    // indexed by node number, null once the node is removed
+    private Tree<T>[] nodes;
+    private String[] labels;
+    private int size;
+    private int removed;
+
+    private LabelIndex(Tree<T> root, Function<T, String> labelExtractor) {
+        this.root = root;
+        this.labelExtractor = labelExtractor;
+        rebuild();
+    }
+
+    /**
+     * Indexes the labels of every node under the root.
+     */
+    public static <T> LabelIndex<T> of(Tree<T> root, Function<T, String> labelExtractor) {
+        return new LabelIndex<>(root, labelExtractor);
+    }
+
+    /**
+     * Indexes the nodes of a subtree that was inserted or moved into the tree, nodes already indexed are skipped.
+     */
+    public void inserted(Tree<T> subtree) {
+        Iterator<Tree<T>> iterator = subtree.nodeIterator(Traversal.PRE_ORDER);
+        while (iterator.hasNext()) {
+            Tree<T> node = iterator.next();
+            if (!ids.containsKey(node)) add(node);
+        }
+    }
+
+    /**
+     * Drops the nodes of a subtree that was removed from the tree. Their postings are cleaned up when the removed
+     * nodes outnumber the live ones, by renumbering the whole tree.
+     */
+    public void removed(Tree<T> subtree) {
+        Iterator<Tree<T>> iterator = subtree.nodeIterator(Traversal.PRE_ORDER);
+        while (iterator.hasNext()) {
+            Integer id = ids.remove(iterator.next());
+            if (id == null) continue;
+            nodes[id] = null;
+            labels[id] = null;
+            removed++;
+        }
+        if (removed > size - removed) rebuild();
+    }
+
+    /**
+     * Renumbers every node under the root in pre-order and rebuilds the postings.
+     */
+    public void rebuild() {
+        ids.clear();
+        postings.clear();
+        nodes = new Tree[16];
+        labels = new String[16];
+        size = 0;
+        removed = 0;
+        inserted(root);
+    }
+
+    /**
+     * The number of nodes in the index.
+     */
+    public int size() {
+        return size - removed;
+    }
+
+    /**
+     * The best ranked nodes under the root whose label contains the query, ignoring case.
+     */
+    public List<Match<T>> search(String query, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException(String.format("The limit has to be positive, it was %d", limit));
+        String text = normalize(query);
+        if (text.isEmpty()) return Collections.emptyList();
+
+        PriorityQueue<Match<T>> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        for (int id : candidates(text)) {
+            String label = labels[id];
+            if (label == null) continue;
+            int position = label.indexOf(text);
+            if (position < 0) continue;
+            int depth = depthUnderRoot(nodes[id]);
+            if (depth < 0) continue;
+            best.add(new Match<>(nodes[id], label, rank(label, position, text), depth, id));
+            if (best.size() > limit) best.poll();
+        }
+        List<Match<T>> matches = new ArrayList<>(best);
+        matches.sort(RANKING);
+        // the paths only for the matches returned, a short query can have a large part of the tree as candidates
+        for (Match<T> match : matches) match.path = Collections.unmodifiableList(pathFromRoot(match.node));
+        return matches;
+    }
+
+    private int[] candidates(String text) {
+        if (text.length() < 3) {
+            Postings prefix = postings.get(text.length() == 1 ? trigram(START, START, text.charAt(0)) : trigram(START, text.charAt(0), text.charAt(1)));
+            return prefix == null ? new int[0] : prefix.decode();
+        }
+        Postings[] lists = new Postings[text.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postings.get(trigram(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)));
+            if (lists[i] == null) return new int[0];
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.count));
+        int[] candidates = lists[0].decode();
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            count = lists[i].retain(candidates, count);
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private static int rank(String label, int position, String text) {
+        if (position == 0) return label.length() == text.length() ? 0 : 1;
+        for (int at = position; at >= 0; at = label.indexOf(text, at + 1)) {
+            if (!Character.isLetterOrDigit(label.charAt(at - 1))) return 2;
+        }
+        return 3;
+    }
+
+    /**
+     * The number of edges from the root to the node, -1 if the node is not under the root anymore.
+     */
+    private int depthUnderRoot(Tree<T> node) {
+        int depth = 0;
+        Tree<T> current = node;
+        while (current != root) {
+            Optional<Tree<T>> parent = current.getParent();
+            if (!parent.isPresent()) return -1;
+            current = parent.get();
+            depth++;
+        }
+        return depth;
+    }
+
+    /**
+     * The elements from the root to a node under the root.
+     */
+    private List<T> pathFromRoot(Tree<T> node) {
+        List<T> path = new ArrayList<>();
+        for (Tree<T> current = node; current != root; current = current.getParent().get()) {
+            path.add(current.getData());
+        }
+        path.add(root.getData());
+        Collections.reverse(path);
+        return path;
+    }
+
+    private void add(Tree<T> node) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            labels = Arrays.copyOf(labels, size * 2);
+        }
+        int id = size++;
+        String label = normalize(labelExtractor.apply(node.getData()));
+        ids.put(node, id);
+        nodes[id] = node;
+        labels[id] = label;
+        if (label.isEmpty()) return;
+
+        addPosting(trigram(START, START, label.charAt(0)), id);
+        if (label.length() > 1) addPosting(trigram(START, label.charAt(0), label.charAt(1)), id);
+        for (int i = 0; i + 2 < label.length(); i++) {
+            addPosting(trigram(label.charAt(i), label.charAt(i + 1), label.charAt(i + 2)), id);
+        }
+    }
+
+    private void addPosting(long trigram, int id) {
+        postings.computeIfAbsent(trigram, key -> new Postings()).add(id);
+    }
+
+    private static long trigram(char first, char second, char third) {
+        return (long) first << 32 | (long) second << 16 | third;
+    }
+
+    private static String normalize(String label) {
+        return label == null ? "" : label.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A node whose label contains the query, with the elements on the path from the root of the index to the node.
+     */
+    public static final class Match<T> {
+        private final Tree<T> node;
+        private final String label;
+        private final int rank;
+        private final int depth;
+        private final int id;
+        // set once the match is among the ones returned
+        private List<T> path;
+
+        private Match(Tree<T> node, String label, int rank, int depth, int id) {
+            this.node = node;
+            this.label = label;
+            this.rank = rank;
+            this.depth = depth;
+            this.id = id;
+        }
+
+        public Tree<T> getNode() {
+            return node;
+        }
+
+        /**
+         * The elements from the root to the node, both included.
+         */
+        public List<T> getPath() {
+            return path;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{" + path + '}';
+        }
+    }
+
+    /**
+     * Increasing node numbers, each stored as the difference to the previous one in 7-bit groups,
+     * the high bit of a byte telling that more groups follow.
+     */
+    private static final class Postings {
+        private byte[] bytes = new byte[4];
+        private int length;
+        private int count;
+        private int last = -1;
+
+        void add(int id) {
+            // a label with the same trigram twice
+            if (id == last) return;
+            if (length + 5 > bytes.length) bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            int delta = id - last;
+            while (delta >= 0x80) {
+                bytes[length++] = (byte) (delta | 0x80);
+                delta >>>= 7;
+            }
+            bytes[length++] = (byte) delta;
+            last = id;
+            count++;
+        }
+
+        int[] decode() {
+            int[] ids = new int[count];
+            int id = -1;
+            int position = 0;
+            for (int i = 0; i < count; i++) {
+                int delta = 0;
+                for (int shift = 0; ; shift += 7) {
+                    byte next = bytes[position++];
+                    delta |= (next & 0x7f) << shift;
+                    if (next >= 0) break;
+                }
+                id += delta;
+                ids[i] = id;
+            }
+            return ids;
+        }
+
+        /**
+         * Keeps the first count candidates that are in this list, in place, and returns how many were kept.
+         */
+        int retain(int[] candidates, int count) {
+            int[] ids = decode();
+            int kept = 0;
+            for (int i = 0, j = 0; i < count && j < ids.length; ) {
+                if (candidates[i] < ids[j]) i++;
+                else if (candidates[i] > ids[j]) j++;
+                else {
+                    candidates[kept++] = candidates[i++];
+                    j++;
+                }
+            }
+            return kept;
+        }
+    }
+}
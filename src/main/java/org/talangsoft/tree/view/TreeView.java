@@ -0,0 +1,327 @@
+package org.talangsoft.tree.view;
+
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * A filtered view of a tree that navigates the nodes of the tree instead of copying them: the nodes matching the
+ * predicate with their ancestors, so every match stays reachable from the root, optionally down to a depth only.
+ * <p>
+ * The matches are computed in one post-order pass numbering the nodes in pre-order. A bit set marks the nodes kept,
+ * another one the matches, and an array holds the size of every subtree, so the children of a node are found by
+ * skipping over the subtrees of their preceding siblings. That is about 5 bytes a node, a copy of the tree would
+ * take a hundred. The result is kept until the version of the tree changes: creating a view enables versioning on
+ * the whole tree of its root, see {@link Tree#withVersion()}, so reading the view never writes to the tree.
+ * <pre>
+ *        A                    A
+ *      /   \                  |
+ *     B     C       ==&gt;       C
+ *    / \    |                 |
+ *   D   E   F*                F*
+ * </pre>
+ * Nodes of the view are small cursors over the nodes of the tree, they follow the changes of the tree as long as
+ * their node is kept in the view. Like the tree, a view is not safe for concurrent use, but any number of views
+ * can be read in parallel over a tree that does not change.
+ */
+public final class TreeView<T> {
+    private final Tree<T> root;
+    private final Predicate<T> predicate;
+    private final int maxDepth;
+    // computed on first access and after every change of the tree
+    private Matches matches;
+
+    private TreeView(Tree<T> root, Predicate<T> predicate, int maxDepth) {
+        this.root = root;
+        this.predicate = predicate;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * The view of the tree under the root with the nodes matching the predicate and their ancestors.
+     * Versioning is enabled on the tree the root belongs to if it is not versioned yet, which walks that tree once.
+     */
+    public static <T> TreeView<T> of(Tree<T> root, Predicate<T> predicate) {
+        if (!root.isVersioned()) topOf(root).withVersion();
+        return new TreeView<>(root, predicate, Integer.MAX_VALUE);
+    }
+
+    /**
+     * The same view cut at the depth, the root being at depth 0. Matches below the depth are not looked at.
+     */
+    public TreeView<T> withMaxDepth(int maxDepth) {
+        if (maxDepth < 0) throw new IllegalArgumentException(String.format("The depth cannot be negative, it was %d", maxDepth));
+        return new TreeView<>(root, predicate, maxDepth);
+    }
+
+    /**
+     * The root of the view, empty if no node matches.
+     */
+    public Optional<Node<T>> root() {
+        return node(root);
+    }
+
+    /**
+     * The node of the view showing the node of the tree, empty if it is not kept in the view.
+     */
+    public Optional<Node<T>> node(Tree<T> node) {
+        Matches current = matches();
+        int position = current.positionOf(node);
+        return position < 0 ? Optional.empty() : Optional.of(new Node<>(this, node, position, current));
+    }
+
+    /**
+     * The number of nodes kept in the view.
+     */
+    public int size() {
+        return matches().kept.cardinality();
+    }
+
+    private Matches matches() {
+        if (!root.isVersioned()) {
+            throw new IllegalStateException(String.format("The tree of '%s' is no longer versioned, it was removed from the tree the view was created on", root.getData()));
+        }
+        long version = root.version();
+        if (matches == null || matches.version != version) matches = new Matches(version, matches == null ? 0 : matches.nodes);
+        return matches;
+    }
+
+    private static <T> Tree<T> topOf(Tree<T> node) {
+        Tree<T> top = node;
+        while (top.getParent().isPresent()) top = top.getParent().get();
+        return top;
+    }
+
+    /**
+     * A node of the view, showing a node of the tree.
+     */
+    public static final class Node<T> {
+        private final TreeView<T> view;
+        private final Tree<T> node;
+        private int position;
+        private TreeView<T>.Matches matches;
+
+        private Node(TreeView<T> view, Tree<T> node, int position, TreeView<T>.Matches matches) {
+            this.view = view;
+            this.node = node;
+            this.position = position;
+            this.matches = matches;
+        }
+
+        /**
+         * The node of the tree, not a copy.
+         */
+        public Tree<T> getTree() {
+            return node;
+        }
+
+        public T getData() {
+            return node.getData();
+        }
+
+        /**
+         * Whether the node matches the predicate, otherwise it is only kept as an ancestor of a match.
+         */
+        public boolean isMatch() {
+            return current().matched.get(position);
+        }
+
+        public Optional<Node<T>> getParent() {
+            return node == view.root ? Optional.empty() : node.getParent().flatMap(view::node);
+        }
+
+        /**
+         * The number of children kept in the view, counted by skipping from kept child to kept child without
+         * looking at the children of the tree.
+         */
+        public int getChildCount() {
+            TreeView<T>.Matches current = current();
+            int count = 0;
+            int end = position + current.subtreeSizes[position];
+            // the kept node following a kept node in pre-order within its subtree is its first kept child,
+            // as every ancestor of a kept node is kept
+            for (int child = current.kept.nextSetBit(position + 1); child >= 0 && child < end;
+                 child = current.kept.nextSetBit(child + current.subtreeSizes[child])) {
+                count++;
+            }
+            return count;
+        }
+
+        public List<Node<T>> getChildNodes() {
+            return children(0, Integer.MAX_VALUE);
+        }
+
+        /**
+         * A page of the children kept in the view, skipping the first offset ones. The kept children are indexed
+         * the first time the node is paged, so every following page only takes the nodes it returns.
+         */
+        public List<Node<T>> getChildNodes(int offset, int limit) {
+            if (offset < 0 || limit < 0) throw new IllegalArgumentException(String.format("Negative paging parameter, offset %d, limit %d", offset, limit));
+            return children(offset, limit);
+        }
+
+        private List<Node<T>> children(int offset, int limit) {
+            TreeView<T>.Matches current = current();
+            // the children of the nodes at the depth cut are not numbered
+            if (current.subtreeSizes[position] == 1 || limit == 0) return Collections.emptyList();
+            int[] keptChildren = current.keptChildrenOf(node, position);
+            int count = keptChildren.length / 2;
+            if (offset >= count) return Collections.emptyList();
+            int last = (int) Math.min((long) offset + limit, count);
+            List<Tree<T>> treeChildren = node.getChildNodes();
+            List<Node<T>> children = new ArrayList<>(last - offset);
+            for (int kept = offset; kept < last; kept++) {
+                children.add(new Node<>(view, treeChildren.get(keptChildren[2 * kept + 1]), keptChildren[2 * kept], current));
+            }
+            return children;
+        }
+
+        /**
+         * The matches of the view, with the position of the node renumbered if the tree changed since.
+         */
+        private TreeView<T>.Matches current() {
+            TreeView<T>.Matches current = view.matches();
+            if (current != matches) {
+                int renumbered = current.positionOf(node);
+                if (renumbered < 0) throw new IllegalStateException(String.format("'%s' is no longer in the view", node.getData()));
+                position = renumbered;
+                matches = current;
+            }
+            return current;
+        }
+
+        @Override
+        public String toString() {
+            return "Node{" + node.getData() + '}';
+        }
+    }
+
+    /**
+     * The nodes kept for a version of the tree, numbered in pre-order.
+     */
+    private final class Matches {
+        private final long version;
+        private final BitSet kept = new BitSet();
+        private final BitSet matched = new BitSet();
+        private int[] subtreeSizes;
+        // the number of nodes down to the depth cut
+        private final int nodes;
+        // by position of the nodes paged so far, the position and the index in the children of the tree of every
+        // kept child
+        private final Map<Integer, int[]> keptChildren = new HashMap<>();
+
+        /**
+         * @param expectedNodes the number of nodes numbered for the previous version, as most changes are small
+         */
+        Matches(long version, int expectedNodes) {
+            this.version = version;
+            this.subtreeSizes = new int[Math.max(16, expectedNodes + expectedNodes / 8)];
+            // the children of the nodes on the path to the node being visited, with the next child to visit,
+            // the position of the node and whether a kept node was below
+            List<Tree<T>>[] childLists = new List[16];
+            int[] nextChild = new int[16];
+            int[] positions = new int[16];
+            boolean[] keepsMatch = new boolean[16];
+            Tree<T>[] path = new Tree[16];
+            int numbered = 0;
+
+            int depth = 0;
+            path[0] = root;
+            childLists[0] = root.getChildNodes();
+            positions[0] = numbered++;
+            while (depth >= 0) {
+                List<Tree<T>> children = childLists[depth];
+                if (depth < maxDepth && nextChild[depth] < children.size()) {
+                    if (depth + 1 == path.length) {
+                        path = Arrays.copyOf(path, path.length * 2);
+                        childLists = Arrays.copyOf(childLists, path.length);
+                        nextChild = Arrays.copyOf(nextChild, path.length);
+                        positions = Arrays.copyOf(positions, path.length);
+                        keepsMatch = Arrays.copyOf(keepsMatch, path.length);
+                    }
+                    Tree<T> child = children.get(nextChild[depth]++);
+                    depth++;
+                    path[depth] = child;
+                    childLists[depth] = child.getChildNodes();
+                    nextChild[depth] = 0;
+                    keepsMatch[depth] = false;
+                    positions[depth] = numbered++;
+                    continue;
+                }
+
+                int position = positions[depth];
+                if (position >= subtreeSizes.length) {
+                    subtreeSizes = Arrays.copyOf(subtreeSizes, Math.max(subtreeSizes.length * 2, position + 1));
+                }
+                subtreeSizes[position] = numbered - position;
+                boolean match = predicate.test(path[depth].getData());
+                if (match) matched.set(position);
+                if (match || keepsMatch[depth]) {
+                    kept.set(position);
+                    if (depth > 0) keepsMatch[depth - 1] = true;
+                }
+                path[depth] = null;
+                childLists[depth] = null;
+                depth--;
+            }
+            nodes = numbered;
+        }
+
+        /**
+         * The kept children of the node at the position, in pairs of their position and their index in the children
+         * of the tree, indexed in one pass over the children on first call.
+         */
+        int[] keptChildrenOf(Tree<T> node, int position) {
+            int[] indexed = keptChildren.get(position);
+            if (indexed != null) return indexed;
+            List<Tree<T>> children = node.getChildNodes();
+            int[] pairs = new int[8];
+            int count = 0;
+            int childPosition = position + 1;
+            for (int index = 0; index < children.size(); index++) {
+                if (kept.get(childPosition)) {
+                    if (2 * count == pairs.length) pairs = Arrays.copyOf(pairs, pairs.length * 2);
+                    pairs[2 * count] = childPosition;
+                    pairs[2 * count + 1] = index;
+                    count++;
+                }
+                childPosition += subtreeSizes[childPosition];
+            }
+            indexed = Arrays.copyOf(pairs, 2 * count);
+            keptChildren.put(position, indexed);
+            return indexed;
+        }
+
+        /**
+         * The position of the node, found by descending from the root and skipping the preceding siblings on the way,
+         * -1 if it is not under the root, below the depth or not kept.
+         */
+        int positionOf(Tree<T> node) {
+            List<Tree<T>> path = new ArrayList<>();
+            Optional<Tree<T>> current = Optional.of(node);
+            while (current.isPresent() && current.get() != root) {
+                path.add(current.get());
+                current = current.get().getParent();
+            }
+            if (!current.isPresent() || path.size() > maxDepth) return -1;
+
+            int position = 0;
+            for (int step = path.size() - 1; step >= 0; step--) {
+                Tree<T> parent = step + 1 < path.size() ? path.get(step + 1) : root;
+                List<Tree<T>> siblings = parent.getChildNodes();
+                int index = siblings.indexOf(path.get(step));
+                position++;
+                for (int sibling = 0; sibling < index; sibling++) position += subtreeSizes[position];
+            }
+            return kept.get(position) ? position : -1;
+        }
+    }
+}
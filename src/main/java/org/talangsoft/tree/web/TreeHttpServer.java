@@ -0,0 +1,314 @@
+package org.talangsoft.tree.web;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.talangsoft.tree.Aggregate;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.TreeListener;
+import org.talangsoft.tree.exportimport.treeelement.TreeElementJsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Serves a tree to the web viewer node by node, so the browser only loads the branches the user opens.
+ * <ul>
+ * <li>GET /children?node=id&amp;offset=0&amp;limit=100 pages through the children of the node, without node it returns the root</li>
+ * <li>GET /summary?node=id tells the number of children and the size of the subtree</li>
+ * </ul>
+ * Nodes are written in the tree element JSON shape of {@link TreeElementJsonWriter}, extended with
+ * {@value #NODE_ID_FIELD} and {@value #CHILD_COUNT_FIELD}.
+ * <p>
+ * Every subtree has a version stamp that changes whenever something below it changes. Responses carry it as an ETag,
+ * and requests with a matching If-None-Match are answered with 304 Not Modified, so the viewer can revalidate
+ * the open branches cheaply. The tree must only be changed inside {@link #update}, which takes a write lock.
+ * The server listens to the inserts, moves and removes of the tree, and bumps the stamps of the nodes whose children
+ * changed and of their ancestors, so only the touched nodes are looked at.
+ * <p>
+ * The server registers a {@link Aggregate#count()} aggregate and a {@link TreeListener} on the tree, which makes
+ * the tree versioned: every insert, move and remove then also updates the subtree sizes along the ancestors.
+ * The listener is removed by {@link #stop()}, the aggregate and the versioning stay with the tree.
+ * <p>
+ * Run the JVM with -Dsun.net.httpserver.nodelay=true, otherwise small responses on kept-alive connections
+ * wait for delayed TCP acknowledgements and a client gets about 20 responses a second.
+ */
+public class TreeHttpServer<T, ID> {
+    public static final String CHILDREN_PATH = "/children";
+    public static final String SUMMARY_PATH = "/summary";
+    public static final String NODE_ID_FIELD = "nodeId";
+    public static final String CHILD_COUNT_FIELD = "childCount";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private final Tree<T> tree;
+    private final Function<T, ID> idForElementProvider;
+    private final ObjectMapper mapper;
+    private final TreeElementJsonWriter elementWriter;
+    private final Aggregate<T, Long> subtreeSize = Aggregate.count();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // differs between server instances, so ETags of a previous run never match
+    private final long epoch = ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // guarded by the lock
+    private final Map<String, Tree<T>> nodesById = new HashMap<>();
+    private final Map<Tree<T>, Long> versions = new IdentityHashMap<>();
+    // only grows, so a node added in place of a removed one with the same id never gets the stamp of the removed one
+    private long lastVersion;
+    // the subtrees attached and detached by the running update, (un)indexed when it ends
+    private final List<Tree<T>> attached = new ArrayList<>();
+    private final List<Tree<T>> detached = new ArrayList<>();
+    private final TreeListener<T> changes = new TreeListener<T>() {
+        @Override
+        public void attached(Tree<T> subtree, Tree<T> parent) {
+            attached.add(subtree);
+            stamp(parent);
+        }
+
+        @Override
+        public void detached(Tree<T> subtree, Tree<T> parent) {
+            detached.add(subtree);
+            stamp(parent);
+        }
+    };
+
+    /**
+     * Binds the server to the address, port 0 picks a free port. The subtree size aggregate and a listener
+     * following the changes are registered on the tree, which has to be a root.
+     */
+    public TreeHttpServer(Tree<T> tree, Function<T, ID> idForElementProvider, ObjectMapper mapper, InetSocketAddress address) throws IOException {
+        this.tree = tree.withAggregate(subtreeSize).withListener(changes);
+        this.idForElementProvider = idForElementProvider;
+        this.mapper = mapper;
+        this.elementWriter = new TreeElementJsonWriter(mapper);
+        indexSubtree(tree);
+
+        this.server = HttpServer.create(address, 0);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        server.setExecutor(executor);
+        server.createContext(CHILDREN_PATH, exchange -> handle(exchange, this::children));
+        server.createContext(SUMMARY_PATH, exchange -> handle(exchange, this::summary));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+        tree.removeListener(changes);
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * Runs the change under the write lock. The inserts, moves and removes it makes are reported by the tree, the
+     * stamps of the parents whose children changed and of their ancestors are bumped, and the nodes of the subtrees
+     * that joined or left the tree are indexed or forgotten, without looking at the other children.
+     */
+    public void update(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            ++lastVersion;
+            change.run();
+            for (Tree<T> subtree : detached) {
+                if (!isInTree(subtree)) unindexSubtree(subtree);
+            }
+            for (Tree<T> subtree : attached) {
+                if (nodesById.get(id(subtree)) != subtree && isInTree(subtree)) indexSubtree(subtree);
+            }
+        } finally {
+            attached.clear();
+            detached.clear();
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stamps the node and its ancestors with the version of the running update, up to the first one already stamped
+     * by it, whose ancestors are stamped too.
+     */
+    private void stamp(Tree<T> changed) {
+        for (Optional<Tree<T>> node = Optional.of(changed); node.isPresent(); node = node.get().getParent()) {
+            Long previous = versions.put(node.get(), lastVersion);
+            if (previous != null && previous == lastVersion) return;
+        }
+    }
+
+    private interface Handler {
+        void handle(Map<String, String> query, HttpExchange exchange) throws IOException;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendStatus(exchange, 405);
+                return;
+            }
+            lock.readLock().lock();
+            try {
+                handler.handle(query(exchange), exchange);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } catch (IllegalArgumentException e) {
+            sendStatus(exchange, 400);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void children(Map<String, String> query, HttpExchange exchange) throws IOException {
+        int offset = intParameter(query, "offset", 0);
+        int limit = Math.min(intParameter(query, "limit", DEFAULT_LIMIT), MAX_LIMIT);
+        if (offset < 0 || limit < 0) throw new IllegalArgumentException("Negative paging parameter");
+        Optional<Tree<T>> node = query.containsKey("node") ? nodeOrNotFound(query, exchange) : Optional.of(tree);
+        if (!node.isPresent() || notModified(node.get(), exchange)) return;
+
+        List<Tree<T>> children = query.containsKey("node") ? node.get().getChildNodes() : Collections.singletonList(tree);
+        sendJson(exchange, generator -> {
+            generator.writeStartObject();
+            generator.writeObjectField("node", query.containsKey("node") ? idForElementProvider.apply(node.get().getData()) : null);
+            generator.writeNumberField("offset", offset);
+            generator.writeNumberField("limit", limit);
+            generator.writeNumberField("total", children.size());
+            generator.writeArrayFieldStart("elements");
+            for (int i = offset; i < Math.min(children.size(), offset + (long) limit); i++) {
+                Tree<T> child = children.get(i);
+                generator.writeStartObject();
+                elementWriter.writeElementFields(generator, child.getData(), child == tree ? Optional.empty() : child.getParentElement().map(idForElementProvider));
+                generator.writeObjectField(NODE_ID_FIELD, idForElementProvider.apply(child.getData()));
+                generator.writeNumberField(CHILD_COUNT_FIELD, child.getChildNodes().size());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    private void summary(Map<String, String> query, HttpExchange exchange) throws IOException {
+        Optional<Tree<T>> node = query.containsKey("node") ? nodeOrNotFound(query, exchange) : Optional.of(tree);
+        if (!node.isPresent() || notModified(node.get(), exchange)) return;
+
+        sendJson(exchange, generator -> {
+            generator.writeStartObject();
+            generator.writeObjectField(NODE_ID_FIELD, idForElementProvider.apply(node.get().getData()));
+            generator.writeNumberField(CHILD_COUNT_FIELD, node.get().getChildNodes().size());
+            generator.writeNumberField("subtreeSize", node.get().aggregate(subtreeSize));
+            generator.writeEndObject();
+        });
+    }
+
+    private Optional<Tree<T>> nodeOrNotFound(Map<String, String> query, HttpExchange exchange) throws IOException {
+        Tree<T> node = nodesById.get(query.get("node"));
+        if (node == null) sendStatus(exchange, 404);
+        return Optional.ofNullable(node);
+    }
+
+    private boolean notModified(Tree<T> node, HttpExchange exchange) throws IOException {
+        String etag = "\"" + Long.toString(epoch, 36) + "-" + versions.get(node) + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        if (!etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) return false;
+        sendStatus(exchange, 304);
+        return true;
+    }
+
+    private interface JsonBody {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    private void sendJson(HttpExchange exchange, JsonBody body) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (JsonGenerator generator = mapper.getFactory().createGenerator(buffer, JsonEncoding.UTF8)) {
+            body.write(generator);
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, buffer.size());
+        try (OutputStream out = exchange.getResponseBody()) {
+            buffer.writeTo(out);
+        }
+    }
+
+    private static void sendStatus(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) return parameters;
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator <= 0) continue;
+            parameters.put(URLDecoder.decode(parameter.substring(0, separator), "UTF-8"), URLDecoder.decode(parameter.substring(separator + 1), "UTF-8"));
+        }
+        return parameters;
+    }
+
+    private static int intParameter(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("'%s' is not a valid %s", value, name), e);
+        }
+    }
+
+    private String id(Tree<T> node) {
+        return String.valueOf(idForElementProvider.apply(node.getData()));
+    }
+
+    private boolean isInTree(Tree<T> node) {
+        Tree<T> root = node;
+        while (root.getParent().isPresent()) root = root.getParent().get();
+        return root == tree;
+    }
+
+    /**
+     * Indexes the nodes of the subtree and stamps them with the last version.
+     */
+    private void indexSubtree(Tree<T> subtree) {
+        Iterator<Tree<T>> nodes = subtree.nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            nodesById.put(id(node), node);
+            versions.put(node, lastVersion);
+        }
+    }
+
+    private void unindexSubtree(Tree<T> subtree) {
+        Iterator<Tree<T>> nodes = subtree.nodeIterator(Traversal.PRE_ORDER);
+        while (nodes.hasNext()) {
+            Tree<T> node = nodes.next();
+            nodesById.remove(id(node), node);
+            versions.remove(node);
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.talangsoft.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TreeAggregateTest {
+    private final Aggregate<Integer, Long> count = Aggregate.count();
+    private final Aggregate<Integer, Long> sum = Aggregate.sum(Integer::longValue);
+    private final Aggregate<Integer, Long> max = Aggregate.max(Integer::longValue);
+    // recombined from the values of the children on detach, as it has no inverse
+    private final Aggregate<Integer, Long> sumWithoutInverse = Aggregate.of(Integer::longValue, 0L, Long::sum);
+
+    /**
+     * Tree under test:
+     * <pre>
+     *     1
+     *    / \
+     *   2   3
+     *  / \
+     * 4   5
+     * </pre>
+     */
+    private Tree<Integer> tree() {
+        Tree<Integer> root = new Tree<>(1);
+        root.insert(2).insert(3);
+        root.getChildNodes().get(0).insert(4).insert(5);
+        return root;
+    }
+
+    @Test
+    public void shouldComputeTheAggregatesOfEverySubtree() {
+        Tree<Integer> root = tree().withAggregate(count).withAggregate(sum).withAggregate(max);
+        Tree<Integer> two = root.lookup(2).get();
+
+        assertThat(root.aggregate(count)).isEqualTo(5);
+        assertThat(root.aggregate(sum)).isEqualTo(15);
+        assertThat(root.aggregate(max)).isEqualTo(5);
+        assertThat(two.aggregate(sum)).isEqualTo(11);
+        assertThat(root.lookup(3).get().aggregate(count)).isEqualTo(1);
+    }
+
+    @Test
+    public void insertShouldUpdateTheAncestors() {
+        Tree<Integer> root = tree().withAggregate(sum).withAggregate(max);
+        Tree<Integer> four = root.lookup(4).get();
+
+        four.insert(10);
+
+        assertThat(four.aggregate(sum)).isEqualTo(14);
+        assertThat(root.lookup(2).get().aggregate(sum)).isEqualTo(21);
+        assertThat(root.aggregate(sum)).isEqualTo(25);
+        assertThat(root.aggregate(max)).isEqualTo(10);
+    }
+
+    @Test
+    public void movesAndRemovesShouldUpdateBothSides() {
+        Tree<Integer> root = tree().withAggregate(sum).withAggregate(max);
+        Tree<Integer> two = root.lookup(2).get();
+        Tree<Integer> three = root.lookup(3).get();
+        Tree<Integer> five = root.lookup(5).get();
+
+        three.insert(five);
+
+        assertThat(two.aggregate(sum)).isEqualTo(6);
+        assertThat(two.aggregate(max)).isEqualTo(4);
+        assertThat(three.aggregate(sum)).isEqualTo(8);
+        assertThat(root.aggregate(sum)).isEqualTo(15);
+
+        root.remove(three);
+
+        assertThat(root.aggregate(sum)).isEqualTo(7);
+        assertThat(root.aggregate(max)).isEqualTo(4);
+        assertThatThrownBy(() -> three.aggregate(sum)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void movingANodeUnderItselfShouldBeRejectedWithoutChangingTheTree() {
+        Tree<Integer> root = tree().withAggregate(count);
+        Tree<Integer> two = root.lookup(2).get();
+        Tree<Integer> four = root.lookup(4).get();
+
+        assertThatThrownBy(() -> four.insert(two)).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("'2'");
+        assertThatThrownBy(() -> four.insert(four)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> four.insert(root)).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(root.allElements()).containsExactly(1, 2, 4, 5, 3);
+        assertThat(root.aggregate(count)).isEqualTo(5);
+        assertThat(two.aggregate(count)).isEqualTo(3);
+    }
+
+    @Test
+    public void subtreesFromOtherTreesShouldBeRecomputed() {
+        Tree<Integer> root = tree().withAggregate(sum);
+        Tree<Integer> other = new Tree<>(100);
+        other.insert(200);
+
+        root.insert(other);
+
+        assertThat(other.aggregate(sum)).isEqualTo(300);
+        assertThat(root.aggregate(sum)).isEqualTo(315);
+    }
+
+    @Test
+    public void shouldOnlyBeRegisteredOnTheRoot() {
+        Tree<Integer> root = tree();
+
+        assertThatThrownBy(() -> root.lookup(2).get().withAggregate(sum)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> root.aggregate(sum)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void randomChangesShouldKeepTheCachedValuesEqualToFullRecomputation() {
+        Random random = new Random(42);
+        Tree<Integer> root = new Tree<>(0).withAggregate(count).withAggregate(sum).withAggregate(max).withAggregate(sumWithoutInverse);
+        List<Tree<Integer>> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 1; i < 3_000; i++) {
+            Tree<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+            int operation = random.nextInt(4);
+            if (operation < 2 || nodes.size() < 10) {
+                parent.insert(i);
+                nodes.add(parent.getChildNodes().get(parent.getChildNodes().size() - 1));
+            } else {
+                Tree<Integer> node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+                if (isInSubtree(parent, node)) continue;
+                if (operation == 2) {
+                    parent.insert(node);
+                } else {
+                    node.getParent().get().remove(node);
+                    nodes.removeAll(node.allNodes());
+                }
+            }
+        }
+
+        root.nodes(Traversal.PRE_ORDER).forEach(node -> {
+            assertThat(node.aggregate(count)).isEqualTo(node.allElements().size());
+            assertThat(node.aggregate(sum)).isEqualTo(node.elements(Traversal.PRE_ORDER).mapToLong(Integer::longValue).sum());
+            assertThat(node.aggregate(max)).isEqualTo(node.elements(Traversal.PRE_ORDER).mapToLong(Integer::longValue).max().getAsLong());
+            assertThat(node.aggregate(sumWithoutInverse)).isEqualTo(node.aggregate(sum));
+        });
+    }
+
+    @Test
+    public void batchMovesAndRemovesShouldKeepTheCachedValuesEqualToFullRecomputation() {
+        Random random = new Random(7);
+        Tree<Integer> root = new Tree<>(0).withAggregate(count).withAggregate(sum).withAggregate(max).withAggregate(sumWithoutInverse);
+        List<Tree<Integer>> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 1; i < 2_000; i++) {
+            Tree<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+            parent.insert(i);
+            nodes.add(parent.getChildNodes().get(parent.getChildNodes().size() - 1));
+        }
+        for (int round = 0; round < 200; round++) {
+            Tree<Integer> parent = nodes.get(random.nextInt(nodes.size()));
+            // nodes and some of their descendants in the same batch
+            Set<Tree<Integer>> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < 5; i++) {
+                Tree<Integer> node = nodes.get(1 + random.nextInt(nodes.size() - 1));
+                if (!isInSubtree(parent, node)) batch.add(node);
+            }
+            if (round % 4 == 0) {
+                Tree.removeSubtrees(batch);
+                batch.forEach(node -> nodes.removeAll(node.allNodes()));
+            } else {
+                Tree.moveAll(batch, parent);
+            }
+        }
+
+        root.nodes(Traversal.PRE_ORDER).forEach(node -> {
+            assertThat(node.aggregate(count)).isEqualTo(node.allElements().size());
+            assertThat(node.aggregate(sum)).isEqualTo(node.elements(Traversal.PRE_ORDER).mapToLong(Integer::longValue).sum());
+            assertThat(node.aggregate(max)).isEqualTo(node.elements(Traversal.PRE_ORDER).mapToLong(Integer::longValue).max().getAsLong());
+            assertThat(node.aggregate(sumWithoutInverse)).isEqualTo(node.aggregate(sum));
+        });
+    }
+
+    @Test
+    public void removingUnderAWideNodeShouldNotRecombineAllTheChildren() {
+        AtomicInteger combines = new AtomicInteger();
+        Aggregate<Integer, Long> countedMax = Aggregate.of(Integer::longValue, Long.MIN_VALUE, (first, second) -> {
+            combines.incrementAndGet();
+            return Math.max(first, second);
+        });
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> wide = new Tree<>(1);
+        root.insert(wide);
+        for (int child = 2; child < 100_002; child++) {
+            wide.insert(child);
+        }
+        root.withAggregate(countedMax);
+        Tree<Integer> largest = wide.getChildNodes().get(wide.getChildNodes().size() - 1);
+
+        combines.set(0);
+        wide.remove(largest);
+        assertThat(combines.get()).isLessThan(100);
+        assertThat(root.aggregate(countedMax)).isEqualTo(100_000);
+
+        combines.set(0);
+        root.insert(largest);
+        assertThat(combines.get()).isLessThan(100);
+        assertThat(root.aggregate(countedMax)).isEqualTo(100_001);
+        assertThat(wide.aggregate(countedMax)).isEqualTo(100_000);
+    }
+
+    private static boolean isInSubtree(Tree<Integer> node, Tree<Integer> subtreeRoot) {
+        return subtreeRoot.nodes(Traversal.PRE_ORDER).anyMatch(subtreeNode -> subtreeNode == node);
+    }
+}
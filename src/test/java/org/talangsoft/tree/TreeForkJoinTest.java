@@ -0,0 +1,157 @@
+package org.talangsoft.tree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeForkJoinTest {
+
+    private final Tree<Integer> randomTree = randomTree(100_000, new Random(42));
+
+    @Test
+    public void splitsShouldCoverEveryNodeOnceInPreOrder() {
+        List<Integer> visited = new ArrayList<>();
+        splitToTheEnd(randomTree.spliterator(), visited);
+
+        assertThat(visited).isEqualTo(randomTree.allElements());
+    }
+
+    @Test
+    public void splitsShouldReportExactSizesWhenSubtreeSizesAreKnown() {
+        Map<Tree<Integer>, Long> subtreeSizes = new HashMap<>();
+        randomTree.nodes(Traversal.POST_ORDER).forEach(node ->
+                subtreeSizes.put(node, 1 + node.getChildNodes().stream().mapToLong(subtreeSizes::get).sum()));
+
+        Spliterator<Tree<Integer>> nodes = randomTree.spliterator(subtreeSizes::get);
+        assertThat(nodes.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED)).isTrue();
+        assertThat(nodes.estimateSize()).isEqualTo(100_000);
+
+        Spliterator<Tree<Integer>> prefix = nodes.trySplit();
+        long prefixSize = prefix.estimateSize();
+        long suffixSize = nodes.estimateSize();
+        assertThat(prefixSize + suffixSize).isEqualTo(100_000);
+
+        List<Integer> visited = new ArrayList<>();
+        prefix.forEachRemaining(node -> visited.add(node.getData()));
+        assertThat(visited).hasSize((int) prefixSize);
+        nodes.forEachRemaining(node -> visited.add(node.getData()));
+        assertThat(visited).isEqualTo(randomTree.allElements());
+    }
+
+    @Test
+    public void aSingleChildShouldBeOpenedUpToSplitItsChildren() {
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> onlyChild = new Tree<>(1);
+        root.insert(onlyChild);
+        for (int leaf = 2; leaf < 10_000; leaf++) {
+            onlyChild.insert(new Tree<>(leaf));
+        }
+
+        Spliterator<Tree<Integer>> nodes = root.spliterator();
+        Spliterator<Tree<Integer>> prefix = nodes.trySplit();
+        assertThat(prefix).isNotNull();
+        Spliterator<Tree<Integer>> secondLevelPrefix = prefix.trySplit();
+        assertThat(secondLevelPrefix).isNotNull();
+        Spliterator<Tree<Integer>> suffixPrefix = nodes.trySplit();
+        assertThat(suffixPrefix).isNotNull();
+
+        List<Integer> visited = new ArrayList<>();
+        secondLevelPrefix.forEachRemaining(node -> visited.add(node.getData()));
+        assertThat(visited).startsWith(0, 1);
+        splitToTheEnd(prefix, visited);
+        splitToTheEnd(suffixPrefix, visited);
+        splitToTheEnd(nodes, visited);
+        assertThat(visited).isEqualTo(root.allElements());
+    }
+
+    @Test
+    public void aPrefixWithASingleSubtreeShouldSplitAgain() {
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> left = new Tree<>(1);
+        Tree<Integer> right = new Tree<>(2);
+        root.insert(left);
+        root.insert(right);
+        for (int leaf = 3; leaf < 10_000; leaf++) {
+            (leaf % 2 == 0 ? left : right).insert(new Tree<>(leaf));
+        }
+
+        Spliterator<Tree<Integer>> nodes = root.spliterator();
+        Spliterator<Tree<Integer>> prefix = nodes.trySplit();
+        Spliterator<Tree<Integer>> secondLevelPrefix = prefix.trySplit();
+        assertThat(secondLevelPrefix).isNotNull();
+        assertThat(prefix.trySplit()).isNotNull();
+        assertThat(nodes.trySplit()).isNotNull();
+    }
+
+    @Test
+    public void aDeepChainShouldBeSplitInPieces() {
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> last = root;
+        for (int node = 1; node < 5 * TreeSpliterator.MAX_CHAIN; node++) {
+            Tree<Integer> child = new Tree<>(node);
+            last.insert(child);
+            last = child;
+        }
+
+        Spliterator<Tree<Integer>> nodes = root.spliterator();
+        Spliterator<Tree<Integer>> prefix = nodes.trySplit();
+        assertThat(prefix.estimateSize()).isEqualTo(TreeSpliterator.MAX_CHAIN);
+
+        List<Integer> visited = new ArrayList<>();
+        splitToTheEnd(prefix, visited);
+        splitToTheEnd(nodes, visited);
+        assertThat(visited).isEqualTo(root.allElements());
+        assertThat(TreeForkJoin.reduce(root, 0, Math::max)).isEqualTo(5 * TreeSpliterator.MAX_CHAIN - 1);
+    }
+
+    @Test
+    public void parallelNodesShouldKeepThePreOrder() {
+        List<Integer> elements = randomTree.parallelNodes().map(Tree::getData).collect(Collectors.toList());
+
+        assertThat(elements).isEqualTo(randomTree.allElements());
+    }
+
+    @Test
+    public void mapReduceShouldCombineTheNodesInPreOrder() {
+        long expectedSum = randomTree.elements(Traversal.PRE_ORDER).mapToLong(Integer::longValue).sum();
+        assertThat(TreeForkJoin.mapReduce(randomTree, node -> (long) node.getData(), 0L, Long::sum, new ForkJoinPool(4))).isEqualTo(expectedSum);
+        assertThat(TreeForkJoin.reduce(randomTree, 0, Math::max)).isEqualTo(99_999);
+
+        // string concatenation is associative but not commutative
+        Tree<Integer> smallTree = randomTree(1_000, new Random(7));
+        String expected = smallTree.elements(Traversal.PRE_ORDER).map(String::valueOf).collect(Collectors.joining(","));
+        String concatenated = TreeForkJoin.mapReduce(smallTree, node -> String.valueOf(node.getData()), "",
+                (left, right) -> left.isEmpty() ? right : right.isEmpty() ? left : left + "," + right);
+        assertThat(concatenated).isEqualTo(expected);
+    }
+
+    private static <T> void splitToTheEnd(Spliterator<Tree<T>> nodes, List<T> visited) {
+        Spliterator<Tree<T>> prefix = nodes.trySplit();
+        if (prefix != null) {
+            splitToTheEnd(prefix, visited);
+            splitToTheEnd(nodes, visited);
+        } else {
+            nodes.forEachRemaining(node -> visited.add(node.getData()));
+        }
+    }
+
+    private static Tree<Integer> randomTree(int size, Random random) {
+        List<Tree<Integer>> nodes = new ArrayList<>(size);
+        nodes.add(new Tree<>(0));
+        for (int node = 1; node < size; node++) {
+            Tree<Integer> child = new Tree<>(node);
+            nodes.get(random.nextInt(node)).insert(child);
+            nodes.add(child);
+        }
+        return nodes.get(0);
+    }
+}
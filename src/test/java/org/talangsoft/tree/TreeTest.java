@@ -5,11 +5,19 @@ import org.junit.Test;
 import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
 import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TreeTest {
 
@@ -61,4 +69,280 @@ public class TreeTest {
         List<String> elementsFromNodes = nodes.stream().map(node -> node.getData()).collect(Collectors.toList());
         assertThat(elementsFromNodes).containsExactlyInAnyOrder("A", "B", "C", "D", "F", "G", "E");
     }
+
+    @Test
+    public void indexedLookupShouldFindTheSameNodesAsTheScan() {
+        Tree<String> indexedTree = TreeFromPairBuilder.buildFromParentChildPairs(parentChildPairs).withIndex();
+
+        for (String element : Arrays.asList("A", "B", "C", "D", "E", "F", "G")) {
+            assertThat(indexedTree.lookup(element).get()).isSameAs(indexedTree.scan(element).get());
+        }
+        assertThat(indexedTree.lookup("X").isPresent()).isFalse();
+    }
+
+    @Test
+    public void indexedLookupShouldOnlySearchTheSubtreeOfTheNode() {
+        Tree<String> indexedTree = TreeFromPairBuilder.buildFromParentChildPairs(parentChildPairs).withIndex();
+        Tree<String> nodeC = indexedTree.lookup("C").get();
+
+        assertThat(nodeC.lookup("F").isPresent()).isTrue();
+        assertThat(nodeC.lookup("C").get()).isSameAs(nodeC);
+        assertThat(nodeC.lookup("A").isPresent()).isFalse();
+        assertThat(nodeC.lookup("B").isPresent()).isFalse();
+    }
+
+    @Test
+    public void indexedLookupShouldFollowInsertsAndReparenting() {
+        Tree<String> indexedTree = Tree.indexed("A");
+        indexedTree.insert("B").insert("C");
+        Tree<String> nodeB = indexedTree.lookup("B").get();
+        Tree<String> nodeC = indexedTree.lookup("C").get();
+        nodeC.insert("D");
+
+        // move D under B
+        Tree<String> nodeD = indexedTree.lookup("D").get();
+        nodeB.insert(nodeD);
+        assertThat(nodeB.getChildren()).containsExactly("D");
+        assertThat(nodeC.getChildren()).isEmpty();
+        assertThat(nodeB.lookup("D").get()).isSameAs(nodeD);
+        assertThat(nodeC.lookup("D").isPresent()).isFalse();
+
+        // insert a subtree from another tree
+        indexedTree.insert(new Tree<>("E", Collections.singletonList(new Tree<>("F"))));
+        assertThat(indexedTree.lookup("E").isPresent()).isTrue();
+        assertThat(indexedTree.lookup("F").isPresent()).isTrue();
+
+        // remove a subtree
+        assertThat(indexedTree.remove(nodeB)).isTrue();
+        assertThat(indexedTree.lookup("B").isPresent()).isFalse();
+        assertThat(indexedTree.lookup("D").isPresent()).isFalse();
+        assertThat(nodeB.isIndexed()).isFalse();
+        assertThat(nodeB.lookup("D").get()).isSameAs(nodeD);
+    }
+
+    @Test
+    public void indexedLookupShouldReturnTheFirstNodeInDepthFirstOrderForDuplicates() {
+        /*
+         * |    A
+         * |  /   \
+         * | B     C
+         * | |     |
+         * | X     X
+         */
+        Tree<String> indexedTree = Tree.indexed("A");
+        indexedTree.insert("C").insert("B");
+        Tree<String> nodeB = indexedTree.lookup("B").get();
+        Tree<String> nodeC = indexedTree.lookup("C").get();
+        nodeC.insert("X");
+        nodeB.insert("X");
+        indexedTree.getChildNodes().sort(Comparator.comparing(Tree::getData));
+
+        assertThat(indexedTree.lookup("X").get().getParent().get()).isSameAs(nodeB);
+        assertThat(nodeC.lookup("X").get().getParent().get()).isSameAs(nodeC);
+
+        nodeB.remove(nodeB.getChildNodes().get(0));
+        assertThat(indexedTree.lookup("X").get().getParent().get()).isSameAs(nodeC);
+    }
+
+    @Test
+    public void traversalsShouldVisitTheNodesInTheirOrder() {
+        assertThat(exampleTree.elements(Traversal.PRE_ORDER)).containsExactly("A", "B", "C", "D", "F", "G", "E");
+        assertThat(exampleTree.elements(Traversal.POST_ORDER)).containsExactly("B", "F", "G", "D", "E", "C", "A");
+        assertThat(exampleTree.elements(Traversal.BREADTH_FIRST)).containsExactly("A", "B", "C", "D", "E", "F", "G");
+        assertThat(exampleTree.elements(Traversal.LEAVES)).containsExactly("B", "F", "G", "E");
+        assertThat(exampleTree.lookup("C").get().elements(Traversal.POST_ORDER)).containsExactly("F", "G", "D", "E", "C");
+    }
+
+    @Test
+    public void traversalsShouldStopWhenTheStreamIsShortCircuited() {
+        List<String> visited = new ArrayList<>();
+        Optional<String> firstLeafUnderC = exampleTree.nodes(Traversal.PRE_ORDER)
+                .peek(node -> visited.add(node.getData()))
+                .filter(node -> node.getParentElement().equals(Optional.of("D")))
+                .map(Tree::getData)
+                .findFirst();
+
+        assertThat(firstLeafUnderC).contains("F");
+        assertThat(visited).containsExactly("A", "B", "C", "D", "F");
+    }
+
+    @Test
+    public void traversalsShouldHandleDeepTrees() {
+        int depth = 100_000;
+        Tree<Integer> chain = new Tree<>(0);
+        Tree<Integer> last = chain;
+        for (int node = 1; node < depth; node++) {
+            Tree<Integer> next = new Tree<>(node);
+            last.insert(next);
+            last = next;
+        }
+
+        assertThat(chain.allElements()).hasSize(depth);
+        assertThat(chain.allNodes()).hasSize(depth);
+        assertThat(chain.allBottomLevelSuccessor()).containsExactly(depth - 1);
+        assertThat(chain.elements(Traversal.POST_ORDER).findFirst()).contains(depth - 1);
+        assertThat(chain.elements(Traversal.BREADTH_FIRST).skip(depth - 1).findFirst()).contains(depth - 1);
+        assertThat(chain.lookup(depth - 1)).contains(last);
+    }
+
+    @Test
+    public void detachingChildrenShouldKeepTheOrderOfTheOthers() {
+        Tree<Integer> root = new Tree<>(-1);
+        for (int child = 0; child < 10_000; child++) root.insert(child);
+        List<Tree<Integer>> children = new ArrayList<>(root.getChildNodes());
+
+        for (int child = 0; child < 10_000; child += 2) root.remove(children.get(child));
+        root.insert(10_000);
+
+        assertThat(root.getChildNodes()).hasSize(5_001);
+        assertThat(root.getChildren().subList(0, 3)).containsExactly(1, 3, 5);
+        assertThat(root.getChildNodes().indexOf(children.get(9_999))).isEqualTo(4_999);
+        assertThat(root.getChildNodes().contains(children.get(0))).isFalse();
+        assertThat(root.remove(children.get(0))).isFalse();
+        assertThat(root.getChildren().get(5_000)).isEqualTo(10_000);
+    }
+
+    @Test
+    public void readingDetachedChildrenInParallelShouldSeeTheSameChildren() throws Exception {
+        for (int round = 0; round < 100; round++) {
+            Tree<Integer> root = new Tree<>(-1);
+            for (int child = 0; child < 1_000; child++) root.insert(child);
+            List<Tree<Integer>> children = new ArrayList<>(root.getChildNodes());
+            for (int child = 0; child < 1_000; child += 3) root.remove(children.get(child));
+            List<Integer> expected = children.stream().map(Tree::getData).filter(child -> child % 3 != 0).collect(Collectors.toList());
+
+            ExecutorService readers = Executors.newFixedThreadPool(4);
+            List<Future<List<Integer>>> reads = new ArrayList<>();
+            for (int reader = 0; reader < 4; reader++) reads.add(readers.submit(root::getChildren));
+            for (Future<List<Integer>> read : reads) assertThat(read.get()).isEqualTo(expected);
+            readers.shutdown();
+        }
+    }
+
+    @Test
+    public void moveAllShouldAppendTheNodesInOrder() {
+        Tree<String> indexedTree = exampleTree.withIndex();
+        Tree<String> nodeB = indexedTree.lookup("B").get();
+        Tree<String> nodeC = indexedTree.lookup("C").get();
+        Tree<String> nodeD = indexedTree.lookup("D").get();
+        Tree<String> other = new Tree<>("X");
+
+        Tree.moveAll(Arrays.asList(nodeD.getChildNodes().get(1), nodeC, other), nodeB);
+
+        assertThat(nodeB.getChildren()).containsExactly("G", "C", "X");
+        assertThat(indexedTree.getChildren()).containsExactly("B");
+        assertThat(nodeD.getChildren()).containsExactly("F");
+        assertThat(indexedTree.lookup("X").get().getParent()).contains(nodeB);
+        assertThat(indexedTree.allElements()).containsExactly("A", "B", "G", "C", "D", "F", "E", "X");
+    }
+
+    @Test
+    public void moveAllShouldRejectTheBatchWithoutChangingTheTree() {
+        Tree<String> nodeC = exampleTree.lookup("C").get();
+        Tree<String> nodeD = exampleTree.lookup("D").get();
+        Tree<String> nodeB = exampleTree.lookup("B").get();
+
+        assertThatThrownBy(() -> Tree.moveAll(Arrays.asList(nodeB, nodeC), nodeD))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("'C'");
+        assertThat(exampleTree.allElements()).containsExactly("A", "B", "C", "D", "F", "G", "E");
+    }
+
+    @Test
+    public void insertShouldRejectAnAncestorWithoutChangingTheTree() {
+        Tree<String> nodeC = exampleTree.lookup("C").get();
+        Tree<String> nodeF = exampleTree.lookup("F").get();
+
+        assertThatThrownBy(() -> nodeF.insert(nodeC)).isInstanceOf(IllegalArgumentException.class).hasMessageContaining("'C'");
+        assertThatThrownBy(() -> nodeF.insert(exampleTree)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(exampleTree.allElements()).containsExactly("A", "B", "C", "D", "F", "G", "E");
+
+        Tree<String> indexedTree = new Tree<>("X").withIndex();
+        indexedTree.insert("Y");
+        Tree<String> nodeY = indexedTree.lookup("Y").get();
+        assertThatThrownBy(() -> nodeY.insertUnchecked(indexedTree)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void moveAllShouldMoveRepeatedNodesOnce() {
+        Tree<String> nodeB = exampleTree.lookup("B").get();
+        Tree<String> nodeD = exampleTree.lookup("D").get();
+        Tree<String> other = new Tree<>("X");
+
+        Tree.moveAll(Arrays.asList(nodeB, other, nodeB, other), nodeD);
+
+        assertThat(nodeD.getChildren()).containsExactly("F", "G", "B", "X");
+        assertThat(exampleTree.getChildren()).containsExactly("C");
+    }
+
+    @Test
+    public void removeSubtreesShouldDetachEveryNode() {
+        Tree<String> indexedTree = exampleTree.withIndex();
+        Tree<String> nodeB = indexedTree.lookup("B").get();
+        Tree<String> nodeD = indexedTree.lookup("D").get();
+        Tree<String> nodeF = indexedTree.lookup("F").get();
+
+        Tree.removeSubtrees(Arrays.asList(nodeF, nodeB, nodeD));
+
+        assertThat(indexedTree.allElements()).containsExactly("A", "C", "E");
+        assertThat(nodeD.allElements()).containsExactly("D", "G");
+        assertThat(nodeF.getParent()).isEmpty();
+        assertThat(indexedTree.lookup("G").isPresent()).isFalse();
+        assertThatThrownBy(() -> Tree.removeSubtrees(Collections.singletonList(nodeB)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void versionShouldCountTheChangesOfTheTree() {
+        Tree<String> versionedTree = exampleTree.withVersion().withIndex();
+        Tree<String> nodeB = versionedTree.lookup("B").get();
+        Tree<String> nodeD = versionedTree.lookup("D").get();
+        long version = versionedTree.version();
+
+        nodeB.insert("X");
+        assertThat(nodeD.version()).isGreaterThan(version);
+        version = versionedTree.version();
+
+        nodeD.getChildNodes().sort(Comparator.comparing(Tree::getData, Comparator.reverseOrder()));
+        assertThat(versionedTree.version()).isGreaterThan(version);
+        version = versionedTree.version();
+
+        Tree.removeSubtrees(Collections.singletonList(nodeD));
+        assertThat(versionedTree.version()).isGreaterThan(version);
+        assertThat(nodeD.isVersioned()).isFalse();
+        assertThatThrownBy(nodeD::version).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(nodeB::withVersion).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void listenersShouldBeToldOfInsertsMovesAndRemoves() {
+        List<String> changes = new ArrayList<>();
+        TreeListener<String> listener = new TreeListener<String>() {
+            @Override
+            public void attached(Tree<String> subtree, Tree<String> parent) {
+                changes.add("+" + subtree.getData() + "<" + parent.getData());
+            }
+
+            @Override
+            public void detached(Tree<String> subtree, Tree<String> parent) {
+                changes.add("-" + subtree.getData() + "<" + parent.getData());
+            }
+        };
+        Tree<String> listenedTree = exampleTree.withListener(listener);
+        Tree<String> nodeB = listenedTree.lookup("B").get();
+        Tree<String> nodeC = listenedTree.lookup("C").get();
+        Tree<String> nodeD = listenedTree.lookup("D").get();
+
+        nodeB.insert("X");
+        nodeB.insert(nodeD);
+        Tree.moveAll(Arrays.asList(nodeD.getChildNodes().get(0), nodeC), nodeB);
+        listenedTree.remove(nodeB);
+        nodeB.insert("Y");
+
+        assertThat(listenedTree.isVersioned()).isTrue();
+        assertThat(changes).containsExactly("+X<B", "-D<C", "+D<B", "-F<D", "-C<A", "+F<B", "+C<B", "-B<A");
+        assertThat(listenedTree.removeListener(listener)).isTrue();
+        listenedTree.insert("Z");
+        assertThat(changes).hasSize(8);
+        assertThatThrownBy(() -> nodeC.withListener(listener)).isInstanceOf(IllegalStateException.class);
+    }
 }
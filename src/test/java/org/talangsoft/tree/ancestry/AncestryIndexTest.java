@@ -0,0 +1,131 @@
+package org.talangsoft.tree.ancestry;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AncestryIndexTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *     A
+     *    / \
+     *   B   C
+     *  / \
+     * D   E
+     * </pre>
+     */
+    private final Tree<String> a = new Tree<>("A");
+    private final Tree<String> b = insert(a, "B");
+    private final Tree<String> c = insert(a, "C");
+    private final Tree<String> d = insert(b, "D");
+    private final Tree<String> e = insert(b, "E");
+
+    @Test
+    public void shouldAnswerQueriesOnASmallTree() {
+        AncestryIndex<String> index = AncestryIndex.of(a);
+
+        assertThat(index.size()).isEqualTo(5);
+        assertThat(index.depth(e)).isEqualTo(2);
+        assertThat(index.isAncestor(a, e)).isTrue();
+        assertThat(index.isAncestor(b, d)).isTrue();
+        assertThat(index.isAncestor(c, d)).isFalse();
+        assertThat(index.isAncestor(d, b)).isFalse();
+        assertThat(index.isAncestor(b, b)).isFalse();
+        assertThat(index.lowestCommonAncestor(d, e)).isSameAs(b);
+        assertThat(index.lowestCommonAncestor(d, c)).isSameAs(a);
+        assertThat(index.lowestCommonAncestor(b, e)).isSameAs(b);
+        assertThat(index.ancestor(e, 1)).contains(b);
+        assertThat(index.ancestor(e, 2)).contains(a);
+        assertThat(index.ancestor(e, 3)).isEmpty();
+        assertThatThrownBy(() -> index.depth(new Tree<>("X"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldMatchParentWalksOnRandomTreesWithAddedLeaves() {
+        Random random = new Random(42);
+        List<Tree<Integer>> nodes = new ArrayList<>();
+        nodes.add(new Tree<>(0));
+        for (int i = 1; i < 5_000; i++) {
+            nodes.add(insert(nodes.get(random.nextInt(i)), i));
+        }
+        AncestryIndex<Integer> index = AncestryIndex.of(nodes.get(0));
+        for (int i = 5_000; i < 6_000; i++) {
+            Tree<Integer> leaf = insert(nodes.get(random.nextInt(i)), i);
+            nodes.add(leaf);
+            index.addLeaf(leaf);
+        }
+
+        for (int query = 0; query < 20_000; query++) {
+            Tree<Integer> first = nodes.get(random.nextInt(nodes.size()));
+            Tree<Integer> second = nodes.get(random.nextInt(nodes.size()));
+            List<Tree<Integer>> firstPath = pathFromRoot(first);
+            List<Tree<Integer>> secondPath = pathFromRoot(second);
+
+            assertThat(index.depth(first)).isEqualTo(firstPath.size() - 1);
+            assertThat(index.isAncestor(first, second)).isEqualTo(first != second && secondPath.contains(first));
+            assertThat(index.lowestCommonAncestor(first, second)).isSameAs(lowestCommonAncestor(firstPath, secondPath));
+            int k = random.nextInt(firstPath.size() + 1);
+            Optional<Tree<Integer>> expectedAncestor = k < firstPath.size() ? Optional.of(firstPath.get(firstPath.size() - 1 - k)) : Optional.empty();
+            assertThat(index.ancestor(first, k)).isEqualTo(expectedAncestor);
+        }
+    }
+
+    @Test
+    public void rebuildShouldFollowMovedSubtrees() {
+        AncestryIndex<String> index = AncestryIndex.of(a);
+        c.insert(b);
+
+        index.rebuild();
+
+        assertThat(index.isAncestor(c, d)).isTrue();
+        assertThat(index.depth(d)).isEqualTo(3);
+        assertThat(index.lowestCommonAncestor(d, c)).isSameAs(c);
+    }
+
+    @Test
+    public void deepChainsShouldBeIndexed() {
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> last = root;
+        for (int i = 1; i < 200_000; i++) {
+            last = insert(last, i);
+        }
+
+        AncestryIndex<Integer> index = AncestryIndex.of(root);
+
+        assertThat(index.depth(last)).isEqualTo(199_999);
+        assertThat(index.isAncestor(root, last)).isTrue();
+        assertThat(index.ancestor(last, 199_999)).contains(root);
+        assertThat(index.ancestor(last, 100_000).get().getData()).isEqualTo(99_999);
+    }
+
+    private static <T> Tree<T> insert(Tree<T> parent, T data) {
+        parent.insert(data);
+        List<Tree<T>> children = parent.getChildNodes();
+        return children.get(children.size() - 1);
+    }
+
+    private static <T> List<Tree<T>> pathFromRoot(Tree<T> node) {
+        List<Tree<T>> path = new ArrayList<>();
+        for (Optional<Tree<T>> current = Optional.of(node); current.isPresent(); current = current.get().getParent()) {
+            path.add(0, current.get());
+        }
+        return path;
+    }
+
+    private static <T> Tree<T> lowestCommonAncestor(List<Tree<T>> firstPath, List<Tree<T>> secondPath) {
+        int depth = 0;
+        while (depth + 1 < Math.min(firstPath.size(), secondPath.size()) && firstPath.get(depth + 1) == secondPath.get(depth + 1)) {
+            depth++;
+        }
+        return firstPath.get(depth);
+    }
+}
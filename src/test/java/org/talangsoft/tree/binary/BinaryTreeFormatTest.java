@@ -0,0 +1,127 @@
+package org.talangsoft.tree.binary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BinaryTreeFormatTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Representing pairs for:
+     * |
+     * |    A
+     * |  /   \
+     * | B     C
+     * |      / \
+     * |     D   E
+     * |    / \
+     * |   F  G
+     */
+    private List<ParentChildPair<String>> parentChildPairs = Arrays.asList(
+            new ParentChildPair<>("A", "B"),
+            new ParentChildPair<>("A", "C"),
+            new ParentChildPair<>("C", "D"),
+            new ParentChildPair<>("C", "E"),
+            new ParentChildPair<>("D", "F"),
+            new ParentChildPair<>("D", "G")
+    );
+
+    private Tree<String> exampleTree = TreeFromPairBuilder.buildFromParentChildPairs(parentChildPairs);
+
+    @Test
+    public void mappedTreeShouldNavigateTheWrittenTree() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryTreeWriter.write(exampleTree, PayloadCodecs.strings(), file);
+
+        MappedTree<String> mapped = BinaryTreeReader.open(file, PayloadCodecs.strings(), true);
+
+        assertThat(mapped.size()).isEqualTo(7);
+        assertThat(mapped.elements()).containsExactly("A", "B", "C", "D", "F", "G", "E");
+        int nodeC = mapped.lookup("C").getAsInt();
+        assertThat(mapped.parent(mapped.root())).isEqualTo(MappedTree.NONE);
+        assertThat(mapped.element(mapped.parent(nodeC))).isEqualTo("A");
+        assertThat(mapped.children(nodeC)).containsExactly(mapped.lookup("D").getAsInt(), mapped.lookup("E").getAsInt());
+        assertThat(mapped.subtree(nodeC).mapToObj(mapped::element)).containsExactly("C", "D", "F", "G", "E");
+        assertThat(mapped.isLeaf(mapped.lookup("F").getAsInt())).isTrue();
+        assertThat(mapped.toTree().lookup("D").get().getChildren()).containsExactly("F", "G");
+    }
+
+    @Test
+    public void treesBuiltWithTheChildListConstructorsShouldBeWritten() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryTreeWriter.write(new Tree<>("A", Arrays.asList(new Tree<>("B", "D"), new Tree<>("C"))), PayloadCodecs.strings(), file);
+
+        MappedTree<String> mapped = BinaryTreeReader.open(file, PayloadCodecs.strings(), true);
+
+        assertThat(mapped.toTree().allElements()).containsExactly("A", "B", "D", "C");
+    }
+
+    @Test
+    public void mappedTreeShouldHandleDeepTrees() throws IOException {
+        Tree<Long> chain = new Tree<>(0L);
+        Tree<Long> last = chain;
+        for (long node = 1; node < 100_000; node++) {
+            Tree<Long> next = new Tree<>(node);
+            last.insert(next);
+            last = next;
+        }
+        Path file = folder.newFile().toPath();
+        BinaryTreeWriter.write(chain, PayloadCodecs.longs(), file);
+
+        MappedTree<Long> mapped = BinaryTreeReader.open(file, PayloadCodecs.longs());
+
+        assertThat(mapped.element(99_999)).isEqualTo(99_999L);
+        assertThat(mapped.parent(99_999)).isEqualTo(99_998);
+        assertThat(mapped.toTree().elements(Traversal.LEAVES)).containsExactly(99_999L);
+    }
+
+    @Test
+    public void openShouldRejectCorruptFiles() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryTreeWriter.write(exampleTree, PayloadCodecs.strings(), file);
+        try (RandomAccessFile corrupted = new RandomAccessFile(file.toFile(), "rw")) {
+            // the payload of the root: A -> X
+            corrupted.seek(24 + 2 * 7 * 4);
+            corrupted.write('X');
+        }
+
+        // the checksum is only verified when asked
+        assertThat(BinaryTreeReader.open(file, PayloadCodecs.strings()).element(0)).isEqualTo("X");
+        assertThatThrownBy(() -> BinaryTreeReader.open(file, PayloadCodecs.strings(), true))
+                .isInstanceOf(CorruptTreeFileException.class)
+                .hasMessageContaining("checksum");
+    }
+
+    @Test
+    public void openShouldRejectOtherFilesAndVersions() throws IOException {
+        Path file = folder.newFile().toPath();
+        BinaryTreeWriter.write(exampleTree, PayloadCodecs.strings(), file);
+        try (RandomAccessFile otherVersion = new RandomAccessFile(file.toFile(), "rw")) {
+            otherVersion.seek(4);
+            otherVersion.writeInt(2);
+        }
+        assertThatThrownBy(() -> BinaryTreeReader.open(file, PayloadCodecs.strings()))
+                .isInstanceOf(CorruptTreeFileException.class)
+                .hasMessageContaining("version 2");
+
+        Path empty = folder.newFile().toPath();
+        assertThatThrownBy(() -> BinaryTreeReader.open(empty, PayloadCodecs.strings()))
+                .isInstanceOf(CorruptTreeFileException.class);
+    }
+}
@@ -0,0 +1,129 @@
+package org.talangsoft.tree.compact;
+
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactTreeTest {
+
+    /**
+     * Representing pairs for:
+     * |
+     * |    A
+     * |  /   \
+     * | B     C
+     * |      / \
+     * |     D   E
+     * |    / \
+     * |   F  G
+     */
+    private List<ParentChildPair<String>> parentChildPairs = Arrays.asList(
+            new ParentChildPair<>("A", "B"),
+            new ParentChildPair<>("A", "C"),
+            new ParentChildPair<>("C", "D"),
+            new ParentChildPair<>("C", "E"),
+            new ParentChildPair<>("D", "F"),
+            new ParentChildPair<>("D", "G")
+    );
+
+    private Tree<String> exampleTree = TreeFromPairBuilder.buildFromParentChildPairs(parentChildPairs);
+
+    @Test
+    public void frozenTreeShouldKeepTheStructureInPreOrder() {
+        CompactTree<String> compact = CompactTree.freeze(exampleTree);
+
+        assertThat(compact.size()).isEqualTo(7);
+        assertThat(compact.allElements()).containsExactly("A", "B", "C", "D", "F", "G", "E");
+
+        int nodeC = compact.lookup("C").getAsInt();
+        int nodeD = compact.lookup("D").getAsInt();
+        assertThat(compact.element(compact.parent(nodeD))).isEqualTo("C");
+        assertThat(compact.parent(compact.root())).isEqualTo(CompactTree.NONE);
+        assertThat(compact.children(nodeC)).containsExactly(nodeD, compact.lookup("E").getAsInt());
+        assertThat(compact.nextSibling(compact.lookup("E").getAsInt())).isEqualTo(CompactTree.NONE);
+        assertThat(compact.firstChild(compact.lookup("B").getAsInt())).isEqualTo(CompactTree.NONE);
+        assertThat(compact.subtreeSize(nodeC)).isEqualTo(5);
+        assertThat(compact.subtree(nodeD).mapToObj(compact::element)).containsExactly("D", "F", "G");
+        assertThat(compact.leaves().mapToObj(compact::element)).containsExactly("B", "F", "G", "E");
+        assertThat(compact.isAncestorOf(nodeC, compact.lookup("G").getAsInt())).isTrue();
+        assertThat(compact.isAncestorOf(nodeD, compact.lookup("E").getAsInt())).isFalse();
+        assertThat(compact.lookup("X").isPresent()).isFalse();
+    }
+
+    @Test
+    public void frozenTreeShouldConvertBackToTheSameTree() {
+        Tree<String> thawed = CompactTree.freeze(exampleTree).toTree();
+
+        for (Tree<String> node : exampleTree.allNodes()) {
+            assertThat(thawed.lookup(node.getData()).get().getChildren()).isEqualTo(node.getChildren());
+        }
+        assertThat(CompactTree.freeze(exampleTree.lookup("C").get()).allElements()).containsExactly("C", "D", "F", "G", "E");
+    }
+
+    @Test
+    public void treesBuiltWithTheChildListConstructorsShouldFreeze() {
+        // these constructors leave the parent of the children empty
+        Tree<String> tree = new Tree<>("A", Arrays.asList(new Tree<>("B", "D"), new Tree<>("C")));
+
+        CompactTree<String> compact = CompactTree.freeze(tree);
+
+        assertThat(compact.allElements()).containsExactly("A", "B", "D", "C");
+        assertThat(compact.element(compact.parent(compact.lookup("D").getAsInt()))).isEqualTo("B");
+        assertThat(compact.children(compact.root())).containsExactly(compact.lookup("B").getAsInt(), compact.lookup("C").getAsInt());
+    }
+
+    @Test
+    public void frozenTreeShouldTakeAFractionOfTheMemoryOfTheTree() {
+        int size = 20_000;
+        Tree<Integer> tree = randomTree(size, new Random(42));
+        CompactTree<Integer> compact = CompactTree.freeze(tree);
+
+        // both graphs hold the same Integer payloads
+        Object[] payloads = tree.allElements().toArray();
+        long payloadBytes = GraphLayout.parseInstance(payloads).totalSize() - VM.current().sizeOf(payloads);
+        long treeBytes = GraphLayout.parseInstance(tree).totalSize() - payloadBytes;
+        long compactBytes = GraphLayout.parseInstance(compact).totalSize() - payloadBytes;
+
+        assertThat(compactBytes * 4)
+                .as("per node overhead, Tree: %d bytes, CompactTree: %d bytes", treeBytes / size, compactBytes / size)
+                .isLessThan(treeBytes);
+    }
+
+    @Test
+    public void frozenTreeShouldHandleDeepTrees() {
+        Tree<Integer> chain = new Tree<>(0);
+        Tree<Integer> last = chain;
+        for (int node = 1; node < 100_000; node++) {
+            Tree<Integer> next = new Tree<>(node);
+            last.insert(next);
+            last = next;
+        }
+
+        CompactTree<Integer> compact = CompactTree.freeze(chain);
+        assertThat(compact.subtreeSize(0)).isEqualTo(100_000);
+        assertThat(compact.parent(99_999)).isEqualTo(99_998);
+        assertThat(compact.toTree().elements(Traversal.LEAVES)).containsExactly(99_999);
+    }
+
+    private static Tree<Integer> randomTree(int size, Random random) {
+        List<Tree<Integer>> nodes = new ArrayList<>(size);
+        nodes.add(new Tree<>(0));
+        for (int node = 1; node < size; node++) {
+            Tree<Integer> child = new Tree<>(node);
+            nodes.get(random.nextInt(node)).insert(child);
+            nodes.add(child);
+        }
+        return nodes.get(0);
+    }
+}
@@ -0,0 +1,184 @@
+package org.talangsoft.tree.concurrent;
+
+import org.junit.Test;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConcurrentTreeTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *     A
+     *    / \
+     *   B   C
+     *  / \
+     * D   E
+     * </pre>
+     */
+    private ConcurrentTree<String> tree() {
+        ConcurrentTree<String> root = new ConcurrentTree<>("A");
+        root.insertNode("B").insert("D").insert("E");
+        root.insert("C");
+        return root;
+    }
+
+    @Test
+    public void shouldOfferTheTreeApi() {
+        ConcurrentTree<String> root = tree();
+        ConcurrentTree<String> b = root.lookup("B").get();
+
+        assertThat(root.getChildren()).containsExactly("B", "C");
+        assertThat(root.getFirstChild()).contains("B");
+        assertThat(b.getParent()).contains(root);
+        assertThat(b.getParentElement()).contains("A");
+        assertThat(root.getParent()).isEmpty();
+        assertThat(root.allElements()).containsExactly("A", "B", "D", "E", "C");
+        assertThat(root.elements(Traversal.BREADTH_FIRST)).containsExactly("A", "B", "C", "D", "E");
+        assertThat(root.elements(Traversal.POST_ORDER)).containsExactly("D", "E", "B", "C", "A");
+        assertThat(root.allBottomLevelSuccessor()).containsExactly("D", "E", "C");
+        assertThat(root.lookup("X")).isEmpty();
+    }
+
+    @Test
+    public void removeShouldDetachTheSubtree() {
+        ConcurrentTree<String> root = tree();
+        ConcurrentTree<String> b = root.lookup("B").get();
+
+        assertThat(root.remove(b)).isTrue();
+        assertThat(root.remove(b)).isFalse();
+        assertThat(root.allElements()).containsExactly("A", "C");
+        assertThat(b.getParent()).isEmpty();
+        assertThat(b.allElements()).containsExactly("B", "D", "E");
+    }
+
+    @Test
+    public void moveShouldReattachTheSubtree() {
+        ConcurrentTree<String> root = tree();
+        ConcurrentTree<String> b = root.lookup("B").get();
+        ConcurrentTree<String> c = root.lookup("C").get();
+
+        ConcurrentTree.move(b, c);
+
+        assertThat(root.allElements()).containsExactly("A", "C", "B", "D", "E");
+        assertThat(b.getParent()).contains(c);
+    }
+
+    @Test
+    public void moveShouldRejectCycles() {
+        ConcurrentTree<String> root = tree();
+        ConcurrentTree<String> b = root.lookup("B").get();
+        ConcurrentTree<String> d = root.lookup("D").get();
+
+        assertThatThrownBy(() -> ConcurrentTree.move(b, d)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrentTree.move(b, b)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ConcurrentTree.move(b, new ConcurrentTree<>("X"))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(root.allElements()).containsExactly("A", "B", "D", "E", "C");
+    }
+
+    @Test
+    public void crossingMovesOfDetachedNodesShouldNeverBuildACycle() throws Exception {
+        ConcurrentTree<Integer> root = new ConcurrentTree<>(0);
+        ConcurrentTree<Integer> first = root.insertNode(1);
+        ConcurrentTree<Integer> second = root.insertNode(2);
+        CyclicBarrier start = new CyclicBarrier(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        for (int round = 0; round < 1_000; round++) {
+            first.getParent().ifPresent(parent -> parent.remove(first));
+            second.getParent().ifPresent(parent -> parent.remove(second));
+            Future<Boolean> firstUnderSecond = executor.submit(() -> tryMove(start, first, second));
+            Future<Boolean> secondUnderFirst = executor.submit(() -> tryMove(start, second, first));
+
+            assertThat(firstUnderSecond.get() ^ secondUnderFirst.get()).isTrue();
+            assertThat(first.getParent().isPresent() ^ second.getParent().isPresent()).isTrue();
+        }
+        executor.shutdown();
+    }
+
+    private static boolean tryMove(CyclicBarrier start, ConcurrentTree<Integer> node, ConcurrentTree<Integer> newParent) throws Exception {
+        start.await();
+        try {
+            ConcurrentTree.move(node, newParent);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    @Test
+    public void shouldConvertFromAndToTree() {
+        Tree<String> plain = new Tree<>("A", Arrays.asList(new Tree<>("B", "D"), new Tree<>("C")));
+
+        ConcurrentTree<String> concurrent = ConcurrentTree.of(plain);
+
+        assertThat(concurrent.allElements()).isEqualTo(plain.allElements());
+        assertThat(concurrent.toTree().allElements()).isEqualTo(plain.allElements());
+    }
+
+    @Test
+    public void concurrentMovesShouldKeepEveryNodeUnderExactlyOneParent() throws Exception {
+        int size = 2_000;
+        ConcurrentTree<Integer> root = new ConcurrentTree<>(0);
+        List<ConcurrentTree<Integer>> nodes = new ArrayList<>();
+        nodes.add(root);
+        Random random = new Random(42);
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(i)).insertNode(i));
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            Random threadRandom = new Random(thread);
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    ConcurrentTree<Integer> node = nodes.get(1 + threadRandom.nextInt(size - 1));
+                    try {
+                        ConcurrentTree.move(node, nodes.get(threadRandom.nextInt(size)));
+                    } catch (IllegalArgumentException e) {
+                        // moving below its own descendant
+                    }
+                }
+            }));
+        }
+        List<Future<?>> readers = new ArrayList<>();
+        for (int thread = 0; thread < 2; thread++) {
+            readers.add(executor.submit(() -> {
+                while (running.get()) {
+                    // a node being moved is always under its old or its new parent
+                    for (ConcurrentTree<Integer> node : nodes.subList(1, size)) {
+                        assertThat(node.getParent()).isPresent();
+                    }
+                }
+            }));
+        }
+        for (Future<?> writer : writers) writer.get();
+        running.set(false);
+        for (Future<?> reader : readers) reader.get();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.SECONDS);
+
+        assertThat(root.allElements()).hasSize(size).doesNotHaveDuplicates();
+        for (ConcurrentTree<Integer> node : nodes) {
+            for (ConcurrentTree<Integer> child : node.getChildNodes()) {
+                assertThat(child.getParent()).contains(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package org.talangsoft.tree.diff;
+
+import org.junit.Test;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TreeDiffTest {
+
+    /**
+     * Old tree:       New tree:
+     * <pre>
+     *     A               A
+     *    / \             / \
+     *   B   C           C   G
+     *  / \   \         / \
+     * D   E   F       B   D
+     *                 |
+     *                 E
+     * </pre>
+     */
+    private Tree<String> oldTree() {
+        return TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"), new ParentChildPair<>("A", "C"), new ParentChildPair<>("B", "D"),
+                new ParentChildPair<>("B", "E"), new ParentChildPair<>("C", "F")));
+    }
+
+    private final List<ParentChildPair<String>> newPairs = Arrays.asList(
+            new ParentChildPair<>("A", "C"), new ParentChildPair<>("A", "G"), new ParentChildPair<>("C", "B"),
+            new ParentChildPair<>("C", "D"), new ParentChildPair<>("B", "E"));
+
+    @Test
+    public void diffShouldEmitTheMinimalChanges() {
+        List<TreeChange<String>> changes = TreeDiff.diff(oldTree(), newPairs);
+
+        assertThat(changes).containsExactly(
+                TreeChange.moved("A", "C", "B"),
+                TreeChange.moved("B", "C", "D"),
+                TreeChange.added("A", "G"),
+                TreeChange.removed("C", "F"));
+    }
+
+    @Test
+    public void applyShouldTurnTheOldTreeIntoTheNewOne() {
+        Tree<String> tree = oldTree();
+
+        TreeDiff.apply(tree, TreeDiff.diff(tree, newPairs));
+
+        assertThat(parents(tree)).isEqualTo(parents(TreeFromPairBuilder.buildFromParentChildPairs(newPairs)));
+        assertThat(TreeDiff.diff(tree, newPairs)).isEmpty();
+    }
+
+    @Test
+    public void removalsShouldBeReportedForTheTopmostRemovedNodeOnly() {
+        List<TreeChange<String>> changes = TreeDiff.diff(oldTree(), TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "C"), new ParentChildPair<>("C", "F"))));
+
+        assertThat(changes).containsExactly(TreeChange.removed("A", "B"));
+    }
+
+    @Test
+    public void swappingParentAndChildShouldBeApplicable() {
+        Tree<String> tree = TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"), new ParentChildPair<>("B", "C")));
+        List<ParentChildPair<String>> swapped = Arrays.asList(new ParentChildPair<>("A", "C"), new ParentChildPair<>("C", "B"));
+
+        TreeDiff.apply(tree, TreeDiff.diff(tree, swapped));
+
+        assertThat(tree.allElements()).containsExactly("A", "C", "B");
+    }
+
+    @Test
+    public void applyShouldRejectChangesThatDoNotFit() {
+        Tree<String> tree = oldTree();
+
+        assertThatThrownBy(() -> TreeDiff.apply(tree, Arrays.asList(TreeChange.moved("C", "A", "D")))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> TreeDiff.apply(tree, Arrays.asList(TreeChange.moved("A", "D", "B")))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> TreeDiff.apply(tree, Arrays.asList(TreeChange.added("X", "Y")))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> TreeDiff.apply(tree, Arrays.asList(TreeChange.removed("A", "D")))).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> TreeDiff.diff(tree, new Tree<>("X"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void randomChangesShouldBeReproducedOnIndexedAndPlainTrees() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<ParentChildPair<Integer>> oldPairs = new ArrayList<>();
+            int size = 500;
+            for (int child = 1; child < size; child++) {
+                oldPairs.add(new ParentChildPair<>(random.nextInt(child), child));
+            }
+            List<ParentChildPair<Integer>> newPairs = mutate(oldPairs, size, random);
+
+            Tree<Integer> plain = TreeFromPairBuilder.buildFromParentChildPairs(oldPairs);
+            Tree<Integer> indexed = TreeFromPairBuilder.buildFromParentChildPairs(oldPairs).withIndex();
+            Tree<Integer> expected = TreeFromPairBuilder.buildFromParentChildPairs(newPairs);
+            List<TreeChange<Integer>> changes = TreeDiff.diff(plain, newPairs);
+            TreeDiff.apply(plain, changes);
+            TreeDiff.apply(indexed, changes);
+
+            assertThat(parents(plain)).isEqualTo(parents(expected));
+            assertThat(parents(indexed)).isEqualTo(parents(expected));
+            assertThat(indexed.lookup(expected.allElements().get(expected.allElements().size() - 1))).isPresent();
+        }
+    }
+
+    /**
+     * Reattaches a few nodes to random parents that are not in their subtree, removes a few leaves and adds new ones.
+     */
+    private static List<ParentChildPair<Integer>> mutate(List<ParentChildPair<Integer>> pairs, int size, Random random) {
+        Map<Integer, Integer> parents = new HashMap<>();
+        pairs.forEach(pair -> parents.put(pair.getChild(), pair.getParent()));
+        for (int i = 0; i < 10; i++) {
+            int child = 1 + random.nextInt(size - 1);
+            int newParent = random.nextInt(size);
+            if (!parents.containsKey(child) || !(parents.containsKey(newParent) || newParent == 0)) continue;
+            boolean inSubtree = false;
+            for (Integer ancestor = newParent; ancestor != null; ancestor = parents.get(ancestor)) {
+                if (ancestor == child) inSubtree = true;
+            }
+            if (!inSubtree) parents.put(child, newParent);
+        }
+        for (int i = 0; i < 10; i++) {
+            int leaf = 1 + random.nextInt(size - 1);
+            if (!parents.containsValue(leaf)) parents.remove(leaf);
+        }
+        for (int i = 0; i < 10; i++) {
+            List<Integer> existing = new ArrayList<>(parents.keySet());
+            parents.put(size + i, existing.get(random.nextInt(existing.size())));
+        }
+        List<ParentChildPair<Integer>> mutated = new ArrayList<>();
+        parents.forEach((child, parent) -> mutated.add(new ParentChildPair<>(parent, child)));
+        return mutated;
+    }
+
+    private static <T> Map<T, T> parents(Tree<T> tree) {
+        Map<T, T> parents = new HashMap<>();
+        tree.nodes(Traversal.PRE_ORDER).forEach(node -> node.getChildNodes().forEach(child -> parents.put(child.getData(), node.getData())));
+        return parents;
+    }
+}
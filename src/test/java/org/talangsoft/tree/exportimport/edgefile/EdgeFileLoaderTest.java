@@ -0,0 +1,162 @@
+package org.talangsoft.tree.exportimport.edgefile;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class EdgeFileLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Edges of:
+     * |
+     * |    A
+     * |  /   \
+     * | B     C
+     * |      / \
+     * |     D   E
+     */
+    @Test
+    public void shouldLoadEdgesIgnoringBlanksAndCarriageReturns() throws IOException {
+        Path file = write("A,B\r\n\n  A , C\r\nC,D\n\t\nC,\u00c9");
+
+        Tree<String> tree = new EdgeFileLoader<>(KeyDecoders.strings()).load(file);
+
+        assertThat(withParents(tree)).containsExactly("A<null", "B<A", "C<A", "D<C", "\u00c9<C");
+    }
+
+    @Test
+    public void shouldReportErrorLinesAndGoOn() throws IOException {
+        Path file = write("1;2\n1;3\nno delimiter\n3;x\n2;3\n4;4\n3;4\n");
+        List<String> errors = new ArrayList<>();
+
+        Tree<Long> tree = new EdgeFileLoader<>(KeyDecoders.longs())
+                .withDelimiter(';')
+                .withErrorHandler((lineNumber, line, error) -> errors.add(lineNumber + ":" + line + ":" + error.getClass().getSimpleName()))
+                .load(file);
+
+        assertThat(withParents(tree)).containsExactly("1<null", "2<1", "3<1", "4<3");
+        assertThat(errors).containsExactly(
+                "3:no delimiter:IllegalArgumentException",
+                "4:3;x:IllegalArgumentException",
+                "5:2;3:TreeBuildException",
+                "6:4;4:TreeBuildException");
+    }
+
+    @Test
+    public void errorsShouldBeCollectedByDefault() throws IOException {
+        EdgeFileLoader<Integer> loader = new EdgeFileLoader<>(KeyDecoders.integers());
+
+        Tree<Integer> tree = loader.load(write("1,2\n3,2\nx\n2,4\n"));
+
+        assertThat(withParents(tree)).containsExactly("1<null", "2<1", "4<2");
+        assertThat(loader.getErrorCount()).isEqualTo(2);
+        assertThat(loader.getErrors()).extracting(EdgeFileLoader.LineError::getLineNumber).containsExactly(2L, 3L);
+        assertThat(loader.getErrors().get(0).getLine()).isEqualTo("3,2");
+        assertThat(loader.getErrors().get(0).getError()).isInstanceOf(TreeBuildException.class);
+
+        loader.load(write("1,2\n"));
+        assertThat(loader.getErrors()).isEmpty();
+        assertThat(loader.getErrorCount()).isZero();
+    }
+
+    @Test
+    public void onlyTheFirstErrorsShouldBeKept() throws IOException {
+        EdgeFileLoader<Integer> loader = new EdgeFileLoader<>(KeyDecoders.integers());
+        StringBuilder lines = new StringBuilder("1,2\n");
+        for (int line = 0; line < EdgeFileLoader.MAX_COLLECTED_ERRORS + 10; line++) lines.append("no delimiter\n");
+
+        loader.load(write(lines.toString()));
+
+        assertThat(loader.getErrors()).hasSize(EdgeFileLoader.MAX_COLLECTED_ERRORS);
+        assertThat(loader.getErrorCount()).isEqualTo(EdgeFileLoader.MAX_COLLECTED_ERRORS + 10);
+    }
+
+    @Test
+    public void errorsShouldEndTheLoadWhenFailingFast() throws IOException {
+        Path file = write("1,2\n3,2\n");
+
+        assertThatThrownBy(() -> new EdgeFileLoader<>(KeyDecoders.integers()).failFast().load(file))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.DUPLICATE_PARENT);
+        assertThatThrownBy(() -> new EdgeFileLoader<>(KeyDecoders.integers()).failFast().load(write("1,2\n3,4\n")))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.MULTIPLE_ROOTS);
+    }
+
+    @Test
+    public void linesShouldNotBeSplitAcrossWindowsOrBuffers() throws IOException {
+        Random random = new Random(42);
+        StringBuilder edges = new StringBuilder();
+        for (int child = 1; child < 10_000; child++) {
+            edges.append(random.nextInt(child)).append(',').append(child).append('\n');
+        }
+        // a line longer than the buffer
+        edges.append("0,").append(String.join("", Collections.nCopies(40, "0"))).append("10001\n");
+        Path file = write(edges.toString());
+        List<Long> progress = new ArrayList<>();
+
+        Tree<Long> mapped = new EdgeFileLoader<>(KeyDecoders.longs()).load(file);
+        Tree<Long> smallWindows = new EdgeFileLoader<>(KeyDecoders.longs()).withBufferBytes(16)
+                .withProgressListener((bytesRead, totalBytes, edgeCount) -> progress.add(bytesRead))
+                .load(file);
+        Tree<Long> channel = new EdgeFileLoader<>(KeyDecoders.longs()).withBufferBytes(16)
+                .load(Channels.newChannel(new ByteArrayInputStream(Files.readAllBytes(file))));
+
+        assertThat(mapped.allElements()).hasSize(10_001);
+        assertThat(withParents(smallWindows)).isEqualTo(withParents(mapped));
+        assertThat(withParents(channel)).isEqualTo(withParents(mapped));
+        assertThat(progress).isSorted();
+        assertThat(progress.get(progress.size() - 1)).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    public void numericKeysShouldBeDecodedFromTheBytes() {
+        assertThat(decodeLong("0")).isEqualTo(0);
+        assertThat(decodeLong("-42")).isEqualTo(-42);
+        assertThat(decodeLong("9223372036854775807")).isEqualTo(Long.MAX_VALUE);
+        assertThat(decodeLong("-9223372036854775808")).isEqualTo(Long.MIN_VALUE);
+        assertThatThrownBy(() -> decodeLong("9223372036854775808")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decodeLong("-")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> decodeLong("1a")).isInstanceOf(IllegalArgumentException.class);
+        ByteBuffer tooLarge = ByteBuffer.wrap("2147483648".getBytes(StandardCharsets.US_ASCII));
+        assertThatThrownBy(() -> KeyDecoders.integers().decode(tooLarge, 0, tooLarge.limit())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static long decodeLong(String key) {
+        ByteBuffer buffer = ByteBuffer.wrap(("x" + key + "x").getBytes(StandardCharsets.US_ASCII));
+        return KeyDecoders.longs().decode(buffer, 1, buffer.limit() - 1);
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = folder.newFile().toPath();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static <T> List<String> withParents(Tree<T> tree) {
+        return tree.nodes(Traversal.PRE_ORDER).map(node -> node.getData() + "<" + node.getParentElement().orElse(null)).collect(Collectors.toList());
+    }
+}
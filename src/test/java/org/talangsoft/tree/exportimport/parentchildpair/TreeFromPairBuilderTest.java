@@ -2,15 +2,23 @@ package org.talangsoft.tree.exportimport.parentchildpair;
 
 import com.google.common.collect.Lists;
 import org.junit.Test;
+import org.talangsoft.tree.Traversal;
 import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
 import org.talangsoft.tree.printer.TreePrinter;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TreeFromPairBuilderTest {
 
@@ -147,5 +155,170 @@ public class TreeFromPairBuilderTest {
         assertThat(stringTree.lookup("G").get().allBottomLevelSuccessor()).containsExactly("G");
     }
 
+    @Test
+    public void buildTreeFromParentChildPairsShouldHandleDeepChains() {
+        int depth = 200_000;
+        List<ParentChildPair<Integer>> chain = new ArrayList<>();
+        for (int i = depth - 1; i > 0; i--) {
+            chain.add(new ParentChildPair<>(i - 1, i));
+        }
+
+        Tree<Integer> chainTree = TreeFromPairBuilder.buildFromParentChildPairs(chain).withIndex();
+
+        assertThat(chainTree.getData()).isEqualTo(0);
+        assertThat(chainTree.lookup(depth - 1).get().getParentElement().get()).isEqualTo(depth - 2);
+    }
+
+    @Test
+    public void buildTreeFromParentChildPairsShouldIgnoreRepeatedPairs() {
+        Tree<String> stringTree = TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"),
+                new ParentChildPair<>("A", "B")));
+
+        verifyTreeNode(stringTree, "A", new String[]{"B"});
+    }
+
+    @Test
+    public void buildTreeFromParentChildPairsShouldReportChildrenWithTwoParents() {
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"),
+                new ParentChildPair<>("A", "C"),
+                new ParentChildPair<>("C", "B"))))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.DUPLICATE_PARENT)
+                .hasFieldOrPropertyWithValue("elements", Arrays.asList("B", "A", "C"));
+    }
+
+    @Test
+    public void buildTreeFromParentChildPairsShouldReportMultipleRoots() {
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"),
+                new ParentChildPair<>("C", "D"))))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.MULTIPLE_ROOTS)
+                .hasFieldOrPropertyWithValue("elements", Arrays.asList("A", "C"));
+    }
+
+    @Test
+    public void buildTreeFromParentChildPairsShouldReportCycles() {
+        // A -> B and a separate X <-> Y cycle
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"),
+                new ParentChildPair<>("X", "Y"),
+                new ParentChildPair<>("Y", "Z"),
+                new ParentChildPair<>("Z", "X"))))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.CYCLE);
+
+        // no root at all
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"),
+                new ParentChildPair<>("B", "A"))))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.CYCLE);
+
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Collections.singletonList(
+                new ParentChildPair<>("A", "A"))))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.CYCLE);
+    }
+
+    @Test
+    public void buildTreeFromParentChildPairsShouldReportEmptyInput() {
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairs(Collections.<ParentChildPair<String>>emptyList()))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.EMPTY_INPUT);
+    }
 
+    @Test
+    public void repeatedPairsShouldBeReducedToTheDirectPairs() {
+        assertThat(TreeFromPairBuilder.directParentChildPairs(parentChildPairs))
+                .containsExactlyElementsOf(parentChildPairsSimplified);
+
+        List<ParentChildPair<String>> shuffledPairs = new ArrayList<>(parentChildPairs);
+        Collections.shuffle(shuffledPairs, new Random(42));
+        assertThat(TreeFromPairBuilder.directParentChildPairs(shuffledPairs))
+                .hasSameSizeAs(parentChildPairsSimplified)
+                .containsOnlyElementsOf(parentChildPairsSimplified);
+    }
+
+    @Test
+    public void buildTreeFromRepeatedPairsShouldHandleTheClosureOfDeepChains() {
+        // every node is paired with all of its ancestors, 0 -> 1 -> ... -> 999
+        int depth = 1_000;
+        List<ParentChildPair<Integer>> closure = new ArrayList<>();
+        for (int child = 1; child < depth; child++) {
+            for (int ancestor = 0; ancestor < child; ancestor++) {
+                closure.add(new ParentChildPair<>(ancestor, child));
+            }
+        }
+        Collections.shuffle(closure, new Random(42));
+
+        Tree<Integer> chainTree = TreeFromPairBuilder.buildFromRepeatedParentChildPairs(closure).withIndex();
+
+        assertThat(chainTree.getData()).isEqualTo(0);
+        for (int node = 0; node < depth - 1; node++) {
+            assertThat(chainTree.lookup(node).get().getChildren()).containsExactly(node + 1);
+        }
+    }
+
+    @Test
+    public void parallelBuildShouldMatchTheSequentialBuild() {
+        List<ParentChildPair<Integer>> pairs = randomTreePairs(50_000);
+        // repeated pairs are ignored, the children stay in the order of their first pair
+        pairs.addAll(pairs.subList(0, 5_000));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Tree<Integer> sequential = TreeFromPairBuilder.buildFromParentChildPairs(pairs);
+            Tree<Integer> parallel = TreeFromPairBuilder.buildFromParentChildPairsInParallel(pairs, pool);
+
+            assertThat(withParents(parallel)).isEqualTo(withParents(sequential));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelBuildShouldReportInvalidPairs() {
+        List<ParentChildPair<Integer>> twoParents = randomTreePairs(20_000);
+        twoParents.add(new ParentChildPair<>(1, 0));
+        twoParents.add(new ParentChildPair<>(2, 0));
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairsInParallel(twoParents))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.DUPLICATE_PARENT);
+
+        List<ParentChildPair<Integer>> twoRoots = randomTreePairs(20_000);
+        twoRoots.add(new ParentChildPair<>(-1, -2));
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairsInParallel(twoRoots))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.MULTIPLE_ROOTS);
+
+        List<ParentChildPair<Integer>> separateCycle = randomTreePairs(20_000);
+        separateCycle.add(new ParentChildPair<>(-1, -2));
+        separateCycle.add(new ParentChildPair<>(-2, -1));
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairsInParallel(separateCycle))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.CYCLE)
+                .hasFieldOrPropertyWithValue("elements", Collections.singletonList(-2));
+
+        List<ParentChildPair<Integer>> noRoot = randomTreePairs(20_000);
+        noRoot.add(new ParentChildPair<>(1, 0));
+        assertThatThrownBy(() -> TreeFromPairBuilder.buildFromParentChildPairsInParallel(noRoot))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.CYCLE);
+    }
+
+    private static List<ParentChildPair<Integer>> randomTreePairs(int size) {
+        Random random = new Random(42);
+        List<ParentChildPair<Integer>> pairs = new ArrayList<>();
+        for (int child = 1; child < size; child++) {
+            pairs.add(new ParentChildPair<>(random.nextInt(child), child));
+        }
+        Collections.shuffle(pairs, random);
+        return pairs;
+    }
+
+    private static <T> List<String> withParents(Tree<T> tree) {
+        return tree.nodes(Traversal.PRE_ORDER).map(node -> node.getData() + "<" + node.getParentElement().orElse(null)).collect(Collectors.toList());
+    }
 }
@@ -2,13 +2,21 @@ package org.talangsoft.tree.exportimport.treeelement;
 
 import org.junit.Test;
 import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
 import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
 import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class TreeElementExportImportTest {
     /*
@@ -78,4 +86,56 @@ public class TreeElementExportImportTest {
                 .orElseThrow(() -> new RuntimeException(String.format("Node with data '%s' was not found", nodeData)));
     }
 
+    @Test
+    public void importTreeInParallelShouldBuildTheSameTree() {
+        // a wide tree of 0..49999, every node is the child of node / 8, with a deep chain of 50000..99999 under 49999
+        int size = 100_000;
+        List<TreeElement<Integer, Integer>> elements = new ArrayList<>();
+        elements.add(TreeElement.buildFromRootElement(0));
+        for (int node = 1; node < size; node++) {
+            elements.add(TreeElement.buildFromElementAndParentId(node, node < size / 2 ? node / 8 : node - 1));
+        }
+        Collections.shuffle(elements, new Random(42));
+
+        Tree<Integer> sequential = TreeFromTreeElementBuilder.importTree(elements, Function.identity()).withIndex();
+        Tree<Integer> parallel = TreeFromTreeElementBuilder.importTreeInParallel(elements, Function.identity()).withIndex();
+
+        for (int node = 0; node < size; node++) {
+            assertThat(parallel.lookup(node).get().getChildren()).isEqualTo(sequential.lookup(node).get().getChildren());
+        }
+        assertThat(parallel.lookup(size - 1).get().getParentElement()).contains(size - 2);
+
+        // and exporting in parallel keeps the pre-order of the sequential export
+        List<TreeElement<Integer, Integer>> exported = TreeToTreeElementExporter.exportTree(parallel, Function.identity(), TreeElement::buildFromElementAndParentOption);
+        List<TreeElement<Integer, Integer>> exportedInParallel = TreeToTreeElementExporter.exportTreeInParallel(parallel, Function.identity(), TreeElement::buildFromElementAndParentOption);
+        assertThat(exportedInParallel.stream().map(TreeElement::getElement).collect(Collectors.toList()))
+                .isEqualTo(exported.stream().map(TreeElement::getElement).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void importTreeShouldFailOnInvalidElements() {
+        verifyImportFails(Reason.EMPTY_INPUT);
+        verifyImportFails(Reason.MISSING_ROOT,
+                TreeElement.buildFromElementAndParentId('B', 10));
+        verifyImportFails(Reason.MULTIPLE_ROOTS,
+                TreeElement.buildFromRootElement('A'),
+                TreeElement.buildFromRootElement('B'));
+        verifyImportFails(Reason.DUPLICATE_ID,
+                TreeElement.buildFromRootElement('A'),
+                TreeElement.buildFromElementAndParentId('B', 10),
+                TreeElement.buildFromElementAndParentId('B', 10));
+        verifyImportFails(Reason.ORPHAN,
+                TreeElement.buildFromRootElement('A'),
+                TreeElement.buildFromElementAndParentId('B', 12));
+        verifyImportFails(Reason.CYCLE,
+                TreeElement.buildFromRootElement('A'),
+                TreeElement.buildFromElementAndParentId('B', 12),
+                TreeElement.buildFromElementAndParentId('C', 11));
+    }
+
+    private void verifyImportFails(Reason reason, TreeElement<Integer, Character>... elements) {
+        assertThatThrownBy(() -> TreeFromTreeElementBuilder.importTree(Arrays.asList(elements), Character::getNumericValue))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", reason);
+    }
 }
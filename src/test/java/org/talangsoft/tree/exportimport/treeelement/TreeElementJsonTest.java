@@ -0,0 +1,226 @@
+package org.talangsoft.tree.exportimport.treeelement;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import org.junit.Test;
+import org.talangsoft.tree.Traversal;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.TreeBuildException;
+import org.talangsoft.tree.exportimport.TreeBuildException.Reason;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TreeElementJsonTest {
+
+    public static class Employee {
+        private int id;
+        private String name;
+
+        public Employee() {
+        }
+
+        Employee(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Employee employee = (Employee) o;
+            return id == employee.id && Objects.equals(name, employee.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(id, name);
+        }
+    }
+
+    public static class Labelled {
+        private String element;
+
+        public Labelled() {
+        }
+
+        Labelled(String element) {
+            this.element = element;
+        }
+
+        public String getElement() {
+            return element;
+        }
+
+        public void setElement(String element) {
+            this.element = element;
+        }
+    }
+
+    public static class Folder {
+        private String name;
+        private String parentId;
+
+        public Folder() {
+        }
+
+        Folder(String name, String parentId) {
+            this.name = name;
+            this.parentId = parentId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getParentId() {
+            return parentId;
+        }
+
+        public void setParentId(String parentId) {
+            this.parentId = parentId;
+        }
+    }
+
+    /*
+     * |       1:Ann
+     * |     /       \
+     * | 2:Bob       3:Cecil
+     * |                |
+     * |              4:Dan
+     */
+    private Tree<Employee> employees() {
+        Tree<Employee> cecil = new Tree<>(new Employee(3, "Cecil")).insert(new Employee(4, "Dan"));
+        return new Tree<>(new Employee(1, "Ann")).insert(new Employee(2, "Bob")).insert(cecil);
+    }
+
+    @Test
+    public void writerShouldWrapTheElementsInPreOrder() throws IOException {
+        String json = write(employees(), Employee::getId);
+
+        assertThat(json).isEqualTo("[" +
+                "{\"element\":{\"id\":1,\"name\":\"Ann\"},\"parentId\":null}," +
+                "{\"element\":{\"id\":2,\"name\":\"Bob\"},\"parentId\":1}," +
+                "{\"element\":{\"id\":3,\"name\":\"Cecil\"},\"parentId\":1}," +
+                "{\"element\":{\"id\":4,\"name\":\"Dan\"},\"parentId\":3}]");
+    }
+
+    @Test
+    public void readerShouldBuildTheWrittenTree() throws IOException {
+        Tree<Employee> imported = read(write(employees(), Employee::getId), Employee.class, Integer.class, Employee::getId);
+
+        assertThat(imported.getData()).isEqualTo(new Employee(1, "Ann"));
+        assertThat(imported.getChildren()).containsExactly(new Employee(2, "Bob"), new Employee(3, "Cecil"));
+        assertThat(imported.lookup(new Employee(3, "Cecil")).get().getChildren()).containsExactly(new Employee(4, "Dan"));
+    }
+
+    @Test
+    public void scalarElementsShouldBeWrittenToTheElementField() throws IOException {
+        Tree<String> tree = new Tree<>("A").insert("B").insert(new Tree<>("C").insert("D"));
+        String json = write(tree, element -> element);
+
+        assertThat(json).isEqualTo("[{\"element\":\"A\",\"parentId\":null},{\"element\":\"B\",\"parentId\":\"A\"}," +
+                "{\"element\":\"C\",\"parentId\":\"A\"},{\"element\":\"D\",\"parentId\":\"C\"}]");
+        assertThat(read(json, String.class, String.class, element -> element).allElements()).containsExactly("A", "B", "C", "D");
+    }
+
+    @Test
+    public void anElementWithASingleElementPropertyShouldNotBeTakenForAScalar() throws IOException {
+        Tree<Labelled> tree = new Tree<>(new Labelled("A")).insert(new Labelled("B"));
+
+        Tree<Labelled> imported = read(write(tree, Labelled::getElement), Labelled.class, String.class, Labelled::getElement);
+
+        assertThat(imported.getData().getElement()).isEqualTo("A");
+        assertThat(imported.getChildren()).extracting(Labelled::getElement).containsExactly("B");
+    }
+
+    @Test
+    public void aParentIdPropertyOfTheElementShouldBeKeptApartFromTheParentOfTheNode() throws IOException {
+        Tree<Folder> tree = new Tree<>(new Folder("root", "none")).insert(new Folder("docs", "elsewhere"));
+
+        String json = write(tree, Folder::getName);
+        Tree<Folder> imported = read(json, Folder.class, String.class, Folder::getName);
+
+        assertThat(json).contains("{\"element\":{\"name\":\"docs\",\"parentId\":\"elsewhere\"},\"parentId\":\"root\"}");
+        assertThat(imported.getData().getParentId()).isEqualTo("none");
+        assertThat(imported.getChildNodes()).hasSize(1);
+        assertThat(imported.getChildNodes().get(0).getData().getParentId()).isEqualTo("elsewhere");
+    }
+
+    @Test
+    public void readerShouldSkipFieldsAddedByOtherWriters() throws IOException {
+        Tree<String> imported = read("[{\"element\":\"A\",\"parentId\":null,\"childCount\":1},{\"nodeId\":{\"x\":[1]},\"element\":\"B\",\"parentId\":\"A\"}]",
+                String.class, String.class, element -> element);
+
+        assertThat(imported.allElements()).containsExactly("A", "B");
+        assertThatThrownBy(() -> read("[{\"parentId\":null}]", String.class, String.class, element -> element))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    public void readerShouldHandleDeepTrees() throws IOException {
+        Tree<Integer> chain = new Tree<>(0);
+        Tree<Integer> last = chain;
+        for (int node = 1; node < 100_000; node++) {
+            Tree<Integer> next = new Tree<>(node);
+            last.insert(next);
+            last = next;
+        }
+
+        Tree<Integer> imported = read(write(chain, element -> element), Integer.class, Integer.class, element -> element);
+
+        assertThat(imported.elements(Traversal.PRE_ORDER)).isEqualTo(chain.allElements());
+    }
+
+    @Test
+    public void readerShouldRejectElementsNotInPreOrder() {
+        assertThatThrownBy(() -> read("[{\"element\":\"A\",\"parentId\":null},{\"element\":\"C\",\"parentId\":\"B\"},{\"element\":\"B\",\"parentId\":\"A\"}]",
+                String.class, String.class, element -> element))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.ORPHAN);
+        assertThatThrownBy(() -> read("[{\"element\":\"A\",\"parentId\":null},{\"element\":\"B\",\"parentId\":null}]",
+                String.class, String.class, element -> element))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.MULTIPLE_ROOTS);
+        assertThatThrownBy(() -> read("[]", String.class, String.class, element -> element))
+                .isInstanceOf(TreeBuildException.class)
+                .hasFieldOrPropertyWithValue("reason", Reason.EMPTY_INPUT);
+    }
+
+    private static <T, ID> String write(Tree<T> tree, Function<T, ID> idForElementProvider) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new TreeElementJsonWriter().writeTree(tree, idForElementProvider, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static <T, ID> Tree<T> read(String json, Class<T> elementType, Class<ID> idType, Function<T, ID> idForElementProvider) throws IOException {
+        return new TreeElementJsonReader().readTree(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), elementType, idType, idForElementProvider);
+    }
+}
@@ -0,0 +1,177 @@
+package org.talangsoft.tree.layout;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+public class TreeLayoutTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *       A
+     *     / | \
+     *    B  C  D
+     *   / \     \
+     *  E   F     G
+     * </pre>
+     */
+    private final Tree<String> a = new Tree<>("A");
+    private final Tree<String> b = insert(a, "B");
+    private final Tree<String> c = insert(a, "C");
+    private final Tree<String> d = insert(a, "D");
+    private final Tree<String> e = insert(b, "E");
+    private final Tree<String> f = insert(b, "F");
+    private final Tree<String> g = insert(d, "G");
+
+    @Test
+    public void shouldCenterParentsAboveTheirChildren() {
+        TreeLayout<String> layout = TreeLayout.of(a);
+
+        assertThat(layout.x(a)).isEqualTo(0);
+        assertThat(layout.x(e)).isEqualTo(-1.5);
+        assertThat(layout.x(f)).isEqualTo(-0.5);
+        assertThat(layout.x(b)).isEqualTo(-1);
+        assertThat(layout.x(c)).isEqualTo(0);
+        assertThat(layout.x(d)).isEqualTo(1);
+        assertThat(layout.x(g)).isEqualTo(1);
+        assertThat(layout.y(a)).isEqualTo(0);
+        assertThat(layout.y(g)).isEqualTo(2);
+        assertThatThrownBy(() -> layout.x(new Tree<>("X"))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void collapsingShouldLayTheNodeOutAsALeaf() {
+        TreeLayout<String> layout = TreeLayout.of(a, 2);
+
+        layout.collapse(b);
+
+        assertThat(layout.isCollapsed(b)).isTrue();
+        assertThat(layout.x(b)).isEqualTo(-2);
+        assertThat(layout.x(d)).isEqualTo(2);
+        assertThat(layout.visible(-10, 10, 0, 10)).extracting(placement -> placement.getNode().getData()).containsExactly("A", "B", "C", "D", "G");
+
+        layout.expand(b);
+
+        assertThat(layout.x(e)).isEqualTo(-3);
+        assertThat(layout.x(d)).isEqualTo(2);
+    }
+
+    @Test
+    public void insertedSubtreesShouldPushTheirNeighboursApart() {
+        TreeLayout<String> layout = TreeLayout.of(a);
+        Tree<String> h = insert(c, "H");
+        insert(h, "I");
+        insert(h, "J");
+        insert(h, "K");
+
+        layout.inserted(h);
+
+        assertThat(layout.x(h) - layout.x(b)).isEqualTo(1.5);
+        assertThat(layout.x(d) - layout.x(h)).isEqualTo(1);
+        assertThat(layout.y(h)).isEqualTo(2);
+        assertNoOverlaps(layout, a);
+    }
+
+    @Test
+    public void viewportQueriesShouldReturnTheVisibleNodesOnly() {
+        TreeLayout<String> layout = TreeLayout.of(a);
+
+        List<TreeLayout.Placement<String>> visible = layout.visible(-1.6, -0.6, 1, 2);
+
+        assertThat(visible).extracting(placement -> placement.getNode().getData()).containsExactly("B", "E");
+        assertThat(visible.get(1).getX()).isEqualTo(-1.5);
+        assertThat(visible.get(1).getY()).isEqualTo(2);
+    }
+
+    @Test
+    public void incrementalChangesShouldMatchAFreshLayout() {
+        Random random = new Random(42);
+        List<Tree<Integer>> nodes = new ArrayList<>();
+        nodes.add(new Tree<>(0));
+        for (int i = 1; i < 2_000; i++) {
+            nodes.add(insert(nodes.get(random.nextInt(i)), i));
+        }
+        TreeLayout<Integer> layout = TreeLayout.of(nodes.get(0));
+        List<Tree<Integer>> collapsed = new ArrayList<>();
+
+        for (int change = 0; change < 3_000; change++) {
+            Tree<Integer> node = nodes.get(random.nextInt(nodes.size()));
+            int kind = random.nextInt(3);
+            if (kind == 0) {
+                Tree<Integer> inserted = insert(node, nodes.size());
+                nodes.add(inserted);
+                layout.inserted(inserted);
+            } else if (kind == 1 && !collapsed.contains(node)) {
+                collapsed.add(node);
+                layout.collapse(node);
+            } else if (!collapsed.isEmpty()) {
+                layout.expand(collapsed.remove(random.nextInt(collapsed.size())));
+            }
+        }
+
+        TreeLayout<Integer> fresh = TreeLayout.of(nodes.get(0));
+        collapsed.forEach(fresh::collapse);
+        for (Tree<Integer> node : nodes) {
+            assertThat(layout.x(node)).isCloseTo(fresh.x(node), offset(1e-9));
+        }
+        assertNoOverlaps(layout, nodes.get(0));
+    }
+
+    @Test
+    public void removedSubtreesShouldBeDropped() {
+        TreeLayout<String> layout = TreeLayout.of(a);
+
+        a.remove(b);
+        layout.removed(b, a);
+
+        assertThat(layout.x(c)).isEqualTo(-0.5);
+        assertThat(layout.x(d)).isEqualTo(0.5);
+        assertThatThrownBy(() -> layout.x(e)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void deepChainsShouldBeLaidOut() {
+        Tree<Integer> root = new Tree<>(0);
+        Tree<Integer> last = root;
+        for (int i = 1; i < 200_000; i++) {
+            last = insert(last, i);
+        }
+
+        TreeLayout<Integer> layout = TreeLayout.of(root);
+
+        assertThat(layout.x(last)).isEqualTo(0);
+        assertThat(layout.y(last)).isEqualTo(199_999);
+        assertThat(layout.visible(-1, 1, 100_000, 100_001)).hasSize(2);
+    }
+
+    private static <T> void assertNoOverlaps(TreeLayout<T> layout, Tree<T> root) {
+        Map<Integer, List<Double>> levels = new HashMap<>();
+        for (TreeLayout.Placement<T> placement : layout.visible(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, 0, Integer.MAX_VALUE)) {
+            levels.computeIfAbsent(placement.getY(), y -> new ArrayList<>()).add(placement.getX());
+        }
+        for (List<Double> level : levels.values()) {
+            List<Double> sorted = level.stream().sorted(Comparator.naturalOrder()).collect(Collectors.toList());
+            for (int i = 1; i < sorted.size(); i++) {
+                assertThat(sorted.get(i) - sorted.get(i - 1)).isGreaterThanOrEqualTo(1 - 1e-9);
+            }
+        }
+    }
+
+    private static <T> Tree<T> insert(Tree<T> parent, T data) {
+        parent.insert(data);
+        List<Tree<T>> children = parent.getChildNodes();
+        return children.get(children.size() - 1);
+    }
+}
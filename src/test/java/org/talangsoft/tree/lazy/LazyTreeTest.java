@@ -0,0 +1,150 @@
+package org.talangsoft.tree.lazy;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LazyTreeTest {
+
+    /**
+     * Source tree:
+     * <pre>
+     *         A
+     *      /  |  \
+     *     B   C   D
+     *    / \  |   |
+     *   E   F G   H
+     *   |
+     *   I
+     * </pre>
+     */
+    private static class RecordingLoader implements ChildLoader<String> {
+        private final ChildLoader<String> source;
+        private final List<List<String>> batches = new ArrayList<>();
+
+        RecordingLoader() {
+            Tree<String> tree = new Tree<>("A");
+            tree.insert("B").insert("C").insert("D");
+            List<Tree<String>> children = tree.getChildNodes();
+            children.get(0).insert("E").insert("F");
+            children.get(0).getChildNodes().get(0).insert("I");
+            children.get(1).insert("G");
+            children.get(2).insert("H");
+            source = new TreeChildLoader<>(tree);
+        }
+
+        @Override
+        public List<String> loadChildren(String parent) {
+            List<String> batch = new ArrayList<>();
+            batch.add(parent);
+            batches.add(batch);
+            return source.loadChildren(parent);
+        }
+
+        @Override
+        public List<List<String>> loadChildrenBatch(List<String> parents) {
+            batches.add(parents);
+            return source.loadChildrenBatch(parents);
+        }
+    }
+
+    private LazyTree<String> child(LazyTree<String> parent, String element) {
+        return parent.getChildNodes().stream().filter(node -> node.getData().equals(element)).findFirst().get();
+    }
+
+    @Test
+    public void childrenShouldBeLoadedOnFirstAccessOnly() {
+        RecordingLoader loader = new RecordingLoader();
+        LazyTree<String> root = new LazyTree<>("A", loader);
+
+        assertThat(root.isLoaded()).isFalse();
+        assertThat(loader.batches).isEmpty();
+        assertThat(root.getChildren()).containsExactly("B", "C", "D");
+        assertThat(root.getChildren()).containsExactly("B", "C", "D");
+        assertThat(root.isLoaded()).isTrue();
+        assertThat(loader.batches).hasSize(1);
+        assertThat(child(root, "B").getParentElement()).contains("A");
+        assertThat(root.loadedWeight()).isEqualTo(4);
+    }
+
+    @Test
+    public void followingSiblingsShouldBePrefetchedInTheSameBatch() {
+        RecordingLoader loader = new RecordingLoader();
+        LazyTree<String> root = new LazyTree<>("A", loader).withPrefetch(1);
+
+        LazyTree<String> b = child(root, "B");
+        assertThat(b.getChildren()).containsExactly("E", "F");
+        assertThat(loader.batches).containsExactly(asList("A"), asList("B", "C"));
+
+        assertThat(child(root, "C").getChildren()).containsExactly("G");
+        assertThat(child(root, "D").getChildren()).containsExactly("H");
+        assertThat(loader.batches).containsExactly(asList("A"), asList("B", "C"), asList("D"));
+    }
+
+    @Test
+    public void leastRecentlyUsedChildrenShouldBeDroppedOverTheBudget() {
+        RecordingLoader loader = new RecordingLoader();
+        LazyTree<String> root = new LazyTree<>("A", loader).withPrefetch(0).withNodeBudget(7);
+
+        LazyTree<String> b = child(root, "B");
+        b.getChildNodes();
+        LazyTree<String> c = child(root, "C");
+        c.getChildNodes();
+        assertThat(root.loadedWeight()).isEqualTo(7);
+
+        LazyTree<String> e = child(b, "E");
+        e.getChildNodes();
+
+        // C was used least recently, B is on the path to E
+        assertThat(c.isLoaded()).isFalse();
+        assertThat(b.isLoaded()).isTrue();
+        assertThat(root.isLoaded()).isTrue();
+        assertThat(root.loadedWeight()).isEqualTo(7);
+    }
+
+    @Test
+    public void droppedNodesShouldReloadTransparently() {
+        RecordingLoader loader = new RecordingLoader();
+        LazyTree<String> root = new LazyTree<>("A", loader).withPrefetch(0);
+        LazyTree<String> b = child(root, "B");
+        LazyTree<String> e = child(b, "E");
+        assertThat(e.getChildren()).containsExactly("I");
+
+        root.withNodeBudget(1);
+        assertThat(root.isLoaded()).isFalse();
+        assertThat(e.isLoaded()).isFalse();
+        assertThat(root.loadedWeight()).isEqualTo(1);
+
+        assertThat(e.getChildren()).containsExactly("I");
+        assertThat(e.getParentElement()).contains("B");
+        assertThat(loader.batches).containsExactly(asList("A"), asList("B"), asList("E"), asList("A"), asList("B"), asList("E"));
+    }
+
+    @Test
+    public void byteBudgetShouldWeighTheElements() {
+        LazyTree<String> root = new LazyTree<>("A", new RecordingLoader()).withByteBudget(100, element -> 20);
+        assertThat(root.loadedWeight()).isEqualTo(20);
+
+        child(root, "B").getChildNodes();
+        child(root, "C").getChildNodes();
+        assertThat(root.loadedWeight()).isEqualTo(100);
+        child(root, "D").getChildNodes();
+        assertThat(root.loadedWeight()).isLessThanOrEqualTo(100);
+        assertThat(child(root, "D").isLoaded()).isTrue();
+    }
+
+    @Test
+    public void settingsShouldBeRejectedOnOtherNodesThanTheRoot() {
+        LazyTree<String> root = new LazyTree<>("A", new RecordingLoader());
+
+        assertThatThrownBy(() -> child(root, "B").withNodeBudget(10)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> root.withNodeBudget(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> root.withPrefetch(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package org.talangsoft.tree.metrics;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+import org.talangsoft.tree.exportimport.treeelement.TreeElement;
+import org.talangsoft.tree.exportimport.treeelement.TreeFromTreeElementBuilder;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class InstrumentationTest {
+    private final CountingTreeMetrics metrics = new CountingTreeMetrics();
+
+    @Before
+    public void register() {
+        assumeTrue("run with -D" + Instrumentation.ENABLED_PROPERTY + "=true", Instrumentation.ENABLED);
+        Instrumentation.register(metrics);
+    }
+
+    @After
+    public void unregister() {
+        Instrumentation.unregister(metrics);
+    }
+
+    /**
+     * Tree under test:
+     * <pre>
+     *     A
+     *    / \
+     *   B   C
+     *  /
+     * D
+     * </pre>
+     */
+    @Test
+    public void shouldCountOperations() {
+        Tree<String> a = new Tree<>("A");
+        a.insert("B").insert("C");
+        Tree<String> b = a.getChildNodes().get(0);
+        Tree<String> c = a.getChildNodes().get(1);
+        b.insert("D");
+
+        assertThat(a.lookup("D")).isPresent();
+        assertThat(a.lookup("X")).isEmpty();
+        c.insert(b);
+        a.remove(c);
+
+        assertThat(metrics.count(Counter.INSERTS)).isEqualTo(3);
+        assertThat(metrics.count(Counter.LOOKUPS)).isEqualTo(2);
+        assertThat(metrics.count(Counter.NODE_VISITS)).isEqualTo(3 + 4);
+        assertThat(metrics.count(Counter.MOVES)).isEqualTo(1);
+        assertThat(metrics.count(Counter.REMOVES)).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldTimeBuilderPhases() {
+        TreeFromPairBuilder.buildFromRepeatedParentChildPairs(Arrays.asList(
+                new ParentChildPair<>("A", "B"), new ParentChildPair<>("A", "C"), new ParentChildPair<>("B", "C")));
+        TreeFromTreeElementBuilder.importTree(Arrays.asList(
+                new TreeElement<>("A", Optional.empty()), new TreeElement<>("B", Optional.of("A"))), element -> element);
+
+        for (Phase phase : Arrays.asList(Phase.PAIR_REDUCTION, Phase.PAIR_LINKING, Phase.PAIR_VALIDATION,
+                Phase.IMPORT_GROUPING, Phase.IMPORT_LINKING, Phase.IMPORT_VALIDATION)) {
+            assertThat(metrics.phaseCount(phase)).as(phase.name()).isEqualTo(1);
+            assertThat(metrics.phaseNanos(phase)).as(phase.name()).isPositive();
+        }
+        assertThat(metrics.phaseAllocatedBytes(Phase.IMPORT_GROUPING)).isPositive();
+        assertThat(metrics.toString()).contains("PAIR_LINKING: 1 times");
+    }
+}
@@ -0,0 +1,49 @@
+package org.talangsoft.tree.metrics.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+import org.talangsoft.tree.metrics.Instrumentation;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+public class JfrTreeMetricsTest {
+
+    @Test
+    public void shouldRecordEvents() throws Exception {
+        assumeTrue("run with -D" + Instrumentation.ENABLED_PROPERTY + "=true", Instrumentation.ENABLED);
+        Path file = Files.createTempFile("tree", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(TreePhaseEvent.NAME);
+            recording.enable(TreeOperationEvent.NAME);
+            recording.start();
+            Tree<String> tree = TreeFromPairBuilder.buildFromParentChildPairs(Arrays.asList(
+                    new ParentChildPair<>("A", "B"), new ParentChildPair<>("B", "C")));
+            tree.lookup("C");
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            List<String> phases = events.stream().filter(event -> event.getEventType().getName().equals(TreePhaseEvent.NAME))
+                    .map(event -> event.getString("phase")).collect(Collectors.toList());
+            List<String> operations = events.stream().filter(event -> event.getEventType().getName().equals(TreeOperationEvent.NAME))
+                    .map(event -> event.getString("operation") + "=" + event.getLong("count")).collect(Collectors.toList());
+
+            assertThat(phases).contains("PAIR_LINKING", "PAIR_VALIDATION");
+            assertThat(operations).contains("INSERTS=1", "LOOKUPS=1", "NODE_VISITS=3");
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.talangsoft.tree.persistent;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ImmutableTreeTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *     A
+     *    / \
+     *   B   C
+     *  / \   \
+     * D   E   F
+     * </pre>
+     */
+    private final ImmutableTree<String> tree = ImmutableTree.of("A")
+            .insert("A", "B").insert("A", "C")
+            .insert("B", "D").insert("B", "E").insert("C", "F");
+
+    @Test
+    public void insertShouldReturnANewVersionAndKeepTheOldOne() {
+        ImmutableTree<String> newVersion = tree.insert("D", "G");
+
+        assertThat(newVersion.allElements()).containsExactly("A", "B", "D", "G", "E", "C", "F");
+        assertThat(newVersion.getParentElement("G")).contains("D");
+        assertThat(newVersion.size()).isEqualTo(7);
+        assertThat(tree.allElements()).containsExactly("A", "B", "D", "E", "C", "F");
+        assertThat(tree.contains("G")).isFalse();
+    }
+
+    @Test
+    public void updatesShouldShareTheUntouchedSubtrees() {
+        ImmutableTree<String> newVersion = tree.insert("D", "G");
+
+        assertThat(newVersion.node("C")).isSameAs(tree.node("C"));
+        assertThat(newVersion.node("E")).isSameAs(tree.node("E"));
+        assertThat(newVersion.node("B")).isNotSameAs(tree.node("B"));
+        assertThat(newVersion.node("A")).isNotSameAs(tree.node("A"));
+    }
+
+    @Test
+    public void removeShouldDropTheSubtree() {
+        ImmutableTree<String> newVersion = tree.remove("B");
+
+        assertThat(newVersion.allElements()).containsExactly("A", "C", "F");
+        assertThat(newVersion.size()).isEqualTo(3);
+        assertThat(newVersion.contains("D")).isFalse();
+        assertThat(newVersion.insert("F", "D").getParentElement("D")).contains("F");
+        assertThat(tree.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void moveShouldShareTheMovedSubtree() {
+        ImmutableTree<String> newVersion = tree.move("B", "F");
+
+        assertThat(newVersion.allElements()).containsExactly("A", "C", "F", "B", "D", "E");
+        assertThat(newVersion.getParentElement("B")).contains("F");
+        assertThat(newVersion.getChildren("F")).containsExactly("B");
+        assertThat(newVersion.node("B")).isSameAs(tree.node("B"));
+    }
+
+    @Test
+    public void shouldRejectInvalidUpdates() {
+        assertThatThrownBy(() -> tree.insert("X", "Y")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.insert("A", "D")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.remove("A")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.move("B", "E")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tree.move("B", "B")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldConvertFromAndToTree() {
+        Tree<String> plain = new Tree<>("A", Arrays.asList(new Tree<>("B", "D"), new Tree<>("C")));
+
+        ImmutableTree<String> immutable = ImmutableTree.of(plain);
+
+        assertThat(immutable.allElements()).isEqualTo(plain.allElements());
+        assertThat(immutable.getParentElement("D")).contains("B");
+        assertThat(immutable.toTree().allElements()).isEqualTo(plain.allElements());
+        assertThatThrownBy(() -> ImmutableTree.of(new Tree<>("A", Arrays.asList(new Tree<>("B"), new Tree<>("B")))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void deepChainsShouldBeUpdatable() {
+        ImmutableTree<Integer> chain = ImmutableTree.of(0);
+        for (int i = 1; i < 3_000; i++) {
+            chain = chain.insert(i - 1, i);
+        }
+
+        ImmutableTree<Integer> moved = chain.move(2_999, 0);
+
+        assertThat(moved.getChildren(0)).containsExactly(1, 2_999);
+        assertThat(chain.toTree().allElements()).hasSize(3_000);
+    }
+
+    @Test
+    public void wideNodesShouldKeepTheOrderOfTheirChildren() {
+        ImmutableTree<Integer> star = ImmutableTree.of(-1);
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            star = star.insert(-1, i);
+            expected.add(i);
+        }
+        ImmutableTree<Integer> full = star;
+        for (int i = 0; i < 5_000; i += 3) {
+            star = star.remove(i);
+            expected.remove(Integer.valueOf(i));
+        }
+        star = star.move(4_999, 1).move(1, 2);
+        expected.remove(Integer.valueOf(1));
+        expected.remove(Integer.valueOf(4_999));
+
+        assertThat(star.getChildren(-1)).isEqualTo(expected);
+        assertThat(star.getChildren(1)).containsExactly(4_999);
+        assertThat(star.getChildren(2)).containsExactly(1);
+        assertThat(star.size()).isEqualTo(expected.size() + 3);
+        assertThat(full.getChildren(-1)).hasSize(5_000);
+    }
+
+    @Test
+    public void readersShouldKeepTheVersionTheyRead() {
+        AtomicReference<ImmutableTree<String>> current = new AtomicReference<>(tree);
+        ImmutableTree<String> readersVersion = current.get();
+
+        current.updateAndGet(version -> version.remove("C"));
+
+        assertThat(current.get().allElements()).containsExactly("A", "B", "D", "E");
+        assertThat(readersVersion.allElements()).containsExactly("A", "B", "D", "E", "C", "F");
+    }
+}
@@ -0,0 +1,80 @@
+package org.talangsoft.tree.persistent;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentHashMapTest {
+
+    /**
+     * Key whose hash only has a few distinct values, to exercise the collision nodes.
+     */
+    private static final class Key {
+        private final int id;
+
+        Key(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return id % 7;
+        }
+    }
+
+    @Test
+    public void shouldBehaveLikeAHashMap() {
+        assertSameAsHashMap(Integer::valueOf, 20_000);
+    }
+
+    @Test
+    public void shouldHandleCollidingHashes() {
+        assertSameAsHashMap(Key::new, 500);
+    }
+
+    @Test
+    public void updatesShouldLeaveThePreviousVersionUnchanged() {
+        PersistentHashMap<String, String> first = PersistentHashMap.<String, String>empty().put("a", "1");
+        PersistentHashMap<String, String> second = first.put("a", "2").put("b", "3");
+        PersistentHashMap<String, String> third = second.remove("a");
+
+        assertThat(first.get("a")).isEqualTo("1");
+        assertThat(first.size()).isEqualTo(1);
+        assertThat(second.get("a")).isEqualTo("2");
+        assertThat(second.size()).isEqualTo(2);
+        assertThat(third.containsKey("a")).isFalse();
+        assertThat(third.remove("x")).isSameAs(third);
+    }
+
+    private <K> void assertSameAsHashMap(IntFunction<K> keys, int keyRange) {
+        Random random = new Random(42);
+        Map<K, Integer> expected = new HashMap<>();
+        PersistentHashMap<K, Integer> actual = PersistentHashMap.empty();
+        for (int i = 0; i < 100_000; i++) {
+            K key = keys.apply(random.nextInt(keyRange));
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                actual = actual.remove(key);
+            } else {
+                expected.put(key, i);
+                actual = actual.put(key, i);
+            }
+        }
+
+        assertThat(actual.size()).isEqualTo(expected.size());
+        for (int id = 0; id < keyRange; id++) {
+            K key = keys.apply(id);
+            assertThat(actual.get(key)).isEqualTo(expected.get(key));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.talangsoft.tree.persistent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PersistentVectorTest {
+
+    @Test
+    public void shouldBehaveLikeAListWithClearedSlots() {
+        Random random = new Random(42);
+        List<Integer> expected = new ArrayList<>();
+        PersistentVector<Integer> actual = PersistentVector.empty();
+        for (int i = 0; i < 50_000; i++) {
+            int choice = random.nextInt(4);
+            if (choice == 0 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, null);
+                actual = actual.clear(index);
+            } else if (choice == 1 && !expected.isEmpty()) {
+                int index = random.nextInt(expected.size());
+                expected.set(index, i);
+                actual = actual.set(index, i);
+            } else {
+                expected.add(i);
+                actual = actual.add(i);
+            }
+        }
+
+        assertThat(actual.size()).isEqualTo(expected.size());
+        for (int index = 0; index < expected.size(); index++) {
+            assertThat(actual.get(index)).isEqualTo(expected.get(index));
+        }
+        expected.removeIf(element -> element == null);
+        assertThat(actual.count()).isEqualTo(expected.size());
+        assertThat(elements(actual)).isEqualTo(expected);
+        assertThat(elements(actual.compacted())).isEqualTo(expected);
+        assertThat(actual.compacted().size()).isEqualTo(expected.size());
+    }
+
+    @Test
+    public void builtVectorShouldMatchTheElements() {
+        Integer[] elements = new Integer[33 * 32 + 1];
+        for (int i = 0; i < elements.length; i++) elements[i] = i;
+
+        PersistentVector<Integer> vector = PersistentVector.of(elements).add(elements.length);
+
+        assertThat(vector.size()).isEqualTo(elements.length + 1);
+        assertThat(vector.get(1000)).isEqualTo(1000);
+        assertThat(vector.get(elements.length)).isEqualTo(elements.length);
+    }
+
+    @Test
+    public void updatesShouldLeaveThePreviousVersionUnchanged() {
+        PersistentVector<String> first = PersistentVector.<String>empty().add("a").add("b");
+        PersistentVector<String> second = first.set(0, "c").clear(1).add("d");
+
+        assertThat(elements(first)).containsExactly("a", "b");
+        assertThat(elements(second)).containsExactly("c", "d");
+        assertThat(second.isSparse()).isFalse();
+        assertThat(second.clear(0).isSparse()).isTrue();
+        assertThatThrownBy(() -> first.get(2)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+
+    private <E> List<E> elements(PersistentVector<E> vector) {
+        List<E> elements = new ArrayList<>();
+        vector.forEach(elements::add);
+        return elements;
+    }
+}
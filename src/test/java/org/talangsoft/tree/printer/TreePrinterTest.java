@@ -0,0 +1,111 @@
+package org.talangsoft.tree.printer;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+import org.talangsoft.tree.exportimport.parentchildpair.ParentChildPair;
+import org.talangsoft.tree.exportimport.parentchildpair.TreeFromPairBuilder;
+import org.talangsoft.tree.printer.TreePrinter.Layout;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreePrinterTest {
+
+    /**
+     * Representing pairs for:
+     * |
+     * |    A
+     * |  /   \
+     * | B     C
+     * |      / \
+     * |     D   E
+     * |    / \
+     * |   F  G
+     */
+    private List<ParentChildPair<String>> parentChildPairs = Arrays.asList(
+            new ParentChildPair<>("A", "B"),
+            new ParentChildPair<>("A", "C"),
+            new ParentChildPair<>("C", "D"),
+            new ParentChildPair<>("C", "E"),
+            new ParentChildPair<>("D", "F"),
+            new ParentChildPair<>("D", "G")
+    );
+
+    private Tree<String> exampleTree = TreeFromPairBuilder.buildFromParentChildPairs(parentChildPairs);
+
+    @Test
+    public void treeNodeLayoutShouldPrintANodeWithItsChildrenPerLine() {
+        assertThat(new TreePrinter(Layout.TREE_NODE).render(exampleTree)).isEqualTo(lines(
+                "TreeNode[A -> {B,C}]",
+                "TreeNode[B -> {}]",
+                "TreeNode[C -> {D,E}]",
+                "TreeNode[D -> {F,G}]",
+                "TreeNode[F -> {}]",
+                "TreeNode[G -> {}]",
+                "TreeNode[E -> {}]"));
+    }
+
+    @Test
+    public void indentedLayoutsShouldDrawTheBranches() {
+        assertThat(new TreePrinter(Layout.BOX_DRAWING).render(exampleTree)).isEqualTo(lines(
+                "A",
+                "\u251c\u2500\u2500 B",
+                "\u2514\u2500\u2500 C",
+                "    \u251c\u2500\u2500 D",
+                "    \u2502   \u251c\u2500\u2500 F",
+                "    \u2502   \u2514\u2500\u2500 G",
+                "    \u2514\u2500\u2500 E"));
+        assertThat(new TreePrinter(Layout.ASCII).render(exampleTree)).isEqualTo(lines(
+                "A",
+                "+-- B",
+                "\\-- C",
+                "    +-- D",
+                "    |   +-- F",
+                "    |   \\-- G",
+                "    \\-- E"));
+    }
+
+    @Test
+    public void limitsShouldSummarizeTheLeftOutNodes() throws IOException {
+        StringWriter out = new StringWriter();
+        new TreePrinter(Layout.ASCII).withMaxDepth(2).withMaxChildren(1).print(exampleTree, out);
+
+        assertThat(out.toString()).isEqualTo(lines(
+                "A",
+                "+-- B",
+                "\\-- ... 1 more"));
+
+        assertThat(new TreePrinter(Layout.ASCII).withMaxDepth(2).render(exampleTree)).isEqualTo(lines(
+                "A",
+                "+-- B",
+                "\\-- C",
+                "    +-- D",
+                "    |   \\-- ... 2 children",
+                "    \\-- E"));
+        assertThat(new TreePrinter(Layout.TREE_NODE).withMaxDepth(0).withMaxChildren(1).render(exampleTree)).isEqualTo(lines(
+                "TreeNode[A -> {B,...}]"));
+    }
+
+    @Test
+    public void printerShouldHandleDeepTrees() {
+        Tree<Integer> chain = new Tree<>(0);
+        Tree<Integer> last = chain;
+        for (int node = 1; node < 100_000; node++) {
+            Tree<Integer> next = new Tree<>(node);
+            last.insert(next);
+            last = next;
+        }
+
+        String rendered = new TreePrinter(Layout.TREE_NODE).render(chain);
+
+        assertThat(rendered).endsWith(lines("TreeNode[99998 -> {99999}]", "TreeNode[99999 -> {}]"));
+    }
+
+    private static String lines(String... lines) {
+        return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+    }
+}
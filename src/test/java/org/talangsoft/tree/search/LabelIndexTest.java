@@ -0,0 +1,107 @@
+package org.talangsoft.tree.search;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LabelIndexTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *            Catalog
+     *           /       \
+     *      Tools         Garden tools
+     *     /     \              |
+     * Hammer   Toolbox     Tool shed
+     * </pre>
+     */
+    private Tree<String> tree() {
+        Tree<String> root = new Tree<>("Catalog");
+        root.insert("Tools").insert("Garden tools");
+        Tree<String> tools = root.getChildNodes().get(0);
+        tools.insert("Hammer").insert("Toolbox");
+        root.getChildNodes().get(1).insert("Tool shed");
+        return root;
+    }
+
+    private List<String> labels(List<LabelIndex.Match<String>> matches) {
+        return matches.stream().map(match -> match.getNode().getData()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void searchShouldRankExactThenPrefixThenWordMatches() {
+        LabelIndex<String> index = LabelIndex.of(tree(), label -> label);
+
+        assertThat(labels(index.search("tool", 10))).containsExactly("Tools", "Toolbox", "Tool shed", "Garden tools");
+        assertThat(labels(index.search("TOOLS", 10))).containsExactly("Tools", "Garden tools");
+        assertThat(labels(index.search("ammer", 10))).containsExactly("Hammer");
+        assertThat(index.search("drill", 10)).isEmpty();
+    }
+
+    @Test
+    public void searchShouldReturnThePathsAndRespectTheLimit() {
+        LabelIndex<String> index = LabelIndex.of(tree(), label -> label);
+
+        List<LabelIndex.Match<String>> matches = index.search("tool", 2);
+
+        assertThat(labels(matches)).containsExactly("Tools", "Toolbox");
+        assertThat(matches.get(1).getPath()).containsExactly("Catalog", "Tools", "Toolbox");
+    }
+
+    @Test
+    public void shortQueriesShouldFindLabelPrefixes() {
+        LabelIndex<String> index = LabelIndex.of(tree(), label -> label);
+
+        assertThat(labels(index.search("t", 10))).containsExactly("Tools", "Toolbox", "Tool shed");
+        assertThat(labels(index.search("ha", 10))).containsExactly("Hammer");
+    }
+
+    @Test
+    public void indexShouldFollowInsertsMovesAndRemoves() {
+        Tree<String> root = tree();
+        LabelIndex<String> index = LabelIndex.of(root, label -> label);
+        Tree<String> tools = root.getChildNodes().get(0);
+        Tree<String> garden = root.getChildNodes().get(1);
+
+        garden.insert("Rake");
+        index.inserted(garden.getChildNodes().get(1));
+        assertThat(labels(index.search("rake", 10))).containsExactly("Rake");
+
+        Tree<String> hammer = tools.getChildNodes().get(0);
+        garden.insert(hammer);
+        assertThat(index.search("hammer", 10).get(0).getPath()).containsExactly("Catalog", "Garden tools", "Hammer");
+
+        root.remove(tools);
+        index.removed(tools);
+        assertThat(labels(index.search("tool", 10))).containsExactly("Tool shed", "Garden tools");
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void nodesRemovedWithoutNoticeShouldNotBeReturned() {
+        Tree<String> root = tree();
+        LabelIndex<String> index = LabelIndex.of(root, label -> label);
+
+        root.remove(root.getChildNodes().get(0));
+
+        assertThat(labels(index.search("tool", 10))).containsExactly("Tool shed", "Garden tools");
+    }
+
+    @Test
+    public void indexShouldHandleLargeNodeNumbers() {
+        Tree<Integer> root = new Tree<>(0);
+        for (int i = 1; i < 100_000; i++) root.insert(i);
+        LabelIndex<Integer> index = LabelIndex.of(root, String::valueOf);
+
+        assertThat(index.search("99999", 10)).extracting(match -> match.getNode().getData()).containsExactly(99999);
+        assertThat(index.search("4321", 3)).extracting(match -> match.getNode().getData()).containsExactly(4321, 43210, 43211);
+        assertThatThrownBy(() -> index.search("1", 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
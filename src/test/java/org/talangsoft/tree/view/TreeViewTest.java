@@ -0,0 +1,165 @@
+package org.talangsoft.tree.view;
+
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TreeViewTest {
+
+    /**
+     * Tree under test:
+     * <pre>
+     *          A
+     *       /  |  \
+     *      B   C   D
+     *     / \  |   |
+     *    E  F  G   H
+     *    |
+     *    I
+     * </pre>
+     */
+    private Tree<String> tree() {
+        Tree<String> root = new Tree<>("A");
+        root.insert("B").insert("C").insert("D");
+        List<Tree<String>> children = root.getChildNodes();
+        children.get(0).insert("E").insert("F");
+        children.get(0).getChildNodes().get(0).insert("I");
+        children.get(1).insert("G");
+        children.get(2).insert("H");
+        return root;
+    }
+
+    private <T> List<T> data(List<TreeView.Node<T>> nodes) {
+        return nodes.stream().map(TreeView.Node::getData).collect(Collectors.toList());
+    }
+
+    @Test
+    public void viewShouldKeepTheMatchesAndTheirAncestors() {
+        Tree<String> tree = tree();
+        TreeView<String> view = TreeView.of(tree, element -> element.equals("I") || element.equals("G"));
+
+        TreeView.Node<String> root = view.root().get();
+        assertThat(data(root.getChildNodes())).containsExactly("B", "C");
+        TreeView.Node<String> b = root.getChildNodes().get(0);
+        assertThat(data(b.getChildNodes())).containsExactly("E");
+        assertThat(data(b.getChildNodes().get(0).getChildNodes())).containsExactly("I");
+        assertThat(b.isMatch()).isFalse();
+        assertThat(b.getChildNodes().get(0).getChildNodes().get(0).isMatch()).isTrue();
+        assertThat(view.size()).isEqualTo(6);
+    }
+
+    @Test
+    public void viewNodesShouldBeTheNodesOfTheTree() {
+        Tree<String> tree = tree();
+        TreeView<String> view = TreeView.of(tree, element -> element.equals("G"));
+
+        TreeView.Node<String> c = view.root().get().getChildNodes().get(0);
+
+        assertThat(c.getTree()).isSameAs(tree.getChildNodes().get(1));
+        assertThat(c.getParent().get().getTree()).isSameAs(tree);
+        assertThat(view.node(tree.getChildNodes().get(0))).isEmpty();
+    }
+
+    @Test
+    public void viewShouldBeEmptyWithoutMatches() {
+        TreeView<String> view = TreeView.of(tree(), element -> element.equals("X"));
+
+        assertThat(view.root()).isEmpty();
+        assertThat(view.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void depthCutShouldHideTheDeeperNodes() {
+        TreeView<String> view = TreeView.of(tree(), element -> true).withMaxDepth(1);
+
+        TreeView.Node<String> root = view.root().get();
+        assertThat(data(root.getChildNodes())).containsExactly("B", "C", "D");
+        assertThat(root.getChildNodes().get(0).getChildNodes()).isEmpty();
+        assertThat(view.size()).isEqualTo(4);
+        assertThat(TreeView.of(tree(), element -> element.equals("I")).withMaxDepth(2).root()).isEmpty();
+        assertThatThrownBy(() -> view.withMaxDepth(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void childrenShouldBePaged() {
+        TreeView<String> view = TreeView.of(tree(), element -> !element.equals("C"));
+
+        TreeView.Node<String> root = view.root().get();
+        assertThat(root.getChildCount()).isEqualTo(3);
+        assertThat(data(root.getChildNodes(1, 1))).containsExactly("C");
+        assertThat(data(root.getChildNodes(1, 10))).containsExactly("C", "D");
+        assertThat(root.getChildNodes(3, 10)).isEmpty();
+        assertThat(root.getChildNodes(0, 0)).isEmpty();
+    }
+
+    @Test
+    public void pagesOfAWideNodeShouldTakeEveryKeptChildOnce() {
+        Tree<Integer> root = new Tree<>(-1);
+        for (int child = 0; child < 1000; child++) {
+            root.insert(child);
+            if (child % 7 == 0) root.getChildNodes().get(child).insert(-child - 2);
+        }
+        TreeView<Integer> view = TreeView.of(root, element -> element % 3 == 0 || element < -1);
+
+        TreeView.Node<Integer> viewRoot = view.root().get();
+        List<Integer> paged = new ArrayList<>();
+        for (int offset = 0; offset < 1000; offset += 64) {
+            viewRoot.getChildNodes(offset, 64).forEach(node -> paged.add(node.getData()));
+        }
+        List<Integer> expected = IntStream.range(0, 1000).filter(child -> child % 3 == 0 || child % 7 == 0).boxed().collect(Collectors.toList());
+        assertThat(paged).isEqualTo(expected);
+        assertThat(viewRoot.getChildCount()).isEqualTo(expected.size());
+        assertThat(data(viewRoot.getChildNodes())).isEqualTo(expected);
+        assertThat(viewRoot.getChildNodes(expected.size() - 1, Integer.MAX_VALUE)).extracting(TreeView.Node::getData).containsExactly(999);
+    }
+
+    @Test
+    public void childCountShouldStopAtTheDepthCut() {
+        TreeView<String> view = TreeView.of(tree(), element -> element.equals("I")).withMaxDepth(1);
+
+        assertThat(view.root()).isEmpty();
+        TreeView.Node<String> b = TreeView.of(tree(), element -> !element.equals("A")).withMaxDepth(1).root().get().getChildNodes().get(0);
+        assertThat(b.getChildCount()).isZero();
+        assertThat(b.getChildNodes()).isEmpty();
+    }
+
+    @Test
+    public void creatingAViewShouldVersionTheTree() {
+        Tree<String> tree = tree();
+        Tree<String> b = tree.getChildNodes().get(0);
+
+        TreeView<String> view = TreeView.of(b, element -> true);
+
+        assertThat(tree.isVersioned()).isTrue();
+        assertThat(view.size()).isEqualTo(4);
+        tree.remove(b);
+        assertThatThrownBy(view::size).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void viewShouldFollowTheChangesOfTheTree() {
+        Tree<String> tree = tree();
+        TreeView<String> view = TreeView.of(tree, element -> element.startsWith("H"));
+        TreeView.Node<String> d = view.root().get().getChildNodes().get(0);
+        long version = tree.version();
+
+        tree.getChildNodes().get(0).insert("Hx");
+        assertThat(tree.version()).isGreaterThan(version);
+        assertThat(data(view.root().get().getChildNodes())).containsExactly("B", "D");
+        assertThat(data(d.getChildNodes())).containsExactly("H");
+
+        tree.getChildNodes().get(0).insert(d.getTree());
+        assertThat(data(d.getChildNodes())).containsExactly("H");
+        assertThat(d.getParent().get().getData()).isEqualTo("B");
+
+        d.getTree().getChildNodes().clear();
+        assertThatThrownBy(d::getChildNodes).isInstanceOf(IllegalStateException.class);
+    }
+}
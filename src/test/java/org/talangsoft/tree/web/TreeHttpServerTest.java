@@ -0,0 +1,180 @@
+package org.talangsoft.tree.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.talangsoft.tree.Tree;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TreeHttpServerTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private Tree<String> tree;
+    private TreeHttpServer<String, String> server;
+
+    /**
+     * Tree under test, with 250 numbered children under C:
+     * <pre>
+     *     A
+     *    / \
+     *   B   C
+     *  /   /|\
+     * D   0 .. 249
+     * </pre>
+     */
+    @Before
+    public void startServer() throws IOException {
+        tree = new Tree<>("A");
+        tree.insert("B").insert("C");
+        tree.lookup("B").get().insert("D");
+        Tree<String> c = tree.lookup("C").get();
+        for (int i = 0; i < 250; i++) {
+            c.insert(String.valueOf(i));
+        }
+        server = new TreeHttpServer<>(tree, Function.identity(), mapper, new InetSocketAddress("localhost", 0));
+        server.start();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+    }
+
+    @Test
+    public void withoutNodeTheRootShouldBeReturned() throws IOException {
+        JsonNode page = mapper.readTree(get("/children").getInputStream());
+
+        assertThat(page.get("total").asInt()).isEqualTo(1);
+        JsonNode root = page.get("elements").get(0);
+        assertThat(root.get("element").asText()).isEqualTo("A");
+        assertThat(root.get("parentId").isNull()).isTrue();
+        assertThat(root.get("nodeId").asText()).isEqualTo("A");
+        assertThat(root.get("childCount").asInt()).isEqualTo(2);
+    }
+
+    @Test
+    public void childrenShouldBePaged() throws IOException {
+        JsonNode page = mapper.readTree(get("/children?node=C&offset=100&limit=50").getInputStream());
+
+        assertThat(page.get("total").asInt()).isEqualTo(250);
+        assertThat(page.get("elements")).hasSize(50);
+        assertThat(page.get("elements").get(0).get("element").asText()).isEqualTo("100");
+        assertThat(page.get("elements").get(0).get("parentId").asText()).isEqualTo("C");
+
+        JsonNode lastPage = mapper.readTree(get("/children?node=C&offset=240").getInputStream());
+        assertThat(lastPage.get("elements")).hasSize(10);
+    }
+
+    @Test
+    public void summaryShouldTellTheSubtreeSize() throws IOException {
+        JsonNode summary = mapper.readTree(get("/summary?node=C").getInputStream());
+
+        assertThat(summary.get("childCount").asInt()).isEqualTo(250);
+        assertThat(summary.get("subtreeSize").asInt()).isEqualTo(251);
+    }
+
+    @Test
+    public void unchangedBranchesShouldBeAnsweredWithNotModified() throws IOException {
+        String bEtag = get("/children?node=B").getHeaderField("ETag");
+        String cEtag = get("/children?node=C").getHeaderField("ETag");
+        Tree<String> c = tree.lookup("C").get();
+
+        server.update(() -> c.insert("new"));
+
+        assertThat(get("/children?node=B", bEtag).getResponseCode()).isEqualTo(304);
+        assertThat(get("/children?node=C", cEtag).getResponseCode()).isEqualTo(200);
+        assertThat(get("/children?node=new").getResponseCode()).isEqualTo(200);
+        assertThat(mapper.readTree(get("/summary").getInputStream()).get("subtreeSize").asInt()).isEqualTo(255);
+    }
+
+    @Test
+    public void removedNodesShouldNotBeFound() throws IOException {
+        Tree<String> b = tree.lookup("B").get();
+
+        server.update(() -> tree.remove(b));
+
+        assertThat(get("/children?node=B").getResponseCode()).isEqualTo(404);
+        assertThat(get("/children?node=D").getResponseCode()).isEqualTo(404);
+    }
+
+    @Test
+    public void nodeReplacingARemovedOneShouldNotBeAnsweredWithNotModified() throws IOException {
+        String bEtag = get("/children?node=B").getHeaderField("ETag");
+        Tree<String> b = tree.lookup("B").get();
+        Tree<String> c = tree.lookup("C").get();
+
+        server.update(() -> tree.remove(b));
+        server.update(() -> c.insert(new Tree<>("B").insert("X").insert("Y")));
+
+        HttpURLConnection revalidated = get("/children?node=B", bEtag);
+        assertThat(revalidated.getResponseCode()).isEqualTo(200);
+        assertThat(revalidated.getHeaderField("ETag")).isNotEqualTo(bEtag);
+    }
+
+    @Test
+    public void movesShouldBumpTheOldAndTheNewParentOnly() throws IOException {
+        String rootEtag = get("/children?node=A").getHeaderField("ETag");
+        String bEtag = get("/children?node=B").getHeaderField("ETag");
+        String cEtag = get("/children?node=C").getHeaderField("ETag");
+        String dEtag = get("/children?node=D").getHeaderField("ETag");
+        String leafEtag = get("/children?node=7").getHeaderField("ETag");
+        Tree<String> b = tree.lookup("B").get();
+        Tree<String> c = tree.lookup("C").get();
+
+        server.update(() -> Tree.moveAll(Arrays.asList(c.getChildNodes().get(0), c.getChildNodes().get(1)), b));
+
+        assertThat(get("/children?node=A", rootEtag).getResponseCode()).isEqualTo(200);
+        assertThat(get("/children?node=B", bEtag).getResponseCode()).isEqualTo(200);
+        assertThat(get("/children?node=C", cEtag).getResponseCode()).isEqualTo(200);
+        assertThat(get("/children?node=D", dEtag).getResponseCode()).isEqualTo(304);
+        assertThat(get("/children?node=7", leafEtag).getResponseCode()).isEqualTo(304);
+        JsonNode moved = mapper.readTree(get("/children?node=B").getInputStream());
+        assertThat(moved.get("total").asInt()).isEqualTo(3);
+        assertThat(moved.get("elements").get(1).get("parentId").asText()).isEqualTo("B");
+        assertThat(get("/children?node=0").getResponseCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void nodesInsertedAndRemovedInTheSameUpdateShouldNotBeFound() throws IOException {
+        Tree<String> c = tree.lookup("C").get();
+        Tree<String> temporary = new Tree<>("temporary").insert("below");
+
+        server.update(() -> {
+            c.insert(temporary);
+            c.remove(temporary);
+            c.insert("kept");
+        });
+
+        assertThat(get("/children?node=temporary").getResponseCode()).isEqualTo(404);
+        assertThat(get("/children?node=below").getResponseCode()).isEqualTo(404);
+        assertThat(get("/children?node=kept").getResponseCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void invalidRequestsShouldBeRejected() throws IOException {
+        assertThat(get("/children?node=X").getResponseCode()).isEqualTo(404);
+        assertThat(get("/children?node=C&limit=many").getResponseCode()).isEqualTo(400);
+        assertThat(get("/children?node=C&offset=-1").getResponseCode()).isEqualTo(400);
+    }
+
+    private HttpURLConnection get(String path) throws IOException {
+        return get(path, null);
+    }
+
+    private HttpURLConnection get(String path, String ifNoneMatch) throws IOException {
+        InetSocketAddress address = server.getAddress();
+        HttpURLConnection connection = (HttpURLConnection) new URL("http", address.getHostString(), address.getPort(), path).openConnection();
+        if (ifNoneMatch != null) connection.setRequestProperty("If-None-Match", ifNoneMatch);
+        connection.getResponseCode();
+        return connection;
+    }
+}